@@ -2,8 +2,10 @@ package com.carnetdigital.carnet_api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Réplicas, ReadYourWrites, actividad, sellos, outbox de correo y jobs del clúster (ver SchedulingConfig)
 public class CarnetApiApplication {
 
 	public static void main(String[] args) {
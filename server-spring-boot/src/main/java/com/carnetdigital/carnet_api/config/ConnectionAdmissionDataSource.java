@@ -0,0 +1,96 @@
+package com.carnetdigital.carnet_api.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Control de admisión delante del pool de conexiones.
+ * Con hilos virtuales no hay techo de concurrencia: miles de peticiones pueden quedar esperando
+ * en Hikari hasta su connection-timeout. Aquí solo pasan tantos hilos como conexiones tiene el pool;
+ * el resto espera como mucho waitMs en un semáforo justo, y si la cola ya está llena se rechaza
+ * de inmediato (GlobalExceptionHandler responde 503).
+ */
+public class ConnectionAdmissionDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final long waitMs;
+
+    public ConnectionAdmissionDataSource(DataSource target, int permits, int maxQueued, long waitMs) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+        this.maxQueued = maxQueued;
+        this.waitMs = waitMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire()) return;
+
+        if (permits.getQueueLength() >= maxQueued) {
+            throw new SQLTransientConnectionException("Base de datos saturada: cola de conexiones llena");
+        }
+        try {
+            if (!permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Base de datos saturada: sin conexión en " + waitMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando una conexión", e);
+        }
+    }
+
+    // El permiso se devuelve una sola vez, al cerrar la conexión (devolverla al pool)
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        permits.release();
+                    }
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+}
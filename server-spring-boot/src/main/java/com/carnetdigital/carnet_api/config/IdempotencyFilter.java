@@ -0,0 +1,340 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.exception.BadRequestException;
+import com.carnetdigital.carnet_api.exception.ConflictException;
+import com.carnetdigital.carnet_api.exception.DomainException;
+import com.carnetdigital.carnet_api.exception.UnprocessableException;
+import com.carnetdigital.carnet_api.repository.IdempotencyKeyRepository;
+import com.carnetdigital.carnet_api.repository.IdempotencyKeyRepository.StoredResponse;
+import com.carnetdigital.carnet_api.service.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Soporte de Idempotency-Key en los POST de creación (api.idempotency.paths).
+ *
+ * La primera respuesta (status menor a 500) se guarda en idempotency_keys y en una caché local LRU acotada,
+ * y se repite tal cual ante reintentos con la misma clave y el mismo cuerpo (header Idempotent-Replayed):
+ * status, cuerpo, Content-Type y los encabezados de REPLAYED_RESPONSE_HEADERS.
+ * Un duplicado que llega mientras la primera sigue en curso en este nodo espera su respuesta en vez de
+ * ejecutarse otra vez; si está en curso en otro nodo se responde 409.
+ * La misma clave con otro cuerpo se rechaza con 422. Un 5xx no se guarda: la clave queda libre para reintentar.
+ * Las claves son por ruta y por usuario (access token Bearer válido): la misma clave enviada por otro usuario
+ * es otra petición. Sin token válido (registro) la clave queda ligada a la huella del cliente: IP y User-Agent.
+ */
+@Slf4j
+@Component
+@ConditionalOnBooleanProperty(name = "api.idempotency.enabled", matchIfMissing = true)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    // Encabezados de la respuesta original que forman parte de ella y se repiten
+    private static final List<String> REPLAYED_RESPONSE_HEADERS =
+        List.of(HttpHeaders.ETAG, HttpHeaders.LOCATION, HttpHeaders.RETRY_AFTER);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final JwtService jwtService;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> paths;
+    private final Duration ttl;
+    private final Duration inFlightTimeout;
+
+    private final Map<String, StoredResponse> completed;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyFilter(IdempotencyKeyRepository idempotencyKeyRepository,
+                             JwtService jwtService,
+                             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                             MeterRegistry meterRegistry,
+                             @Value("${api.idempotency.paths:/api/v1/auth/register,/api/v1/users,/api/tokens}") List<String> paths,
+                             @Value("${api.idempotency.ttl:24h}") Duration ttl,
+                             @Value("${api.idempotency.in-flight-timeout:30s}") Duration inFlightTimeout,
+                             @Value("${api.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.jwtService = jwtService;
+        this.exceptionResolver = exceptionResolver;
+        this.meterRegistry = meterRegistry;
+        this.paths = Set.copyOf(paths);
+        this.ttl = ttl;
+        this.inFlightTimeout = inFlightTimeout;
+        // LRU por orden de acceso: las claves que se reintentan se quedan, el resto sale al llenarse
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(HEADER) == null
+            || !paths.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            exceptionResolver.resolveException(request, response, null,
+                new BadRequestException(HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres"));
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String scope = scope(request);
+        String cacheKey = scope + ' ' + key;
+        String requestHash = sha256(cachedRequest.body);
+
+        try {
+            StoredResponse stored = lookup(cacheKey, scope, key);
+            if (stored != null) {
+                replay(stored, requestHash, response, "replayed");
+                return;
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> first = inFlight.putIfAbsent(cacheKey, mine);
+            if (first != null) {
+                // Duplicado concurrente en este nodo: espera la respuesta del primero
+                replay(await(first), requestHash, response, "waited");
+                return;
+            }
+            try {
+                execute(cachedRequest, response, filterChain, scope, key, cacheKey, requestHash, mine);
+            } finally {
+                inFlight.remove(cacheKey, mine);
+            }
+        } catch (DomainException e) {
+            count(e instanceof UnprocessableException ? "mismatch" : "conflict");
+            exceptionResolver.resolveException(request, response, null, e);
+        }
+    }
+
+    private void execute(CachedBodyRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String scope, String key, String cacheKey, String requestHash,
+                         CompletableFuture<StoredResponse> mine) throws ServletException, IOException {
+        if (!idempotencyKeyRepository.claim(scope, key, requestHash, ttl, inFlightTimeout)) {
+            // Otro nodo la tiene en curso, o la completó entre la consulta y el claim
+            StoredResponse other = idempotencyKeyRepository.find(scope, key).orElse(null);
+            mine.complete(other != null && other.completed() ? other : null);
+            if (other != null && other.completed()) {
+                replay(other, requestHash, response, "replayed");
+                return;
+            }
+            throw new ConflictException("Hay una petición con la misma " + HEADER + " en curso, reintente");
+        }
+
+        ContentCachingResponseWrapper capturing = new ContentCachingResponseWrapper(response);
+        StoredResponse result = null;
+        try {
+            filterChain.doFilter(request, capturing);
+            result = store(scope, key, cacheKey, requestHash, capturing);
+        } finally {
+            if (result == null) {
+                release(scope, key);
+            }
+            mine.complete(result);
+            capturing.copyBodyToResponse();
+        }
+        count("executed");
+    }
+
+    // Solo se guardan respuestas definitivas (status < 500); un fallo al guardar no afecta la respuesta ya generada
+    private StoredResponse store(String scope, String key, String cacheKey, String requestHash,
+                                 ContentCachingResponseWrapper capturing) {
+        if (capturing.getStatus() >= 500) {
+            return null;
+        }
+        String contentType = capturing.getContentType() != null ? capturing.getContentType() : "";
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_RESPONSE_HEADERS) {
+            String value = capturing.getHeader(name);
+            if (value != null) headers.put(name, value);
+        }
+        StoredResponse result = new StoredResponse(requestHash, capturing.getStatus(), contentType, headers,
+            capturing.getContentAsByteArray(), Instant.now().plus(ttl));
+        try {
+            idempotencyKeyRepository.complete(scope, key, result.status(), contentType, headers, result.body());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo guardar la respuesta de {} {}: {}", scope, key, e.getMessage());
+            return null;
+        }
+        completed.put(cacheKey, result);
+        return result;
+    }
+
+    private void release(String scope, String key) {
+        try {
+            idempotencyKeyRepository.release(scope, key);
+        } catch (RuntimeException e) {
+            // La reserva vence sola después de in-flight-timeout
+            log.warn("No se pudo liberar {} {}: {}", scope, key, e.getMessage());
+        }
+    }
+
+    private StoredResponse lookup(String cacheKey, String scope, String key) {
+        StoredResponse cached = completed.get(cacheKey);
+        if (cached != null && cached.expiresAt().isAfter(Instant.now())) {
+            return cached;
+        }
+        StoredResponse stored = idempotencyKeyRepository.find(scope, key).orElse(null);
+        if (stored == null || !stored.completed()) {
+            return null;
+        }
+        completed.put(cacheKey, stored);
+        return stored;
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> first) {
+        try {
+            StoredResponse stored = first.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (stored == null) {
+                throw new ConflictException("La petición original con esta " + HEADER + " falló, reintente");
+            }
+            return stored;
+        } catch (TimeoutException | ExecutionException e) {
+            throw new ConflictException("Hay una petición con la misma " + HEADER + " en curso, reintente");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Hay una petición con la misma " + HEADER + " en curso, reintente");
+        }
+    }
+
+    private void replay(StoredResponse stored, String requestHash, HttpServletResponse response, String outcome)
+            throws IOException {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new UnprocessableException(HEADER + " ya se usó con otro cuerpo de petición");
+        }
+        response.setStatus(stored.status());
+        if (!stored.contentType().isEmpty()) {
+            response.setContentType(stored.contentType());
+        }
+        stored.headers().forEach(response::setHeader);
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+        count(outcome);
+    }
+
+    // Resultado por petición con Idempotency-Key (api.idempotency{outcome=executed|replayed|waited|conflict|mismatch})
+    private void count(String outcome) {
+        meterRegistry.counter("api.idempotency", "outcome", outcome).increment();
+    }
+
+    private static String sha256(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Ruta + usuario del token, o + huella del cliente anónimo (32 hex de SHA-256 de IP y User-Agent): otro cliente
+    // que adivine o repita la clave no recibe la respuesta ajena. Cabe en idempotency_keys.scope (VARCHAR(100))
+    private String scope(HttpServletRequest request) {
+        UUID userId = jwtService.authenticatedUserId(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (userId != null) {
+            return request.getRequestURI() + '|' + userId;
+        }
+        String client = request.getRemoteAddr() + '|' + request.getHeader(HttpHeaders.USER_AGENT);
+        return request.getRequestURI() + "|anon:" + sha256(client.getBytes(StandardCharsets.UTF_8)).substring(0, 32);
+    }
+
+    // El cuerpo se lee una vez para calcular su hash y se vuelve a entregar al controlador
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // El cuerpo ya está en memoria: todo está disponible de inmediato
+                    try {
+                        if (!isFinished()) readListener.onDataAvailable();
+                        if (isFinished()) readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+}
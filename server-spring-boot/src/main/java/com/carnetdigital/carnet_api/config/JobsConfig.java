@@ -0,0 +1,38 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.repository.IdempotencyKeyRepository;
+import com.carnetdigital.carnet_api.repository.MailOutboxRepository;
+import com.carnetdigital.carnet_api.service.ClusterJob;
+import com.carnetdigital.carnet_api.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Jobs del clúster: JobScheduler los corre en un solo nodo (ver scheduled_jobs)
+@Configuration
+public class JobsConfig {
+
+    // Purga de tokens expirados (antes un @Scheduled en TokenService que corría en todos los nodos a la vez)
+    @Bean
+    public ClusterJob tokenCleanupJob(TokenService tokenService,
+                                      @Value("${jobs.token-cleanup.cron:0 0 2 * * *}") String cron) {
+        return new ClusterJob("token-cleanup", cron, tokenService::cleanExpiredTokens);
+    }
+
+    // Respuestas guardadas por Idempotency-Key que ya vencieron (api.idempotency.ttl)
+    @Bean
+    public ClusterJob idempotencyPurgeJob(IdempotencyKeyRepository idempotencyKeyRepository,
+                                          @Value("${jobs.idempotency-purge.cron:0 15 * * * *}") String cron) {
+        return new ClusterJob("idempotency-purge", cron, idempotencyKeyRepository::deleteExpired);
+    }
+
+    // Correos enviados o descartados más viejos que mail.outbox.retention; los pendientes no se tocan
+    @Bean
+    public ClusterJob mailOutboxPurgeJob(MailOutboxRepository mailOutboxRepository,
+                                         @Value("${jobs.mail-outbox-purge.cron:0 30 3 * * *}") String cron,
+                                         @Value("${mail.outbox.retention:7d}") Duration retention) {
+        return new ClusterJob("mail-outbox-purge", cron, () -> mailOutboxRepository.purge(retention));
+    }
+}
@@ -0,0 +1,27 @@
+package com.carnetdigital.carnet_api.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateQueryMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Tiempos por consulta HQL/JPQL (hibernate.query.*); las métricas globales de Hibernate,
+    // HTTP y Hikari las registra Spring Boot automáticamente.
+    // Solo con hibernate.generate_statistics: sin estadísticas Hibernate no mide las consultas
+    @Bean
+    @ConditionalOnBooleanProperty("spring.jpa.properties.hibernate.generate_statistics")
+    public MeterBinder hibernateQueryMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateQueryMetrics(
+            entityManagerFactory.unwrap(SessionFactory.class),
+            "entityManagerFactory",
+            Tags.empty()
+        );
+    }
+}
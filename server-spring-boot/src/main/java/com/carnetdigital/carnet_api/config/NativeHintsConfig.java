@@ -0,0 +1,94 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.entity.Token;
+import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.exception.ErrorResponse;
+import com.carnetdigital.carnet_api.repository.UserBulkRepository;
+import com.carnetdigital.carnet_api.service.UserExportService;
+import com.carnetdigital.carnet_api.service.UserImportService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Hints de reflexión para la imagen nativa (./gradlew nativeCompile).
+ * Spring AOT ya cubre beans, repositorios y entidades gestionadas; aquí se agrega lo que se resuelve
+ * por reflexión fuera de su alcance: DTOs serializados por Jackson (incluidos los genéricos dentro
+ * de ApiResponse/PagedResponse), entidades y enums de parámetros, y las clases de jjwt-impl que
+ * jjwt-api carga por nombre.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.CarnetRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class CarnetRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final String DTO_PACKAGE = "com.carnetdigital.carnet_api.dto";
+
+        // Clases que jjwt-api instancia con Classes.forName (Jwts, Jwks, Keys)
+        private static final List<String> JJWT_IMPL = List.of(
+            "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+            "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+            "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+            "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+            "io.jsonwebtoken.impl.security.JwksBridge",
+            "io.jsonwebtoken.impl.security.KeysBridge",
+            "io.jsonwebtoken.impl.security.StandardCurves",
+            "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+            "io.jsonwebtoken.impl.security.StandardKeyOperations",
+            "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+
+            // DTOs Lombok (@Data/@Builder): getters, setters y constructores para Jackson
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter((metadataReader, factory) -> true);
+            for (BeanDefinition candidate : scanner.findCandidateComponents(DTO_PACKAGE)) {
+                binding.registerReflectionHints(hints.reflection(),
+                    ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+            }
+            binding.registerReflectionHints(hints.reflection(), ErrorResponse.class);
+
+            // Entidades: Hibernate accede a campos y al constructor sin argumentos
+            for (Class<?> entity : List.of(User.class, Token.class)) {
+                hints.reflection().registerType(entity, MemberCategory.values());
+            }
+
+            // Enums usados como @PathVariable/@RequestParam (Enum.valueOf)
+            for (Class<?> type : List.of(User.UserRole.class, User.UserStatus.class, Token.TokenType.class,
+                    UserBulkRepository.BulkAction.class, UserExportService.DeletedFilter.class,
+                    UserImportService.ImportFormat.class)) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.ACCESS_PUBLIC_FIELDS);
+            }
+
+            for (String type : JJWT_IMPL) {
+                hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.carnetdigital.carnet_api.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ventana de lectura de las propias escrituras: durante windowMs después de una escritura,
+ * las lecturas del mismo usuario van al primario aunque la transacción sea de solo lectura.
+ * El usuario es el userId de un access token válido, así la ventana sigue al usuario aunque renueve el
+ * token o cambie de red. Las peticiones sin usuario leen siempre del primario: no hay con qué
+ * relacionarlas con sus escrituras. Fuera de una petición (jobs) las lecturas pueden ir a réplicas.
+ */
+public class ReadYourWrites {
+
+    // Marca de "petición sin usuario autenticado"
+    private static final UUID ANONYMOUS = new UUID(0L, 0L);
+
+    private static final ThreadLocal<UUID> CURRENT_USER = new ThreadLocal<>();
+
+    private final Map<UUID, Long> primaryUntil = new ConcurrentHashMap<>();
+    private final long windowMs;
+
+    public ReadYourWrites(long windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    // userId null: petición sin usuario autenticado
+    public void enter(UUID userId) {
+        CURRENT_USER.set(userId != null ? userId : ANONYMOUS);
+    }
+
+    public void exit() {
+        CURRENT_USER.remove();
+    }
+
+    public void recordWrite(UUID userId) {
+        if (userId != null) {
+            primaryUntil.put(userId, System.currentTimeMillis() + windowMs);
+        }
+    }
+
+    // ¿La petición actual no tiene usuario, o su usuario escribió hace menos de windowMs?
+    public boolean mustReadFromPrimary() {
+        UUID userId = CURRENT_USER.get();
+        if (userId == null) return false;
+        if (userId == ANONYMOUS) return true;
+
+        Long until = primaryUntil.get(userId);
+        if (until == null) return false;
+        if (until < System.currentTimeMillis()) {
+            primaryUntil.remove(userId, until);
+            return false;
+        }
+        return true;
+    }
+
+    // Limpieza de ventanas vencidas de usuarios que no volvieron a leer
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        primaryUntil.values().removeIf(until -> until < now);
+    }
+}
@@ -0,0 +1,143 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Réplicas de lectura (db.replicas.urls) con chequeo periódico de salud y retraso de replicación.
+ * Una réplica solo recibe lecturas si respondió al último chequeo y su retraso no supera maxLagMs.
+ */
+@Slf4j
+public class ReplicaPool {
+
+    // Retraso en ms; 0 si la réplica está al día o si no es un standby (pg_is_in_recovery() = false)
+    private static final String LAG_SQL =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+        "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPool(List<String> urls, String username, String password, int poolSize, long maxLagMs) {
+        this.maxLagMs = maxLagMs;
+        this.replicas = urls.stream()
+            .map(url -> new Replica(url, pool(url, username, password, poolSize)))
+            .toList();
+    }
+
+    // Primer chequeo con el bean ya construido; hasta entonces ninguna réplica recibe lecturas
+    @PostConstruct
+    public void initialHealthCheck() {
+        checkHealth();
+    }
+
+    private static HikariDataSource pool(String url, String username, String password, int poolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(2_000);
+        dataSource.setInitializationFailTimeout(-1); // Arrancar aunque la réplica esté caída
+        dataSource.setPoolName("replica-" + Math.abs(url.hashCode()));
+        return dataSource;
+    }
+
+    // Round-robin entre las réplicas sanas; vacío si ninguna lo está
+    public Optional<Replica> next() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return Optional.of(replica);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Scheduled(fixedDelayString = "${db.replicas.health-check-interval-ms:2000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_SQL)) {
+                rs.next();
+                replica.lagMs = rs.getLong(1);
+                replica.healthy = replica.lagMs <= maxLagMs;
+            } catch (Exception e) {
+                replica.healthy = false;
+            }
+            if (wasHealthy != replica.healthy) {
+                log.warn("Replica {} is now {} (lag {} ms)", replica.url,
+                    replica.healthy ? "healthy" : "out of rotation", replica.lagMs);
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    @PreDestroy
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    public static final class Replica {
+
+        private final String url;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMs;
+
+        private Replica(String url, HikariDataSource dataSource) {
+            this.url = url;
+            this.dataSource = dataSource;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public long getLagMs() {
+            return lagMs;
+        }
+
+        // Tras un fallo al pedir conexión sale de rotación hasta el próximo chequeo
+        void markUnhealthy() {
+            healthy = false;
+        }
+    }
+
+    static List<String> parseUrls(String urls) {
+        return Arrays.stream(urls.split(","))
+            .map(String::trim)
+            .filter(url -> !url.isEmpty())
+            .toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.service.JwtService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Enrutamiento de lecturas a réplicas (solo si db.replicas.urls tiene valor).
+ * El DataSource principal se envuelve en LazyConnectionDataSourceProxy: la conexión real se pide en la
+ * primera sentencia, cuando ya se sabe si la transacción es readOnly, y las de solo lectura se sirven
+ * desde ReplicaRoutingDataSource.
+ */
+@Configuration
+@ConditionalOnExpression("'${db.replicas.urls:}' != ''")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaPool replicaPool(Environment environment) {
+        return new ReplicaPool(
+            ReplicaPool.parseUrls(environment.getRequiredProperty("db.replicas.urls")),
+            environment.getProperty("db.replicas.username", environment.getProperty("spring.datasource.username")),
+            environment.getProperty("db.replicas.password", environment.getProperty("spring.datasource.password")),
+            environment.getProperty("db.replicas.pool-size", Integer.class, 10),
+            environment.getProperty("db.replicas.max-lag-ms", Long.class, 5_000L)
+        );
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(Environment environment) {
+        return new ReadYourWrites(environment.getProperty("db.replicas.read-your-writes-ms", Long.class, 5_000L));
+    }
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(
+            ObjectProvider<ReplicaPool> replicaPool, ObjectProvider<ReadYourWrites> readYourWrites) {
+        // Después del control de admisión (que solo protege al primario) y antes de la instrumentación de SQL
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource primary && beanName.equals("dataSource")) {
+                    LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+                    routing.setReadOnlyDataSource(
+                        new ReplicaRoutingDataSource(primary, replicaPool.getObject(), readYourWrites.getObject()));
+                    return routing;
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public OncePerRequestFilter readYourWritesFilter(ReadYourWrites readYourWrites, JwtService jwtService) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                UUID userId = jwtService.authenticatedUserId(request.getHeader(HttpHeaders.AUTHORIZATION));
+                boolean write = isWrite(request.getMethod());
+                readYourWrites.enter(userId);
+                // Las lecturas dentro de la propia petición de escritura también van al primario;
+                // la ventana se renueva al terminar
+                if (write) readYourWrites.recordWrite(userId);
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    readYourWrites.exit();
+                    if (write) readYourWrites.recordWrite(userId);
+                }
+            }
+        };
+    }
+
+    private static boolean isWrite(String method) {
+        return !(HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method));
+    }
+
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+        @Override
+        default int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 10;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.carnetdigital.carnet_api.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+
+/**
+ * DataSource de solo lectura para LazyConnectionDataSourceProxy: elige una réplica sana o,
+ * si el cliente está en su ventana de read-your-writes o no hay réplicas disponibles, el primario.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas, ReadYourWrites readYourWrites) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (readYourWrites.mustReadFromPrimary()) {
+            return primary.getConnection();
+        }
+
+        Optional<ReplicaPool.Replica> replica;
+        while ((replica = replicas.next()).isPresent()) {
+            try {
+                return replica.get().getDataSource().getConnection();
+            } catch (SQLException e) {
+                replica.get().markUnhealthy();
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+}
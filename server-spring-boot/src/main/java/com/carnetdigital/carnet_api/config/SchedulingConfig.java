@@ -0,0 +1,34 @@
+package com.carnetdigital.carnet_api.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Hilos de las tareas @Scheduled. Las tareas cortas (salud de réplicas, flush de actividad, limpiezas de
+ * cachés) comparten taskScheduler (spring.task.scheduling.pool.size). JobScheduler corre jobs de duración
+ * arbitraria y MailOutboxWorker espera al servidor SMTP: cada uno usa su propio hilo para no frenar a las
+ * demás. Todos salen del builder de Spring Boot, así respetan spring.task.scheduling.shutdown.*.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    // Definir otro TaskScheduler desactiva el de Spring Boot: este lo reemplaza con la misma configuración
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    // @Scheduled(scheduler = "jobsScheduler") en JobScheduler.poll
+    @Bean
+    public ThreadPoolTaskScheduler jobsScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.poolSize(1).threadNamePrefix("jobs-").build();
+    }
+
+    // @Scheduled(scheduler = "mailOutboxScheduler") en MailOutboxWorker.drain
+    @Bean
+    public ThreadPoolTaskScheduler mailOutboxScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.poolSize(1).threadNamePrefix("mail-outbox-").build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.dto.ApiResponse;
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Copia los tiempos acumulados en meta.timing de ApiResponse y marca el inicio de la serialización
+@ControllerAdvice
+@ConditionalOnProperty(name = "api.server-timing.enabled", havingValue = "true")
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) return body;
+
+        // serialize aún no ocurrió: no va en meta, solo en el header
+        if (body instanceof ApiResponse<?> apiResponse
+                && (apiResponse.getMeta() == null || apiResponse.getMeta() instanceof Map<?, ?>)) {
+            Map<Object, Object> meta = new LinkedHashMap<>();
+            if (apiResponse.getMeta() instanceof Map<?, ?> existing) {
+                meta.putAll(existing);
+            }
+            meta.put("timing", timings.toMeta());
+            apiResponse.setMeta(meta);
+        }
+
+        timings.markSerializeStart();
+        return body;
+    }
+}
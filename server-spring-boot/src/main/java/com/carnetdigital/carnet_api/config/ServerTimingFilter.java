@@ -0,0 +1,121 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Header Server-Timing con el desglose db, db-wait, hash, jwt y serialize de cada petición.
+ * Se activa con api.server-timing.enabled=true; apagado, ni el filtro ni los acumuladores existen.
+ *
+ * El header se escribe justo antes del primer byte del cuerpo (sin almacenar la respuesta en memoria).
+ * Jackson escribe en bloques de ~8 KB, así que en respuestas grandes serialize cubre hasta el primer bloque.
+ */
+@Component
+@ConditionalOnProperty(name = "api.server-timing.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start();
+        TimingResponse timingResponse = new TimingResponse(response, timings);
+        try {
+            filterChain.doFilter(request, timingResponse);
+            timingResponse.writeHeader(); // Respuestas sin cuerpo (204, 304)
+        } finally {
+            RequestTimings.end();
+        }
+    }
+
+    private static class TimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private boolean written;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        TimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        void writeHeader() {
+            if (written || isCommitted()) return;
+            written = true;
+            timings.markSerializeEnd();
+            setHeader(HEADER, timings.toHeader());
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        writeHeader();
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        writeHeader();
+                        delegate.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        writeHeader();
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        writeHeader();
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writeHeader();
+                writer = super.getWriter();
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader();
+            super.flushBuffer();
+        }
+    }
+}
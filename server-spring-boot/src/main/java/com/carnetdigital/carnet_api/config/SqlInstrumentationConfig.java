@@ -0,0 +1,102 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.helpers.SqlStatementStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instrumentación de SQL con datasource-proxy:
+ * - el DataSource se envuelve para contar y medir cada sentencia (SqlStatementListener),
+ * - cada petición HTTP y cada método de UserRepository/TokenRepository abre un ámbito en
+ *   SqlStatementStats y publica sql.statements / sql.time al cerrarlo.
+ */
+@Configuration
+public class SqlInstrumentationConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlInstrumentationPostProcessor(
+            Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        long slowThresholdMs = environment.getProperty("sql.slow-statement-threshold-ms", Long.class, 200L);
+        MethodInterceptor repositoryInterceptor = invocation -> {
+            String method = invocation.getMethod().getDeclaringClass().getSimpleName()
+                + "." + invocation.getMethod().getName();
+            try (SqlStatementStats.Scope scope = SqlStatementStats.open(method)) {
+                try {
+                    return invocation.proceed();
+                } finally {
+                    publish(meterRegistry.getIfAvailable(), scope, "repository", method);
+                }
+            }
+        };
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                // Antes de afterPropertiesSet, que es cuando la fábrica crea el proxy del repositorio
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory ->
+                        factory.addRepositoryProxyPostProcessor((proxyFactory, information) ->
+                            proxyFactory.addAdvice(repositoryInterceptor)));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    SqlStatementListener listener = new SqlStatementListener(slowThresholdMs);
+                    return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(listener)
+                        .methodListener(listener)
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public OncePerRequestFilter sqlStatementFilter(MeterRegistry meterRegistry) {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                try (SqlStatementStats.Scope scope = SqlStatementStats.open(request.getRequestURI())) {
+                    try {
+                        filterChain.doFilter(request, response);
+                    } finally {
+                        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                        publish(meterRegistry, scope, "request",
+                            request.getMethod() + " " + (pattern != null ? pattern : "UNKNOWN"));
+                    }
+                }
+            }
+        };
+    }
+
+    private static void publish(MeterRegistry meterRegistry, SqlStatementStats.Scope scope, String kind, String name) {
+        if (meterRegistry == null) return;
+        meterRegistry.summary("sql.statements", "scope", kind, "name", name).record(scope.getStatements());
+        meterRegistry.timer("sql.time", "scope", kind, "name", name)
+            .record(scope.getElapsed(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+}
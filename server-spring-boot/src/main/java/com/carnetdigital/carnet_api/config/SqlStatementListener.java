@@ -0,0 +1,93 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
+import com.carnetdigital.carnet_api.helpers.SqlStatementStats;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+// Cuenta cada ejecución en el ámbito actual y registra las sentencias lentas
+// con la forma de sus parámetros (tipo y longitud, nunca el valor).
+// También acumula db (ejecución) y db-wait (espera de conexión del pool) para Server-Timing.
+@Slf4j
+public class SqlStatementListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final String START_NANOS = "startNanos";
+
+    private final long slowThresholdMs;
+
+    public SqlStatementListener(long slowThresholdMs) {
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsedNanos = System.nanoTime() - execInfo.getCustomValue(START_NANOS, Long.class);
+        SqlStatementStats.record(elapsedNanos);
+        RequestTimings.add(RequestTimings.Phase.DB, elapsedNanos);
+
+        if (execInfo.getElapsedTime() >= slowThresholdMs) {
+            for (QueryInfo query : queryInfoList) {
+                log.warn("Slow SQL ({} ms, batch={}, rows={}): {} params={}",
+                    execInfo.getElapsedTime(), execInfo.isBatch(), execInfo.getBatchSize(),
+                    query.getQuery(), parameterShapes(query));
+            }
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext context) {
+        if (isGetConnection(context)) {
+            context.addCustomValue(START_NANOS, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext context) {
+        if (isGetConnection(context)) {
+            RequestTimings.add(RequestTimings.Phase.DB_WAIT,
+                System.nanoTime() - context.getCustomValue(START_NANOS, Long.class));
+        }
+    }
+
+    private boolean isGetConnection(MethodExecutionContext context) {
+        return context.getTarget() instanceof DataSource
+            && context.getMethod().getName().equals("getConnection");
+    }
+
+    private String parameterShapes(QueryInfo query) {
+        return query.getParametersList().stream()
+            .map(this::shape)
+            .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private String shape(List<ParameterSetOperation> operations) {
+        Map<Integer, String> byIndex = new TreeMap<>();
+        for (ParameterSetOperation operation : operations) {
+            Object[] args = operation.getArgs();
+            if (args.length < 2 || !(args[0] instanceof Integer index)) continue;
+            Object value = args[1];
+            String type = value == null ? "null" : value.getClass().getSimpleName();
+            if (value instanceof CharSequence text) {
+                type += "(" + text.length() + ")";
+            }
+            byIndex.put(index, type);
+        }
+        return byIndex.values().toString();
+    }
+}
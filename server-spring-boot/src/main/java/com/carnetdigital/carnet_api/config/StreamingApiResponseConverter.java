@@ -0,0 +1,140 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.dto.StreamingApiResponse;
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Escribe StreamingApiResponse con un JsonGenerator directamente sobre la salida HTTP:
+ * status, code, message, data (cada elemento apenas llega del ItemSource) y meta al final.
+ * El serializador de cada tipo de DTO se resuelve una sola vez (ObjectWriter por clase), así que el
+ * costo por elemento es solo la escritura y la memoria no crece con el tamaño de la página.
+ * Con CBOR o Smile el sobre es el mismo: el generador del formato negociado recibe los mismos eventos.
+ * Se registra en WebMvcConfig como convertidor propio: como bean, Spring Boot lo tomaría por
+ * el convertidor JSON por defecto (soporta application/json) y reemplazaría al de Jackson.
+ */
+public class StreamingApiResponseConverter extends AbstractHttpMessageConverter<StreamingApiResponse<?>> {
+
+    private final Map<MediaType, Format> formats = new LinkedHashMap<>();
+
+    public StreamingApiResponseConverter(JsonMapper jsonMapper) {
+        this(Map.of(MediaType.APPLICATION_JSON, jsonMapper));
+    }
+
+    // El primer tipo es el que se usa cuando el cliente acepta cualquiera (*/*)
+    public StreamingApiResponseConverter(Map<MediaType, ? extends ObjectMapper> mappers) {
+        super(mappers.keySet().toArray(MediaType[]::new));
+        mappers.forEach((mediaType, mapper) -> formats.put(mediaType, new Format(mapper)));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return StreamingApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected StreamingApiResponse<?> readInternal(Class<? extends StreamingApiResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("StreamingApiResponse solo se escribe", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(StreamingApiResponse<?> response, HttpOutputMessage outputMessage) throws IOException {
+        // Sin try-with-resources: si la consulta falla antes del primer elemento (p. ej. sortBy inválido),
+        // el encabezado queda en el búfer del generador sin escribirse y GlobalExceptionHandler responde limpio
+        Format format = format(outputMessage.getHeaders().getContentType());
+        ObjectWriter envelopeWriter = format.envelopeWriter;
+        JsonGenerator generator = envelopeWriter.createGenerator(outputMessage.getBody());
+        generator.writeStartObject();
+        generator.writeStringProperty("status", "success");
+        generator.writeNumberProperty("code", 200);
+        generator.writeStringProperty("message", response.getMessage());
+
+        generator.writeName("data");
+        StreamingApiResponse.Page page = response.getPage();
+        if (page != null) {
+            generator.writeStartObject();
+            generator.writeName("content");
+        }
+        long count = writeItems(format, generator, response);
+        if (page != null) {
+            generator.writeNumberProperty("page", page.page());
+            generator.writeNumberProperty("size", page.size());
+            generator.writeNumberProperty("totalElements", page.totalElements());
+            generator.writeNumberProperty("totalPages", page.totalPages());
+            generator.writeBooleanProperty("first", page.first());
+            generator.writeBooleanProperty("last", page.last());
+            generator.writeBooleanProperty("empty", count == 0);
+            generator.writeEndObject();
+        }
+
+        generator.writeName("meta");
+        envelopeWriter.writeValue(generator, meta(response, count));
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private Format format(MediaType contentType) {
+        if (contentType != null) {
+            for (Map.Entry<MediaType, Format> entry : formats.entrySet()) {
+                if (entry.getKey().isCompatibleWith(contentType)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return formats.values().iterator().next();
+    }
+
+    private <T> long writeItems(Format format, JsonGenerator generator, StreamingApiResponse<T> response) {
+        ObjectWriter itemWriter = format.itemWriters.computeIfAbsent(response.getItemType(),
+            type -> format.envelopeWriter.forType(type));
+        generator.writeStartArray();
+        long count = response.getItems().forEach(item -> itemWriter.writeValue(generator, item));
+        generator.writeEndArray();
+        return count;
+    }
+
+    private Map<String, Object> meta(StreamingApiResponse<?> response, long count) {
+        Map<String, Object> meta = response.getMeta() != null ? response.getMeta().apply(count) : Map.of();
+        RequestTimings timings = RequestTimings.current();
+        if (timings == null) {
+            return meta;
+        }
+        // Con Server-Timing activo, meta.timing igual que en ApiResponse (aquí db incluye la lectura en streaming)
+        Map<String, Object> withTiming = new LinkedHashMap<>(meta);
+        withTiming.put("timing", timings.toMeta());
+        return withTiming;
+    }
+
+    private static final class Format {
+
+        private final ObjectWriter envelopeWriter;
+        private final Map<Class<?>, ObjectWriter> itemWriters = new ConcurrentHashMap<>();
+
+        private Format(ObjectMapper mapper) {
+            // La salida la cierra el contenedor; sin flush por elemento (el generador ya usa su propio búfer)
+            this.envelopeWriter = mapper.writer()
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+    }
+}
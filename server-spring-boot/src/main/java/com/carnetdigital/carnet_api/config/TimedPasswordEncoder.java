@@ -0,0 +1,58 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Mide cuánto tarda BCrypt al generar y al comparar hashes (auth.password.hash y Server-Timing hash)
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = Timer.builder("auth.password.hash")
+            .tag("operation", "encode")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash")
+            .tag("operation", "matches")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            record(encodeTimer, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            record(matchesTimer, System.nanoTime() - start);
+        }
+    }
+
+    private void record(Timer timer, long elapsedNanos) {
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        RequestTimings.add(RequestTimings.Phase.HASH, elapsedNanos);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,46 @@
+package com.carnetdigital.carnet_api.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Modo de hilos virtuales (spring.threads.virtual.enabled=true).
+ * Spring Boot ya ejecuta Tomcat, @Async y @Scheduled en hilos virtuales; aquí se añade el control
+ * de admisión delante de Hikari para que la concurrencia sin techo no desborde el pool.
+ */
+@Configuration
+@ConditionalOnBooleanProperty("spring.threads.virtual.enabled")
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionAdmissionPostProcessor(Environment environment) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxQueued = environment.getProperty("db.admission.max-queued", Integer.class, poolSize * 20);
+        long waitMs = environment.getProperty("db.admission.wait-ms", Long.class, 2_000L);
+
+        // Antes que la instrumentación de SQL, para que su proxy envuelva al control de admisión
+        // y db-wait incluya la espera en el semáforo
+        return new OrderedBeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionAdmissionDataSource)) {
+                    return new ConnectionAdmissionDataSource(dataSource, poolSize, maxQueued, waitMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private interface OrderedBeanPostProcessor extends BeanPostProcessor, Ordered {
+        @Override
+        default int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.dto.ApiResponse;
+import com.carnetdigital.carnet_api.entity.Token;
+import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.mapper.TokenMapper;
+import com.carnetdigital.carnet_api.mapper.UserMapper;
+import com.carnetdigital.carnet_api.service.JwtService;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Calentamiento antes de reportar readiness: Spring Boot publica ReadinessState.ACCEPTING_TRAFFIC
+ * después de ejecutar los ApplicationRunner, así que /actuator/health/readiness sigue en
+ * OUT_OF_SERVICE hasta que esto termina o se agota warmup.budget-ms.
+ *
+ * - Pool: abre las conexiones mínimas de Hikari (en paralelo con el resto).
+ * - Consultas: ejecuta una vez cada finder de los repositorios (derivados y @Query, con sus variantes
+ *   paginadas, de conteo y orden) con argumentos de muestra y PageRequest.of(0, 1), en una transacción de solo
+ *   lectura que se revierte y con timeout de warmup.query-timeout-seconds. Los métodos de escritura y los
+ *   listados sin paginar ni filtro por id (podrían traer la tabla entera) solo compilan su JPQL.
+ * - JSON: construye el serializador de cada DTO dentro de ApiResponse.
+ * - Hot paths: firma/verificación JWT y mappers con datos sintéticos, hasta warmup.iterations.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnBooleanProperty(name = "warmup.enabled", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final String DTO_PACKAGE = "com.carnetdigital.carnet_api.dto";
+    private static final String SAMPLE_EMAIL = "warmup@carnet.local";
+
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final ListableBeanFactory beanFactory;
+    private final JsonMapper jsonMapper;
+    private final JwtService jwtService;
+    private final UserMapper userMapper;
+    private final TokenMapper tokenMapper;
+
+    @Value("${warmup.budget-ms:10000}")
+    private long budgetMs;
+
+    @Value("${warmup.iterations:2000}")
+    private int iterations;
+
+    @Value("${warmup.query-timeout-seconds:1}")
+    private int queryTimeoutSeconds;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+
+        // El pool es lo único que depende de la base; no bloquea los pasos de CPU
+        CompletableFuture<Integer> pool = CompletableFuture.supplyAsync(this::fillPool,
+            runnable -> Thread.ofPlatform().daemon().name("warmup-pool").start(runnable));
+
+        step("queries", deadline, () -> warmQueries(deadline));
+        step("json", deadline, this::buildSerializers);
+        step("hot-paths", deadline, () -> runHotPaths(deadline));
+
+        try {
+            int connections = pool.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            log.info("Warm-up pool: {} conexiones abiertas", connections);
+        } catch (TimeoutException e) {
+            log.warn("Warm-up pool: presupuesto de {} ms agotado, se continúa sin llenar el pool", budgetMs);
+        } catch (ExecutionException e) {
+            log.warn("Warm-up pool: no se pudo llenar el pool: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        log.info("Warm-up terminado en {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void step(String name, long deadline, WarmupStep step) {
+        if (System.nanoTime() >= deadline) {
+            log.warn("Warm-up {}: omitido, presupuesto de {} ms agotado", name, budgetMs);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int count = step.run();
+            log.info("Warm-up {}: {} en {} ms", name, count, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            // El calentamiento nunca impide el arranque
+            log.warn("Warm-up {}: falló: {}", name, e.getMessage());
+        }
+    }
+
+    // Abre minimumIdle conexiones a la vez directamente en Hikari (sin pasar por los proxies de métricas)
+    private int fillPool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            List<Connection> connections = new ArrayList<>();
+            try {
+                for (int i = 0; i < hikari.getMinimumIdle(); i++) {
+                    connections.add(hikari.getConnection());
+                }
+                return connections.size();
+            } finally {
+                for (Connection connection : connections) {
+                    connection.close();
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ejecuta cada finder una vez: así Hibernate traduce y cachea el SQL de los métodos derivados (que no tienen
+     * JPQL escrito) y Spring Data arma sus consultas de conteo y orden. Cada llamada va en su propia transacción,
+     * así una consulta que falla o se pasa del timeout no arrastra a las demás.
+     * @return cantidad de métodos ejecutados o compilados.
+     */
+    private int warmQueries(long deadline) {
+        Repositories repositories = new Repositories(beanFactory);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setTimeout(queryTimeoutSeconds);
+        int count = 0;
+        try (EntityManager entityManager = entityManagerFactory.createEntityManager()) {
+            for (Class<?> domainType : repositories) {
+                Class<?> repositoryInterface = repositories.getRequiredRepositoryInformation(domainType).getRepositoryInterface();
+                Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+                for (Method method : repositoryInterface.getDeclaredMethods()) {
+                    if (System.nanoTime() >= deadline) {
+                        return count;
+                    }
+                    if (method.isSynthetic() || method.isDefault()) {
+                        continue;
+                    }
+                    if (isBoundedRead(method)) {
+                        if (invoke(transaction, repository, method)) {
+                            count++;
+                        }
+                    } else if (compile(entityManager, method)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    // Lecturas que devuelven a lo sumo una página, una fila o un conteo
+    private boolean isBoundedRead(Method method) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        String name = method.getName();
+        if (AnnotatedElementUtils.hasAnnotation(method, Modifying.class) || method.getReturnType() == void.class
+            || name.startsWith("delete") || name.startsWith("remove") || (query != null && query.nativeQuery())) {
+            return false;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (Arrays.asList(parameterTypes).contains(Pageable.class)) {
+            return true;
+        }
+        if (!Collection.class.isAssignableFrom(method.getReturnType())) {
+            // Stream se consume solo hasta la primera fila (un lote del cursor)
+            return true;
+        }
+        // Listas sin paginar: solo las acotadas por id de usuario o por una lista de valores
+        return Arrays.stream(parameterTypes).anyMatch(type -> type == UUID.class || Collection.class.isAssignableFrom(type));
+    }
+
+    private boolean invoke(TransactionTemplate transaction, Object repository, Method method) {
+        try {
+            transaction.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                Object[] arguments = Arrays.stream(method.getParameters()).map(this::sampleArgument).toArray();
+                try {
+                    if (method.invoke(repository, arguments) instanceof Stream<?> stream) {
+                        try (stream) {
+                            stream.findFirst();
+                        }
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            // Típicamente el timeout de un conteo sobre una tabla grande: el SQL ya quedó traducido igual
+            log.debug("Warm-up {}.{}: {}", method.getDeclaringClass().getSimpleName(), method.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    // createQuery interpreta y cachea el JPQL sin ejecutarlo ni tocar la base
+    private boolean compile(EntityManager entityManager, Method method) {
+        Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+        if (query == null || query.nativeQuery()) {
+            return false;
+        }
+        entityManager.createQuery(query.value());
+        if (!query.countQuery().isEmpty()) {
+            entityManager.createQuery(query.countQuery());
+        }
+        return true;
+    }
+
+    // Valores que no existen en la base (id aleatorio, email de warm-up) o muy frecuentes (texto de búsqueda "a")
+    private Object sampleArgument(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (type == Pageable.class) return PageRequest.of(0, 1, Sort.by("createdAt").descending());
+        if (type == UUID.class) return UUID.randomUUID();
+        if (type == String.class) return parameter.getName().toLowerCase(Locale.ROOT).contains("email") ? SAMPLE_EMAIL : "a";
+        if (type == LocalDateTime.class) return LocalDateTime.now();
+        if (type.isEnum()) return type.getEnumConstants()[0];
+        if (Collection.class.isAssignableFrom(type)) return List.of(SAMPLE_EMAIL);
+        if (type == boolean.class || type == Boolean.class) return true;
+        if (type == int.class || type == Integer.class) return 1;
+        if (type == long.class || type == Long.class) return 1L;
+        throw new IllegalArgumentException("Sin argumento de muestra para " + type.getSimpleName());
+    }
+
+    // Serializa una instancia vacía de cada DTO envuelta en ApiResponse, como la escriben los controladores
+    private int buildSerializers() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter((metadataReader, factory) -> true);
+        int count = 0;
+        for (BeanDefinition candidate : scanner.findCandidateComponents(DTO_PACKAGE)) {
+            Class<?> type = ClassUtils.resolveClassName(candidate.getBeanClassName(), getClass().getClassLoader());
+            if (type.isEnum() || type.isInterface() || ClassUtils.getConstructorIfAvailable(type) == null) {
+                continue;
+            }
+            Object dto = BeanUtils.instantiateClass(type);
+            jsonMapper.writeValueAsBytes(new ApiResponse<>("success", 200, "warm-up", dto, Map.of()));
+            jsonMapper.writeValueAsBytes(new ApiResponse<>("success", 200, "warm-up", List.of(dto), Map.of()));
+            count++;
+        }
+        return count;
+    }
+
+    // Iteraciones sintéticas sobre JwtService, mappers y serialización de sus resultados
+    private int runHotPaths(long deadline) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setFirstName("Warm");
+        user.setLastName("Up");
+        user.setEmail("warmup@carnet.local");
+        user.setRole(User.UserRole.student);
+        user.setStatus(User.UserStatus.active);
+        user.setActive(true);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+
+        Token token = new Token();
+        token.setId(UUID.randomUUID());
+        token.setUser(user);
+        token.setTokenType(Token.TokenType.access);
+        token.setExpiresAt(LocalDateTime.now().plusHours(1));
+        token.setCreatedAt(LocalDateTime.now());
+        user.setTokens(List.of(token));
+
+        int done = 0;
+        while (done < iterations && System.nanoTime() < deadline) {
+            String accessToken = jwtService.generateAccessToken(user.getEmail(), user.getId(), user.getRole().name(),
+                user.getSecurityStamp());
+            token.setToken(accessToken);
+            jwtService.validateToken(accessToken, user.getEmail());
+            jwtService.isAccessToken(accessToken);
+            jwtService.extractUserId(accessToken);
+
+            jsonMapper.writeValueAsBytes(userMapper.toResponse(user));
+            jsonMapper.writeValueAsBytes(userMapper.toDetailResponse(user));
+            jsonMapper.writeValueAsBytes(userMapper.toSummaryResponseList(List.of(user)));
+            jsonMapper.writeValueAsBytes(tokenMapper.toResponse(token));
+            jsonMapper.writeValueAsBytes(tokenMapper.toDetailResponse(token));
+            jsonMapper.writeValueAsBytes(tokenMapper.toValidationResponse(token, true, "warm-up"));
+            done++;
+        }
+        return done;
+    }
+
+    @FunctionalInterface
+    private interface WarmupStep {
+        int run() throws Exception;
+    }
+}
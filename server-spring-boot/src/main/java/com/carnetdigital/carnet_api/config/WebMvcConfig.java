@@ -0,0 +1,44 @@
+package com.carnetdigital.carnet_api.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final JsonMapper jsonMapper;
+
+    // Spring Boot configura el CBORMapper (spring.jackson.cbor.*); Smile no tiene autoconfiguración
+    private final CBORMapper cborMapper;
+
+    private final SmileMapper smileMapper = SmileMapper.builder().findAndAddModules().build();
+
+    // Los convertidores propios van antes que los por defecto: StreamingApiResponse no llega a Jackson.
+    // CBOR y Smile quedan detrás de JSON: solo se eligen con Accept/Content-Type explícito
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        Map<MediaType, ObjectMapper> streamingFormats = new LinkedHashMap<>();
+        streamingFormats.put(MediaType.APPLICATION_JSON, jsonMapper);
+        streamingFormats.put(MediaType.APPLICATION_CBOR, cborMapper);
+        streamingFormats.put(APPLICATION_SMILE, smileMapper);
+
+        builder.addCustomConverter(new StreamingApiResponseConverter(streamingFormats))
+            .withCborConverter(new JacksonCborHttpMessageConverter(cborMapper))
+            .withSmileConverter(new JacksonSmileHttpMessageConverter(smileMapper));
+    }
+}
@@ -2,60 +2,151 @@ package com.carnetdigital.carnet_api.controller;
 
 import com.carnetdigital.carnet_api.dto.*;
 import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.exception.UnauthorizedException;
 import com.carnetdigital.carnet_api.helpers.ApiResponseFactory;
+import com.carnetdigital.carnet_api.helpers.ETagHelper;
 import com.carnetdigital.carnet_api.repository.UserRepository;
+import com.carnetdigital.carnet_api.service.ActivityTracker;
+import com.carnetdigital.carnet_api.service.AuditEvent;
+import com.carnetdigital.carnet_api.service.AuditService;
 import com.carnetdigital.carnet_api.service.JwtService;
+import com.carnetdigital.carnet_api.service.SecurityStampService;
+import com.carnetdigital.carnet_api.service.TokenService;
 import com.carnetdigital.carnet_api.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.UUID;
+
 @RestController
 @RequestMapping("/api/v1/auth")
-@RequiredArgsConstructor
 public class AuthController {
 
     private final UserService userService;
     private final JwtService jwtService;
+    private final SecurityStampService securityStampService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuditService auditService;
+    private final ActivityTracker activityTracker;
+    private final TokenService tokenService;
+
+    // auth.login{outcome} y auth.logout.invalid_token: se registran una vez y se reutilizan en cada petición
+    private final Counter loginSuccess;
+    private final Counter loginUnknownUser;
+    private final Counter loginBadCredentials;
+    private final Counter loginInactive;
+    private final Counter logoutInvalidToken;
+
+    public AuthController(UserService userService, JwtService jwtService, SecurityStampService securityStampService,
+                          UserRepository userRepository, PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                          AuditService auditService, ActivityTracker activityTracker, TokenService tokenService) {
+        this.userService = userService;
+        this.jwtService = jwtService;
+        this.securityStampService = securityStampService;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.auditService = auditService;
+        this.activityTracker = activityTracker;
+        this.tokenService = tokenService;
+        this.loginSuccess = loginCounter(meterRegistry, "success");
+        this.loginUnknownUser = loginCounter(meterRegistry, "unknown_user");
+        this.loginBadCredentials = loginCounter(meterRegistry, "bad_credentials");
+        this.loginInactive = loginCounter(meterRegistry, "inactive");
+        this.logoutInvalidToken = meterRegistry.counter("auth.logout.invalid_token");
+    }
+
+    // Intentos de login por resultado (auth.login{outcome=...})
+    private static Counter loginCounter(MeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.counter("auth.login", "outcome", outcome);
+    }
 
     // ==================== REGISTER ====================
     @PostMapping("/register")
     public ResponseEntity<ApiResponse<UserResponse>> register(@Valid @RequestBody UserCreateRequest request) {
-        UserResponse user = userService.createUser(request);
+        UserResponse user = userService.registerUser(request);
         return ApiResponseFactory.created(user, "Usuario registrado exitosamente");
     }
 
+    // ==================== PASSWORD RESET ====================
+    // Las respuestas no dependen de que el correo exista ni del servidor SMTP: el correo sale del outbox
+    @PostMapping("/password/forgot")
+    public ResponseEntity<ApiResponse<Void>> forgotPassword(@Valid @RequestBody AccountEmailRequest request) {
+        tokenService.requestPasswordReset(request.getEmail());
+        return ApiResponseFactory.success(
+            null,
+            "Si el correo está registrado, recibirás un enlace para restablecer la contraseña",
+            null
+        );
+    }
+
+    @PostMapping("/password/reset")
+    public ResponseEntity<ApiResponse<Void>> resetPassword(@Valid @RequestBody PasswordResetRequest request) {
+        tokenService.resetPassword(request);
+        return ApiResponseFactory.success(null, "Contraseña restablecida exitosamente", null);
+    }
+
+    // ==================== EMAIL VERIFICATION ====================
+    @PostMapping("/verification/resend")
+    public ResponseEntity<ApiResponse<Void>> resendVerification(@Valid @RequestBody AccountEmailRequest request) {
+        tokenService.requestVerification(request.getEmail());
+        return ApiResponseFactory.success(
+            null,
+            "Si el correo está pendiente de verificación, recibirás un nuevo enlace",
+            null
+        );
+    }
+
+    @PostMapping("/verification/confirm")
+    public ResponseEntity<ApiResponse<Void>> confirmVerification(@Valid @RequestBody TokenValidateRequest request) {
+        tokenService.verifyEmail(request.getToken());
+        return ApiResponseFactory.success(null, "Correo verificado exitosamente", null);
+    }
+
     // ==================== LOGIN ====================
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthTokenResponse>> login(@Valid @RequestBody UserLoginRequest request) {
         // Buscar usuario por email
         User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("Credenciales no válidas"));
+                .orElseThrow(() -> {
+                    loginUnknownUser.increment();
+                    auditService.record(AuditEvent.Type.login_failure, null, request.getEmail(), "unknown_user");
+                    return new UnauthorizedException("Credenciales no válidas");
+                });
 
         // Verificar password con BCrypt
         if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new RuntimeException("Credenciales no válidas");
+            loginBadCredentials.increment();
+            auditService.record(AuditEvent.Type.login_failure, user.getId(), user.getEmail(), "bad_credentials");
+            throw new UnauthorizedException("Credenciales no válidas");
         }
 
         // Verificar que el usuario esté activo
         if (!user.getActive()) {
-            throw new RuntimeException("User account is inactive");
+            loginInactive.increment();
+            auditService.record(AuditEvent.Type.login_failure, user.getId(), user.getEmail(), "inactive");
+            throw new UnauthorizedException("User account is inactive");
         }
 
         // ✅ Generar JWT tokens (NO se guardan en BD)
         String accessToken = jwtService.generateAccessToken(
             user.getEmail(), 
             user.getId(), 
-            user.getRole().name()
+            user.getRole().name(),
+            user.getSecurityStamp()
         );
         
         String refreshToken = jwtService.generateRefreshToken(
             user.getEmail(), 
-            user.getId()
+            user.getId(),
+            user.getSecurityStamp()
         );
 
         // Construir respuesta
@@ -74,6 +165,9 @@ public class AuthController {
                         .build())
                 .build();
 
+        loginSuccess.increment();
+        auditService.record(AuditEvent.Type.login_success, user.getId(), user.getEmail(), null);
+        activityTracker.recordLogin(user.getId());
         return ApiResponseFactory.success(
             authResponse, 
             "Inicio de sesión exitoso", 
@@ -82,6 +176,7 @@ public class AuthController {
     }
 
     // ==================== REFRESH TOKEN ====================
+    // Sin lectura a la base: un solo parseo del JWT y el sello/resumen del usuario desde SecurityStampService
     @PostMapping("/refresh")
     public ResponseEntity<ApiResponse<AuthTokenResponse>> refreshToken(
             @Valid @RequestBody TokenRefreshRequest request) {
@@ -89,44 +184,37 @@ public class AuthController {
         String refreshToken = request.getRefreshToken();
 
         try {
+            // ✅ Verificar firma y expiración una sola vez
+            Claims claims = jwtService.parse(refreshToken);
+
             // ✅ Validar que sea un refresh token
-            if (!jwtService.isRefreshToken(refreshToken)) {
-                throw new RuntimeException("Token no es un refresh token");
+            if (!jwtService.isRefreshToken(claims)) {
+                throw new UnauthorizedException("Token no es un refresh token");
             }
 
-            // ✅ Extraer información del JWT
-            String email = jwtService.extractEmail(refreshToken);
-
-            // Buscar usuario
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-
-            // ✅ Validar token JWT
-            if (!jwtService.validateToken(refreshToken, email)) {
-                throw new RuntimeException("Refresh token inválido o expirado");
-            }
+            // ✅ Sello vigente: desactivar, borrar o cambiar contraseña, rol o correo revoca el token
+            int stamp = JwtService.extractStamp(claims);
+            UserSummaryResponse user = securityStampService.currentUser(jwtService.extractUserId(claims), stamp)
+                    .orElseThrow(() -> new UnauthorizedException("Refresh token revocado"));
 
             // ✅ Generar nuevo access token
             String newAccessToken = jwtService.generateAccessToken(
                 user.getEmail(), 
                 user.getId(), 
-                user.getRole().name()
+                user.getRole().name(),
+                stamp
             );
 
+            auditService.record(AuditEvent.Type.token_refresh, user.getId(), user.getEmail(), null);
+            activityTracker.recordSeen(user.getId());
+
             // Construir respuesta
             AuthTokenResponse authResponse = AuthTokenResponse.builder()
                     .accessToken(newAccessToken)
                     .refreshToken(refreshToken) // El refresh token sigue siendo el mismo
                     .expiresIn(86400L)
                     .tokenType("Bearer")
-                    .user(UserSummaryResponse.builder()
-                            .id(user.getId())
-                            .firstName(user.getFirstName())
-                            .lastName(user.getLastName())
-                            .email(user.getEmail())
-                            .role(user.getRole())
-                            .status(user.getStatus())
-                            .build())
+                    .user(user)
                     .build();
 
             return ApiResponseFactory.success(
@@ -135,8 +223,9 @@ public class AuthController {
                 null
             );
             
-        } catch (Exception e) {
-            throw new RuntimeException("Error al renovar token: " + e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            // Firma, formato o expiración: solo el parseo del JWT se traduce; el resto ya viene tipado
+            throw new UnauthorizedException("Error al renovar token: " + e.getMessage(), e);
         }
     }
 
@@ -150,17 +239,19 @@ public class AuthController {
         String token = authHeader.replace("Bearer ", "");
 
         // Validar que el token sea válido antes de hacer logout
+        // Si el token es inválido o ya expiró, igual permitimos el logout (sin lanzar y atrapar una excepción)
+        boolean invalidToken;
         try {
-            if (jwtService.isTokenExpired(token)) {
-                throw new RuntimeException("Token ya expirado");
-            }
-            
+            invalidToken = jwtService.isTokenExpired(token);
+
             // Aquí podrías agregar el token a una blacklist en Redis
             // redisTemplate.opsForValue().set("blacklist:" + token, "true", expirationTime);
-            
-        } catch (Exception e) {
-            // Si el token es inválido, igual permitimos el logout
-            System.out.println("Token inválido durante logout: " + e.getMessage());
+
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidToken = true;
+        }
+        if (invalidToken) {
+            logoutInvalidToken.increment();
         }
 
         return ApiResponseFactory.success(
@@ -173,23 +264,32 @@ public class AuthController {
     // ==================== ME (Get Current User) ====================
     @GetMapping("/me")
     public ResponseEntity<ApiResponse<UserResponse>> getCurrentUser(
-            @RequestHeader("Authorization") String authHeader) {
+            @RequestHeader("Authorization") String authHeader,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         
         // Extraer token del header
         String token = authHeader.replace("Bearer ", "");
 
         try {
+            // ✅ Verificar firma y expiración una sola vez
+            Claims claims = jwtService.parse(token);
+
             // ✅ Validar que sea un access token
-            if (!jwtService.isAccessToken(token)) {
-                throw new RuntimeException("Token no es un access token");
+            if (!jwtService.isAccessToken(claims)) {
+                throw new UnauthorizedException("Token no es un access token");
             }
 
-            // ✅ Extraer email del JWT
-            String email = jwtService.extractEmail(token);
+            // ✅ Sello vigente (sin lectura a la base); el correo sale del usuario actual, no del token
+            UUID userId = jwtService.extractUserId(claims);
+            String email = securityStampService.currentUser(userId, JwtService.extractStamp(claims))
+                    .orElseThrow(() -> new UnauthorizedException("Token revocado"))
+                    .getEmail();
+            activityTracker.recordSeen(userId);
 
-            // ✅ Validar que el token no esté expirado
-            if (jwtService.isTokenExpired(token)) {
-                throw new RuntimeException("Token expirado");
+            // Si el cliente ya tiene la versión actual, responder 304 sin cargar el usuario
+            String eTag = userService.getUserETagByEmail(email);
+            if (ETagHelper.matches(ifNoneMatch, eTag)) {
+                return ApiResponseFactory.notModified(eTag);
             }
 
             // Obtener usuario desde la BD
@@ -198,11 +298,12 @@ public class AuthController {
             return ApiResponseFactory.success(
                 user, 
                 "Usuario recuperado con éxito", 
-                null
+                null,
+                eTag
             );
             
-        } catch (Exception e) {
-            throw new RuntimeException("Error al obtener usuario: " + e.getMessage());
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UnauthorizedException("Error al obtener usuario: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
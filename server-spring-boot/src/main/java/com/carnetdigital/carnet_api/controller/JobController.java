@@ -0,0 +1,39 @@
+package com.carnetdigital.carnet_api.controller;
+
+import com.carnetdigital.carnet_api.dto.ApiResponse;
+import com.carnetdigital.carnet_api.dto.ScheduledJobResponse;
+import com.carnetdigital.carnet_api.exception.NotFoundException;
+import com.carnetdigital.carnet_api.helpers.ApiResponseFactory;
+import com.carnetdigital.carnet_api.repository.ScheduledJobRepository;
+import com.carnetdigital.carnet_api.service.JobScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobScheduler jobScheduler;
+    private final ScheduledJobRepository scheduledJobRepository;
+
+    // ==================== LIST ====================
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ScheduledJobResponse>>> getJobs() {
+        return ApiResponseFactory.success(scheduledJobRepository.findAll(), "Jobs recuperados con éxito", null);
+    }
+
+    // ==================== RUN ====================
+    // Corre el job ahora en este nodo (409 si otro nodo lo está ejecutando)
+    @PostMapping("/{name}/run")
+    public ResponseEntity<ApiResponse<ScheduledJobResponse>> runJob(@PathVariable String name) {
+        JobScheduler.Outcome outcome = jobScheduler.runNow(name);
+        ScheduledJobResponse job = scheduledJobRepository.findByName(name)
+            .orElseThrow(() -> new NotFoundException("Job no encontrado: " + name));
+        return ApiResponseFactory.success(job, "Job ejecutado", Map.of("outcome", outcome.name()));
+    }
+}
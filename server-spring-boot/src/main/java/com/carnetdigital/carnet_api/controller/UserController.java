@@ -1,15 +1,30 @@
 package com.carnetdigital.carnet_api.controller;
 
 import com.carnetdigital.carnet_api.dto.*;
+import com.carnetdigital.carnet_api.entity.User;
 import com.carnetdigital.carnet_api.entity.User.UserRole;
 import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import com.carnetdigital.carnet_api.service.UserExportService;
+import com.carnetdigital.carnet_api.service.UserExportService.DeletedFilter;
+import com.carnetdigital.carnet_api.service.UserImportService;
+import com.carnetdigital.carnet_api.service.UserImportService.ImportFormat;
 import com.carnetdigital.carnet_api.service.UserService;
+import com.carnetdigital.carnet_api.service.UserService.UpdatedUser;
 import com.carnetdigital.carnet_api.helpers.ApiResponseFactory;
+import com.carnetdigital.carnet_api.helpers.ETagHelper;
+import com.carnetdigital.carnet_api.repository.UserBulkRepository.BulkAction;
+import com.carnetdigital.carnet_api.repository.UserSpecifications;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -25,6 +40,8 @@ import java.util.UUID;
 public class UserController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
 
     // ==================== CREATE ====================
 
@@ -39,8 +56,49 @@ public class UserController {
         return ApiResponseFactory.created(user, "Usuario creado con éxito");
     }
 
+    /**
+     * Importación masiva de usuarios desde CSV (con encabezado) o NDJSON (un usuario por línea).
+     * El cuerpo se procesa en streaming y se devuelve un reporte de errores por fila.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<UserImportResponse>> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) {
+        ImportFormat format = MediaType.parseMediaType(contentType).getSubtype().contains("csv")
+            ? ImportFormat.csv
+            : ImportFormat.ndjson;
+
+        UserImportResponse report = userImportService.importUsers(body, format);
+        return ApiResponseFactory.success(
+            report,
+            "Importación de usuarios completada",
+            Map.of("format", format.name(), "imported", report.getImported(), "failed", report.getFailed())
+        );
+    }
+
     // ==================== READ ====================
 
+    /**
+     * Exporta usuarios a CSV en streaming directamente desde PostgreSQL.
+     * Filtros opcionales por rol, estado y eliminados (exclude, include, only); gzip=true comprime la salida.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) UserRole role,
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam(defaultValue = "exclude") DeletedFilter deleted,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        String filename = gzip ? "users.csv.gz" : "users.csv";
+        StreamingResponseBody body = out -> userExportService.exportUsers(role, status, deleted, gzip, out);
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv"))
+            .body(body);
+    }
+
     /**
      * Obtiene todos los usuarios, soportando paginación opcional.
      * Si page y size se envían, retorna una lista paginada.
@@ -51,45 +109,70 @@ public class UserController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDirection
+            @RequestParam(defaultValue = "desc") String sortDirection,
+            @RequestParam(required = false) String fields
     ) {
-        // Con paginación
+        // Solo los campos pedidos (?fields=id,firstName)
+        if (fields != null) {
+            return sparseFields(UserSpecifications.all(), fields, page, size, sortBy, sortDirection,
+                "Usuarios recuperados exitosamente", Map.of());
+        }
+
+        // Con paginación: el conteo primero y la página se escribe en streaming
         if (page != null && size != null) {
-            PagedResponse<UserResponse> users =
-                    userService.getAllUsersIncludingDeleted(page, size, sortBy, sortDirection);
+            StreamingApiResponse.Page pageInfo =
+                    new StreamingApiResponse.Page(page, size, userService.countAllUsersIncludingDeleted());
 
-            return ApiResponseFactory.success(
-                users,
+            return ApiResponseFactory.streamingPage(
+                UserResponse.class,
+                sink -> userService.forEachUserIncludingDeleted(page, size, sortBy, sortDirection, sink),
+                pageInfo,
                 "Usuarios recuperados exitosamente",
                 Map.of("paginated", true, "sortBy", sortBy, "sortDirection", sortDirection)
             );
         }
 
-        // Sin paginación
-        List<UserResponse> users = userService.getAllUsers();
-        return ApiResponseFactory.success(
-            users,
+        // Sin paginación: cada usuario se escribe apenas sale del cursor
+        return ApiResponseFactory.streaming(
+            UserResponse.class,
+            userService::forEachUser,
             "Usuarios recuperados exitosamente",
-            Map.of("paginated", false, "totalRecords", users.size())
+            count -> Map.of("paginated", false, "totalRecords", count)
         );
     }
 
     /**
      * Obtiene los detalles de un usuario por su ID.
+     * Responde 304 si If-None-Match coincide con el ETag actual (se resuelve sin cargar la entidad).
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserDetailResponse>> getUserById(@PathVariable UUID id) {
+    public ResponseEntity<ApiResponse<UserDetailResponse>> getUserById(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = userService.getUserETagById(id);
+        if (ETagHelper.matches(ifNoneMatch, eTag)) {
+            return ApiResponseFactory.notModified(eTag);
+        }
+
         UserDetailResponse user = userService.getUserById(id);
-        return ApiResponseFactory.success(user, "Usuario recuperado con éxito", null);
+        return ApiResponseFactory.success(user, "Usuario recuperado con éxito", null, eTag);
     }
 
     /**
      * Busca un usuario por su correo electrónico.
+     * Responde 304 si If-None-Match coincide con el ETag actual.
      */
     @GetMapping("/email/{email}")
-    public ResponseEntity<ApiResponse<UserResponse>> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<ApiResponse<UserResponse>> getUserByEmail(
+            @PathVariable String email,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String eTag = userService.getUserETagByEmail(email);
+        if (ETagHelper.matches(ifNoneMatch, eTag)) {
+            return ApiResponseFactory.notModified(eTag);
+        }
+
         UserResponse user = userService.getUserByEmail(email);
-        return ApiResponseFactory.success(user, "Usuario recuperado con éxito", null);
+        return ApiResponseFactory.success(user, "Usuario recuperado con éxito", null, eTag);
     }
 
     /**
@@ -100,8 +183,14 @@ public class UserController {
     public ResponseEntity<?> getUsersByRole(
             @PathVariable UserRole role,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields
     ) {
+        if (fields != null) {
+            return sparseFields(UserSpecifications.hasRole(role), fields, page, size, "createdAt", "desc",
+                "Usuarios recuperados exitosamente", Map.of("role", role.name()));
+        }
+
         if (page != null && size != null) {
             PagedResponse<UserResponse> users = userService.getUsersByRole(role, page, size);
             return ApiResponseFactory.success(
@@ -126,8 +215,14 @@ public class UserController {
     public ResponseEntity<?> getUsersByStatus(
             @PathVariable UserStatus status,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields
     ) {
+        if (fields != null) {
+            return sparseFields(UserSpecifications.hasStatus(status), fields, page, size, "createdAt", "desc",
+                "Usuarios recuperados exitosamente", Map.of("status", status.name()));
+        }
+
         if (page != null && size != null) {
             PagedResponse<UserResponse> users = userService.getUsersByStatus(status, page, size);
             return ApiResponseFactory.success(
@@ -151,8 +246,14 @@ public class UserController {
     @GetMapping("/active")
     public ResponseEntity<?> getActiveUsers(
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String fields
     ) {
+        if (fields != null) {
+            return sparseFields(UserSpecifications.isActive(), fields, page, size, "firstName", "asc",
+                "Usuarios activos recuperados con éxito", Map.of());
+        }
+
         if (page != null && size != null) {
             PagedResponse<UserResponse> users = userService.getActiveUsers(page, size);
             return ApiResponseFactory.success(
@@ -180,8 +281,16 @@ public class UserController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(defaultValue = "firstName") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDirection
+            @RequestParam(defaultValue = "asc") String sortDirection,
+            @RequestParam(required = false) String fields
     ) {
+        if (fields != null) {
+            // Misma semántica que searchByName: con paginación también busca por email
+            boolean paginated = page != null && size != null;
+            return sparseFields(UserSpecifications.nameContains(q, paginated), fields, page, size, sortBy, sortDirection,
+                "Usuarios encontrados exitosamente", Map.of("searchTerm", q));
+        }
+
         if (page != null && size != null) {
             PagedResponse<UserResponse> users =
                     userService.searchUsersByName(q, page, size, sortBy, sortDirection);
@@ -201,17 +310,49 @@ public class UserController {
         );
     }
 
+    /**
+     * Respuesta con campos dispersos: consulta y serializa solo las columnas de ?fields=.
+     * Mantiene el mismo formato (lista o PagedResponse) y meta que el endpoint original.
+     */
+    private ResponseEntity<?> sparseFields(
+            Specification<User> filter,
+            String fields,
+            Integer page,
+            Integer size,
+            String sortBy,
+            String sortDirection,
+            String message,
+            Map<String, Object> meta
+    ) {
+        Map<String, Object> responseMeta = new HashMap<>(meta);
+        responseMeta.put("fields", fields);
+
+        if (page != null && size != null) {
+            PagedResponse<Map<String, Object>> users =
+                    userService.getUserFields(filter, fields, page, size, sortBy, sortDirection);
+            responseMeta.put("paginated", true);
+            return ApiResponseFactory.success(users, message, responseMeta);
+        }
+
+        List<Map<String, Object>> users = userService.getUserFields(filter, fields);
+        responseMeta.put("paginated", false);
+        responseMeta.put("count", users.size());
+        return ApiResponseFactory.success(users, message, responseMeta);
+    }
+
     // ==================== UPDATE ====================
 
     /**
      * Actualiza información de un usuario.
+     * Si se envía If-Match y no coincide (comparación fuerte) con el ETag actual responde 412 (concurrencia optimista).
      */
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<UserResponse>> updateUser(
             @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UserUpdateRequest request) {
-        UserResponse user = userService.updateUser(id, request);
-        return ApiResponseFactory.success(user, "Usuario actualizado con éxito", null);
+        UpdatedUser updated = userService.updateUser(id, request, ifMatch);
+        return ApiResponseFactory.success(updated.user(), "Usuario actualizado con éxito", null, updated.eTag());
     }
 
     /**
@@ -243,6 +384,55 @@ public class UserController {
         return ApiResponseFactory.success(null, "Usuario desactivado con éxito", null);
     }
 
+    // ==================== BULK ====================
+
+    /**
+     * Activa en bloque los usuarios indicados por ids o por filtro (rol, estado, rango de creación).
+     */
+    @PostMapping("/bulk/activate")
+    public ResponseEntity<ApiResponse<UserBulkActionResponse>> bulkActivate(
+            @Valid @RequestBody UserBulkActionRequest request) {
+        UserBulkActionResponse result = userService.bulkUpdate(BulkAction.activate, request);
+        return ApiResponseFactory.success(result, bulkMessage(result, "Usuarios activados exitosamente"), null);
+    }
+
+    /**
+     * Desactiva en bloque y revoca los tokens de los usuarios afectados.
+     */
+    @PostMapping("/bulk/deactivate")
+    public ResponseEntity<ApiResponse<UserBulkActionResponse>> bulkDeactivate(
+            @Valid @RequestBody UserBulkActionRequest request) {
+        UserBulkActionResponse result = userService.bulkUpdate(BulkAction.deactivate, request);
+        return ApiResponseFactory.success(result, bulkMessage(result, "Usuarios desactivados exitosamente"), null);
+    }
+
+    /**
+     * Eliminación lógica en bloque; revoca los tokens de los usuarios afectados.
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<ApiResponse<UserBulkActionResponse>> bulkDelete(
+            @Valid @RequestBody UserBulkActionRequest request) {
+        UserBulkActionResponse result = userService.bulkUpdate(BulkAction.delete, request);
+        return ApiResponseFactory.success(result, bulkMessage(result, "Usuarios removidos exitosamente"), null);
+    }
+
+    /**
+     * Restaura en bloque usuarios eliminados lógicamente.
+     */
+    @PostMapping("/bulk/restore")
+    public ResponseEntity<ApiResponse<UserBulkActionResponse>> bulkRestore(
+            @Valid @RequestBody UserBulkActionRequest request) {
+        UserBulkActionResponse result = userService.bulkUpdate(BulkAction.restore, request);
+        return ApiResponseFactory.success(result, bulkMessage(result, "Usuarios restaurados exitosamente"), null);
+    }
+
+    // Con lotes fallidos la respuesta sigue siendo 200: los lotes aplicados ya están confirmados
+    private static String bulkMessage(UserBulkActionResponse result, String success) {
+        return result.getFailedChunks() == 0
+            ? success
+            : "Operación masiva aplicada parcialmente: fallaron " + result.getFailedChunks() + " de " + result.getChunks() + " lotes";
+    }
+
     // ==================== DELETE ====================
 
     /**
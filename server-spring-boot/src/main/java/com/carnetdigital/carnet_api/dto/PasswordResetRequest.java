@@ -0,0 +1,25 @@
+package com.carnetdigital.carnet_api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PasswordResetRequest {
+
+    @NotBlank(message = "Token is required")
+    private String token;
+
+    @NotBlank(message = "New password is required")
+    @Size(min = 8, max = 60, message = "New password must be between 8 and 60 characters")
+    private String newPassword;
+
+    @NotBlank(message = "Password confirmation is required")
+    private String confirmPassword;
+}
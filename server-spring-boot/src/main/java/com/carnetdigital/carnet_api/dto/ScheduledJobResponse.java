@@ -0,0 +1,26 @@
+package com.carnetdigital.carnet_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobResponse {
+
+    private String name;
+    private String cron;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime lastStartedAt;
+    private Long lastDurationMs;
+    private Long lastRows;
+    private String lastStatus;
+    private String lastError;
+    private String lastNode;
+    private long runCount;
+}
@@ -0,0 +1,52 @@
+package com.carnetdigital.carnet_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * ApiResponse cuyo data se escribe en streaming (StreamingApiResponseConverter): primero el encabezado,
+ * luego cada elemento a medida que lo entrega items, y al final meta. No se materializa la lista.
+ * El JSON resultante tiene la misma forma que ApiResponse&lt;List&lt;T&gt;&gt; o ApiResponse&lt;PagedResponse&lt;T&gt;&gt;.
+ */
+@Getter
+@AllArgsConstructor
+public class StreamingApiResponse<T> {
+
+    /**
+     * Entrega los elementos al sink dentro de su propia transacción (se invoca durante la escritura
+     * de la respuesta, cuando el controlador ya retornó) y devuelve cuántos entregó.
+     */
+    @FunctionalInterface
+    public interface ItemSource<T> {
+        long forEach(Consumer<T> sink);
+    }
+
+    /**
+     * Datos de paginación; con page != null, data es {content: [...], page, size, totalElements, ...}.
+     */
+    public record Page(int page, int size, long totalElements) {
+
+        public int totalPages() {
+            return size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+        }
+
+        public boolean first() {
+            return page == 0;
+        }
+
+        public boolean last() {
+            return page + 1 >= totalPages();
+        }
+    }
+
+    private final String message;
+    private final Class<T> itemType;
+    private final ItemSource<T> items;
+    private final Page page;
+    // Recibe la cantidad de elementos escritos (p. ej. para totalRecords)
+    private final LongFunction<Map<String, Object>> meta;
+}
@@ -0,0 +1,32 @@
+package com.carnetdigital.carnet_api.dto;
+
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkActionRequest {
+    
+    // Lista explícita de usuarios; si se envía, los filtros se aplican además sobre ella
+    @Size(max = 50000, message = "No se pueden enviar más de 50000 ids por solicitud")
+    private List<UUID> ids;
+    
+    private UserRole role;
+    
+    private UserStatus status;
+    
+    private LocalDateTime createdFrom;
+    
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,26 @@
+package com.carnetdigital.carnet_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBulkActionResponse {
+    
+    private String action;
+    private long affectedUsers;
+    private long revokedTokens;
+    private int chunks;
+    // Solo con ids: los que no existen o ya estaban en el estado destino (null al usar filtros)
+    private Long skippedUsers;
+    // Cada lote se confirma por separado: si uno falla, los anteriores quedan aplicados
+    private int failedChunks;
+    // Solo con ids: usuarios de los lotes que fallaron (null al usar filtros)
+    private Long failedUsers;
+    // Primer error encontrado, null si todos los lotes se aplicaron
+    private String error;
+}
@@ -27,4 +27,8 @@ public class UserDetailResponse {
     private LocalDateTime updatedAt;
     private Integer totalTokens;
     private Integer activeTokens;
+    // Actividad escrita por lotes: puede ir atrasada hasta activity.flush-interval
+    private LocalDateTime lastLoginAt;
+    private LocalDateTime lastSeenAt;
+    private Long loginCount;
 }
\ No newline at end of file
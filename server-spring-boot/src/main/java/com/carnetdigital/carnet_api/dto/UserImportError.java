@@ -0,0 +1,17 @@
+package com.carnetdigital.carnet_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportError {
+    
+    private long line;
+    private String email;
+    private String message;
+}
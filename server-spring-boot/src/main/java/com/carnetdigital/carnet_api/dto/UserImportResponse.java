@@ -0,0 +1,23 @@
+package com.carnetdigital.carnet_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResponse {
+    
+    private long totalRows;
+    private long imported;
+    private long failed;
+    private long durationMs;
+    @Builder.Default
+    private List<UserImportError> errors = new ArrayList<>();
+}
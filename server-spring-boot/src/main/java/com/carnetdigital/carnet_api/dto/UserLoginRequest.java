@@ -2,6 +2,7 @@ package com.carnetdigital.carnet_api.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,6 +16,7 @@ public class UserLoginRequest {
     
     @NotBlank(message = "Email is required")
     @Email(message = "Email must be valid")
+    @Size(max = 100, message = "Email must not exceed 100 characters")
     private String email;
     
     @NotBlank(message = "Password is required")
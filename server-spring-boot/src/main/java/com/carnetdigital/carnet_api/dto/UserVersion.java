@@ -0,0 +1,18 @@
+package com.carnetdigital.carnet_api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserVersion {
+    
+    private UUID id;
+    private Integer version;
+    private LocalDateTime updatedAt;
+}
@@ -15,15 +15,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(
-    name = "tokens",
-    indexes = {
-        @Index(name = "idx_token_unique", columnList = "token"),
-        @Index(name = "idx_active_tokens", columnList = "used"),
-        @Index(name = "idx_user_tokens", columnList = "user_fk"),
-        @Index(name = "idx_token_expiration", columnList = "expires_at")
-    }
-)
+// Índices (parciales sobre "deletedAt" IS NULL) definidos en db/migration/V3__query_tuned_indexes.sql
+@Table(name = "tokens")
 @SQLDelete(sql = "UPDATE tokens SET \"deletedAt\" = NOW() WHERE id = ?")
 @SQLRestriction("\"deletedAt\" IS NULL")
 @Data
@@ -17,16 +17,9 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(
-    name = "users",
-    indexes = {
-        @Index(name = "idx_email", columnList = "email", unique = true),
-        @Index(name = "idx_role", columnList = "role"),
-        @Index(name = "idx_status", columnList = "status"),
-        @Index(name = "idx_active", columnList = "active")
-    }
-)
-@SQLDelete(sql = "UPDATE users SET \"deletedAt\" = NOW() WHERE id = ?")
+// Índices (parciales sobre "deletedAt" IS NULL) definidos en db/migration/V3__query_tuned_indexes.sql
+@Table(name = "users")
+@SQLDelete(sql = "UPDATE users SET \"deletedAt\" = NOW(), security_stamp = security_stamp + 1 WHERE id = ?")
 @SQLRestriction("\"deletedAt\" IS NULL")
 @Data
 @NoArgsConstructor
@@ -79,6 +72,25 @@ public class User {
     @Column(name = "\"deletedAt\"")
     private LocalDateTime deletedAt;
     
+    // Actividad: solo la escribe ActivityTracker con su UPDATE por lotes; la entidad nunca la sobrescribe
+    @Column(name = "last_login_at", insertable = false, updatable = false)
+    private LocalDateTime lastLoginAt;
+    
+    @Column(name = "last_seen_at", insertable = false, updatable = false)
+    private LocalDateTime lastSeenAt;
+    
+    @Column(name = "login_count", insertable = false, updatable = false)
+    private Long loginCount = 0L;
+    
+    // Control de concurrencia optimista (If-Match) y parte del ETag
+    @Version
+    @Column(name = "version", nullable = false)
+    private Integer version = 0;
+    
+    // Sello de seguridad (claim "stamp" de los JWT): al incrementarlo se revocan los tokens emitidos
+    @Column(name = "security_stamp", nullable = false)
+    private Integer securityStamp = 0;
+    
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Token> tokens = new ArrayList<>();
     
@@ -0,0 +1,20 @@
+package com.carnetdigital.carnet_api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// Datos de entrada inválidos que no cubre @Valid (campos de fields, encabezado CSV, Idempotency-Key, contraseñas)
+public class BadRequestException extends DomainException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.BAD_REQUEST;
+    }
+}
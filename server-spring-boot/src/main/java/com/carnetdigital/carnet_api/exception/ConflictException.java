@@ -0,0 +1,16 @@
+package com.carnetdigital.carnet_api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// La operación choca con el estado actual del recurso (email en uso, usuario eliminado)
+public class ConflictException extends DomainException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.CONFLICT;
+    }
+}
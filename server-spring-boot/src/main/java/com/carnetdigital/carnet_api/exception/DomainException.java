@@ -0,0 +1,21 @@
+package com.carnetdigital.carnet_api.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Resultado esperado de negocio (no encontrado, conflicto, credenciales, límite) que se responde al cliente.
+ * No captura stack trace ni admite excepciones suprimidas: en ráfagas de logins fallidos o ids inexistentes
+ * llenar la traza era la parte más cara de la petición. GlobalExceptionHandler responde con getStatus().
+ */
+public abstract class DomainException extends RuntimeException {
+
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+
+    protected DomainException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+
+    public abstract HttpStatus getStatus();
+}
@@ -0,0 +1,16 @@
+package com.carnetdigital.carnet_api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// El recurso pedido no existe (o está eliminado para la operación)
+public class NotFoundException extends DomainException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.NOT_FOUND;
+    }
+}
@@ -0,0 +1,16 @@
+package com.carnetdigital.carnet_api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// El recurso cambió desde que el cliente lo leyó (If-Match no coincide con el ETag actual)
+public class PreconditionFailedException extends DomainException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.PRECONDITION_FAILED;
+    }
+}
@@ -0,0 +1,16 @@
+package com.carnetdigital.carnet_api.exception;
+
+import org.springframework.http.HttpStatus;
+
+// La petición está bien formada pero no se puede procesar (p. ej. Idempotency-Key reutilizada con otro cuerpo)
+public class UnprocessableException extends DomainException {
+
+    public UnprocessableException(String message) {
+        super(message);
+    }
+
+    @Override
+    public HttpStatus getStatus() {
+        return HttpStatus.UNPROCESSABLE_CONTENT;
+    }
+}
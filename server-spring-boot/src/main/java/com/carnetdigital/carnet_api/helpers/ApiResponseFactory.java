@@ -3,6 +3,7 @@ package com.carnetdigital.carnet_api.helpers;
 import com.carnetdigital.carnet_api.dto.*;
 
 import java.util.Map;
+import java.util.function.LongFunction;
 
 import org.springframework.http.ResponseEntity;
 
@@ -24,6 +25,48 @@ public class ApiResponseFactory {
         return ResponseEntity.ok(response);
     }
 
+    public static <T> ResponseEntity<ApiResponse<T>> success(
+            T data,
+            String message,
+            Map<String, Object> meta,
+            String eTag
+    ) {
+        ApiResponse<T> response = new ApiResponse<>(
+                "success",
+                200,
+                message,
+                data,
+                meta
+        );
+
+        return ResponseEntity.ok().eTag(eTag).body(response);
+    }
+
+    // Listado escrito en streaming (ver StreamingApiResponseConverter); meta recibe la cantidad escrita
+    public static <T> ResponseEntity<StreamingApiResponse<T>> streaming(
+            Class<T> itemType,
+            StreamingApiResponse.ItemSource<T> items,
+            String message,
+            LongFunction<Map<String, Object>> meta
+    ) {
+        return ResponseEntity.ok(new StreamingApiResponse<>(message, itemType, items, null, meta));
+    }
+
+    // Página escrita en streaming: data = {content, page, size, totalElements, totalPages, first, last, empty}
+    public static <T> ResponseEntity<StreamingApiResponse<T>> streamingPage(
+            Class<T> itemType,
+            StreamingApiResponse.ItemSource<T> items,
+            StreamingApiResponse.Page page,
+            String message,
+            Map<String, Object> meta
+    ) {
+        return ResponseEntity.ok(new StreamingApiResponse<>(message, itemType, items, page, count -> meta));
+    }
+
+    public static <T> ResponseEntity<ApiResponse<T>> notModified(String eTag) {
+        return ResponseEntity.status(304).eTag(eTag).build();
+    }
+
     public static <T> ResponseEntity<ApiResponse<T>> created(T data, String message) {
         ApiResponse<T> response = new ApiResponse<>(
                 "success",
@@ -0,0 +1,49 @@
+package com.carnetdigital.carnet_api.helpers;
+
+import com.carnetdigital.carnet_api.dto.UserVersion;
+
+import java.time.ZoneOffset;
+
+public class ETagHelper {
+
+    // ETag fuerte: id + versión + updatedAt (en milisegundos, hexadecimal); cambia con cada escritura
+    public static String userETag(UserVersion version) {
+        long updatedAt = version.getUpdatedAt() != null
+            ? version.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+            : 0L;
+
+        return "\"" + version.getId() + "-" + version.getVersion() + "-" + Long.toHexString(updatedAt) + "\"";
+    }
+
+    // Comparación débil contra If-None-Match (admite "*" y listas separadas por coma)
+    public static boolean matches(String header, String etag) {
+        if (header == null || header.isBlank()) return false;
+        if (header.trim().equals("*")) return true;
+
+        String opaque = stripWeak(etag);
+        for (String candidate : header.split(",")) {
+            if (stripWeak(candidate.trim()).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Comparación fuerte contra If-Match (RFC 9110 13.1.1): un ETag débil nunca coincide
+    public static boolean matchesStrong(String header, String etag) {
+        if (header == null || header.isBlank()) return false;
+        if (header.trim().equals("*")) return true;
+        if (etag.startsWith("W/")) return false;
+
+        for (String candidate : header.split(",")) {
+            if (candidate.trim().equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
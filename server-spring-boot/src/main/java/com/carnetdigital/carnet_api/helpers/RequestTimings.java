@@ -0,0 +1,96 @@
+package com.carnetdigital.carnet_api.helpers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Acumuladores de tiempo por petición para el header Server-Timing.
+ * Solo existen mientras ServerTimingFilter tiene abierta la petición; fuera de ella add() no hace nada.
+ * Cada fase es un long en un arreglo fijo (sin mapas ni objetos por medición).
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        DB("db"),
+        DB_WAIT("db-wait"),
+        HASH("hash"),
+        JWT("jwt"),
+        SERIALIZE("serialize");
+
+        private final String metric;
+
+        Phase(String metric) {
+            this.metric = metric;
+        }
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private long serializeStartNanos;
+
+    private RequestTimings() {
+    }
+
+    public static RequestTimings start() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    public static void add(Phase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.nanos[phase.ordinal()] += elapsedNanos;
+        }
+    }
+
+    public void markSerializeStart() {
+        serializeStartNanos = System.nanoTime();
+    }
+
+    public void markSerializeEnd() {
+        if (serializeStartNanos != 0) {
+            nanos[Phase.SERIALIZE.ordinal()] += System.nanoTime() - serializeStartNanos;
+            serializeStartNanos = 0;
+        }
+    }
+
+    // db;dur=1.20, db-wait;dur=0.05, hash;dur=0.00, jwt;dur=0.31, serialize;dur=0.42, total;dur=3.10
+    public String toHeader() {
+        StringJoiner header = new StringJoiner(", ");
+        for (Phase phase : PHASES) {
+            header.add(phase.metric + ";dur=" + millis(nanos[phase.ordinal()]));
+        }
+        header.add("total;dur=" + millis(System.nanoTime() - startNanos));
+        return header.toString();
+    }
+
+    // Misma información para ApiResponse.meta (en milisegundos). Sin serialize: meta se arma antes de
+    // serializar el cuerpo, así que ese valor solo existe en el header
+    public Map<String, Object> toMeta() {
+        Map<String, Object> meta = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            if (phase != Phase.SERIALIZE) {
+                meta.put(phase.metric, millis(nanos[phase.ordinal()]));
+            }
+        }
+        meta.put("total", millis(System.nanoTime() - startNanos));
+        return meta;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,74 @@
+package com.carnetdigital.carnet_api.helpers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conteo y tiempo de sentencias SQL por ámbito (petición HTTP, método de repositorio, prueba).
+ * Los ámbitos se anidan por hilo: cada sentencia se suma al ámbito actual y a todos sus padres.
+ *
+ * <pre>
+ * try (SqlStatementStats.Scope scope = SqlStatementStats.open("GET /api/v1/users/{id}")) {
+ *     ...
+ *     scope.getStatements();
+ * }
+ * </pre>
+ */
+public final class SqlStatementStats {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementStats() {
+    }
+
+    public static Scope open(String name) {
+        Scope scope = new Scope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    // Llamado por el proxy del DataSource después de cada ejecución
+    public static void record(long elapsedNanos) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statements++;
+            scope.elapsedNanos += elapsedNanos;
+        }
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Scope parent;
+        private int statements;
+        private long elapsedNanos;
+
+        private Scope(String name, Scope parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getElapsed(TimeUnit unit) {
+            return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                CURRENT.set(parent);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
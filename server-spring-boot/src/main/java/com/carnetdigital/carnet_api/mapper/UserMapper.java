@@ -49,6 +49,9 @@ public class UserMapper {
             .updatedAt(user.getUpdatedAt())
             .totalTokens(totalTokens)
             .activeTokens((int) activeTokensCount)
+            .lastLoginAt(user.getLastLoginAt())
+            .lastSeenAt(user.getLastSeenAt())
+            .loginCount(user.getLoginCount())
             .build();
     }
     
@@ -0,0 +1,79 @@
+package com.carnetdigital.carnet_api.repository;
+
+import com.carnetdigital.carnet_api.service.AuditEvent;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Escritura por lotes de audit_events con COPY FROM STDIN (un viaje a la base por lote).
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditEventRepository {
+
+    private static final String COPY_IN_SQL =
+        "COPY audit_events (occurred_at, event_type, user_id, email, detail) FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+
+    /**
+     * Inserta el lote en su propia transacción: con la política caller_runs se llama desde afterCommit
+     * de la transacción de la petición, que ya no admite escrituras.
+     * @return cantidad de filas insertadas.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long copyIn(List<AuditEvent> events) {
+        if (events.isEmpty()) return 0;
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IN_SQL);
+            try {
+                StringBuilder row = new StringBuilder(256);
+                for (AuditEvent event : events) {
+                    row.setLength(0);
+                    appendCsvValue(row, event.occurredAt().toString()).append(',');
+                    appendCsvValue(row, event.type().name()).append(',');
+                    appendCsvValue(row, event.userId() != null ? event.userId().toString() : null).append(',');
+                    appendCsvValue(row, event.email()).append(',');
+                    appendCsvValue(row, event.detail()).append('\n');
+                    byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Escribir eventos de auditoría con COPY", COPY_IN_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // En formato CSV de COPY un campo vacío sin comillas es NULL; los valores siempre van entre comillas
+    private StringBuilder appendCsvValue(StringBuilder row, String value) {
+        if (value == null) return row;
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        return row.append('"');
+    }
+}
@@ -0,0 +1,117 @@
+package com.carnetdigital.carnet_api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Respuestas guardadas por Idempotency-Key (tabla idempotency_keys).
+ * Una fila con status null es una petición en curso: el claim la reserva para un solo nodo.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // status null = en curso; contentType vacío si la respuesta no tenía cuerpo; headers a repetir (ETag, Location...)
+    public record StoredResponse(String requestHash, Integer status, String contentType, Map<String, String> headers,
+                                 byte[] body, Instant expiresAt) {
+
+        public boolean completed() {
+            return status != null;
+        }
+    }
+
+    // Transacción de escritura a propósito: siempre se lee del primario, una réplica atrasada no vería la respuesta
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Optional<StoredResponse> find(String scope, String key) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT request_hash, status, content_type, headers, body, expires_at FROM idempotency_keys " +
+                "WHERE scope = :scope AND idempotency_key = :key AND expires_at > now()")
+            .setParameter("scope", scope)
+            .setParameter("key", key)
+            .getResultList();
+        return rows.stream().findFirst().map(row -> new StoredResponse(
+            (String) row[0], (Integer) row[1], (String) row[2], decodeHeaders((String) row[3]), (byte[]) row[4], (Instant) row[5]));
+    }
+
+    /**
+     * Reserva la clave para esta petición. Devuelve false si otra la tiene en curso o ya completada;
+     * una reserva vencida o en curso hace más de staleAfter (nodo caído) se puede volver a tomar.
+     */
+    @Transactional
+    public boolean claim(String scope, String key, String requestHash, Duration ttl, Duration staleAfter) {
+        return entityManager.createNativeQuery(
+                "INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, created_at, expires_at) " +
+                "VALUES (:scope, :key, :hash, now(), now() + :ttlSeconds * interval '1 second') " +
+                "ON CONFLICT (scope, idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, " +
+                "status = NULL, content_type = NULL, headers = NULL, body = NULL, " +
+                "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+                "WHERE idempotency_keys.expires_at <= now() OR (idempotency_keys.status IS NULL " +
+                "AND idempotency_keys.created_at < now() - :staleSeconds * interval '1 second')")
+            .setParameter("scope", scope)
+            .setParameter("key", key)
+            .setParameter("hash", requestHash)
+            .setParameter("ttlSeconds", ttl.toSeconds())
+            .setParameter("staleSeconds", staleAfter.toSeconds())
+            .executeUpdate() == 1;
+    }
+
+    @Transactional
+    public void complete(String scope, String key, int status, String contentType, Map<String, String> headers, byte[] body) {
+        entityManager.createNativeQuery(
+                "UPDATE idempotency_keys SET status = :status, content_type = :contentType, headers = :headers, body = :body " +
+                "WHERE scope = :scope AND idempotency_key = :key")
+            .setParameter("scope", scope)
+            .setParameter("key", key)
+            .setParameter("status", status)
+            .setParameter("contentType", contentType)
+            .setParameter("headers", encodeHeaders(headers))
+            .setParameter("body", body)
+            .executeUpdate();
+    }
+
+    // La petición terminó en 5xx o con excepción: la clave queda libre para el reintento
+    @Transactional
+    public void release(String scope, String key) {
+        entityManager.createNativeQuery(
+                "DELETE FROM idempotency_keys WHERE scope = :scope AND idempotency_key = :key AND status IS NULL")
+            .setParameter("scope", scope)
+            .setParameter("key", key)
+            .executeUpdate();
+    }
+
+    @Transactional
+    public int deleteExpired() {
+        return entityManager.createNativeQuery("DELETE FROM idempotency_keys WHERE expires_at <= now()")
+            .executeUpdate();
+    }
+
+    // Una línea "Nombre: valor" por encabezado; un valor HTTP no puede contener saltos de línea
+    private static String encodeHeaders(Map<String, String> headers) {
+        if (headers.isEmpty()) return null;
+        StringBuilder text = new StringBuilder();
+        headers.forEach((name, value) -> text.append(name).append(": ").append(value).append('\n'));
+        return text.toString();
+    }
+
+    private static Map<String, String> decodeHeaders(String text) {
+        if (text == null || text.isEmpty()) return Map.of();
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String line : text.split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) headers.put(line.substring(0, colon), line.substring(colon + 2));
+        }
+        return headers;
+    }
+}
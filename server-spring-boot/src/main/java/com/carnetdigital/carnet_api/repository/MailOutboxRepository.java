@@ -0,0 +1,117 @@
+package com.carnetdigital.carnet_api.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outbox de correo saliente (tabla mail_outbox). enqueue se une a la transacción del llamador;
+ * el resto lo usa MailOutboxWorker, cada operación en su propia transacción corta.
+ *
+ * El token de un enlace no se guarda en body: body lleva TOKEN_PLACEHOLDER y el token va en link_token,
+ * que el worker reemplaza al enviar y que se borra al quedar sent o failed (esas filas se guardan
+ * hasta la purga).
+ */
+@Repository
+public class MailOutboxRepository {
+
+    public static final String TOKEN_PLACEHOLDER = "{token}";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // attempts ya incluye el intento en curso
+    public record OutboxMail(long id, String recipient, String subject, String body, String linkToken, int attempts) {
+
+        // Texto a enviar: body con el token del enlace en lugar de TOKEN_PLACEHOLDER
+        public String text() {
+            return linkToken != null ? body.replace(TOKEN_PLACEHOLDER, linkToken) : body;
+        }
+    }
+
+    @Transactional
+    public void enqueue(String recipient, String subject, String body) {
+        enqueue(recipient, subject, body, null);
+    }
+
+    @Transactional
+    public void enqueue(String recipient, String subject, String body, String linkToken) {
+        entityManager.createNativeQuery(
+                "INSERT INTO mail_outbox (recipient, subject, body, link_token) " +
+                "VALUES (:recipient, :subject, :body, :linkToken)")
+            .setParameter("recipient", recipient)
+            .setParameter("subject", subject)
+            .setParameter("body", body)
+            .setParameter("linkToken", linkToken)
+            .executeUpdate();
+    }
+
+    /**
+     * Toma hasta limit correos vencidos y los aparta durante lease: suma el intento y corre next_attempt_at,
+     * así el envío ocurre fuera de la transacción sin que otro nodo tome las mismas filas (SKIP LOCKED evita
+     * esperar a las que otro nodo está tomando). Si el nodo cae en pleno envío, vuelven a salir al vencer el lease.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<OutboxMail> claim(int limit, Duration lease) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "UPDATE mail_outbox SET attempts = attempts + 1, " +
+                "next_attempt_at = now() + :leaseSeconds * interval '1 second' " +
+                "WHERE id IN (SELECT id FROM mail_outbox WHERE status = 'pending' AND next_attempt_at <= now() " +
+                "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                "RETURNING id, recipient, subject, body, link_token, attempts")
+            .setParameter("leaseSeconds", lease.toSeconds())
+            .setParameter("limit", limit)
+            .getResultList();
+        return rows.stream()
+            .map(row -> new OutboxMail(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                (String) row[3], (String) row[4], ((Number) row[5]).intValue()))
+            .toList();
+    }
+
+    @Transactional
+    public int markSent(List<Long> ids) {
+        if (ids.isEmpty()) return 0;
+        return entityManager.createNativeQuery(
+                "UPDATE mail_outbox SET status = 'sent', sent_at = now(), last_error = NULL, link_token = NULL " +
+                "WHERE id IN (:ids)")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+
+    // Vuelve a quedar pendiente dentro de delay
+    @Transactional
+    public void reschedule(long id, String error, Duration delay) {
+        entityManager.createNativeQuery(
+                "UPDATE mail_outbox SET next_attempt_at = now() + :delayMillis * interval '1 millisecond', " +
+                "last_error = :error WHERE id = :id")
+            .setParameter("delayMillis", delay.toMillis())
+            .setParameter("error", error)
+            .setParameter("id", id)
+            .executeUpdate();
+    }
+
+    // Intentos agotados: queda en la tabla con el último error para revisarlo a mano
+    @Transactional
+    public void markFailed(long id, String error) {
+        entityManager.createNativeQuery(
+                "UPDATE mail_outbox SET status = 'failed', last_error = :error, link_token = NULL WHERE id = :id")
+            .setParameter("error", error)
+            .setParameter("id", id)
+            .executeUpdate();
+    }
+
+    // Enviados y fallidos más viejos que retention (job mail-outbox-purge); los pendientes nunca se borran
+    @Transactional
+    public int purge(Duration retention) {
+        return entityManager.createNativeQuery(
+                "DELETE FROM mail_outbox WHERE status <> 'pending' " +
+                "AND created_at < now() - :retentionSeconds * interval '1 second'")
+            .setParameter("retentionSeconds", retention.toSeconds())
+            .executeUpdate();
+    }
+}
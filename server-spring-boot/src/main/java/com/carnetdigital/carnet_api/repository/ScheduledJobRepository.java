@@ -0,0 +1,138 @@
+package com.carnetdigital.carnet_api.repository;
+
+import com.carnetdigital.carnet_api.dto.ScheduledJobResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Estado de los jobs del clúster (tabla scheduled_jobs) y su advisory lock.
+ * Lock, estado y registro de corridas se usan dentro de la transacción que abre JobScheduler;
+ * las consultas del listado de administración abren la suya.
+ */
+@Repository
+public class ScheduledJobRepository {
+
+    private static final String LOCK_PREFIX = "scheduled_job:";
+
+    private static final String SELECT_JOBS =
+        "SELECT name, cron, next_run_at, last_started_at, last_duration_ms, last_rows, last_status, " +
+        "last_error, last_node, run_count FROM scheduled_jobs";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // cron y nextRunAt son null si el job todavía no está registrado; now es el reloj de la base
+    public record JobState(String cron, Instant nextRunAt, Instant now) {
+    }
+
+    /**
+     * Lock de transacción: se libera al terminar la transacción o cuando PostgreSQL cierra la sesión
+     * de un nodo caído, así que nunca queda tomado por un proceso que ya no existe.
+     */
+    public boolean tryLock(String name) {
+        return (Boolean) entityManager
+            .createNativeQuery("SELECT pg_try_advisory_xact_lock(hashtextextended(:key, 0))")
+            .setParameter("key", LOCK_PREFIX + name)
+            .getSingleResult();
+    }
+
+    public JobState findState(String name) {
+        Object[] row = (Object[]) entityManager.createNativeQuery(
+                "SELECT j.cron, j.next_run_at, now() FROM (SELECT 1) AS one " +
+                "LEFT JOIN scheduled_jobs j ON j.name = :name")
+            .setParameter("name", name)
+            .getSingleResult();
+        return new JobState((String) row[0], (Instant) row[1], (Instant) row[2]);
+    }
+
+    // Registra el job o, si cambió su cron, lo vuelve a agendar desde ahora
+    public void schedule(String name, String cron, Instant nextRunAt) {
+        entityManager.createNativeQuery(
+                "INSERT INTO scheduled_jobs (name, cron, next_run_at) VALUES (:name, :cron, :nextRunAt) " +
+                "ON CONFLICT (name) DO UPDATE SET cron = EXCLUDED.cron, next_run_at = EXCLUDED.next_run_at")
+            .setParameter("name", name)
+            .setParameter("cron", cron)
+            .setParameter("nextRunAt", nextRunAt)
+            .executeUpdate();
+    }
+
+    public void recordSuccess(String name, Instant startedAt, long durationMs, long rows,
+                              String node, Instant nextRunAt) {
+        entityManager.createNativeQuery(
+                "UPDATE scheduled_jobs SET next_run_at = :nextRunAt, last_started_at = :startedAt, " +
+                "last_duration_ms = :durationMs, last_rows = :rows, last_status = 'success', last_error = NULL, " +
+                "last_node = :node, run_count = run_count + 1 WHERE name = :name")
+            .setParameter("name", name)
+            .setParameter("nextRunAt", nextRunAt)
+            .setParameter("startedAt", startedAt)
+            .setParameter("durationMs", durationMs)
+            .setParameter("rows", rows)
+            .setParameter("node", node)
+            .executeUpdate();
+    }
+
+    /**
+     * Solo si nadie completó el disparo mientras tanto (next_run_at sigue como lo leyó el nodo que falló):
+     * si este nodo perdió su conexión y otro ya corrió el job, su registro no se pisa.
+     */
+    public void recordFailure(String name, Instant startedAt, long durationMs, String error,
+                              String node, Instant expectedNextRunAt, Instant nextRunAt) {
+        entityManager.createNativeQuery(
+                "UPDATE scheduled_jobs SET next_run_at = :nextRunAt, last_started_at = :startedAt, " +
+                "last_duration_ms = :durationMs, last_rows = NULL, last_status = 'failed', last_error = :error, " +
+                "last_node = :node, run_count = run_count + 1 WHERE name = :name AND next_run_at = :expectedNextRunAt")
+            .setParameter("name", name)
+            .setParameter("expectedNextRunAt", expectedNextRunAt)
+            .setParameter("nextRunAt", nextRunAt)
+            .setParameter("startedAt", startedAt)
+            .setParameter("durationMs", durationMs)
+            .setParameter("error", error)
+            .setParameter("node", node)
+            .executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public List<ScheduledJobResponse> findAll() {
+        List<Object[]> rows = entityManager.createNativeQuery(SELECT_JOBS + " ORDER BY name").getResultList();
+        return rows.stream().map(ScheduledJobRepository::toResponse).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Transactional(readOnly = true)
+    public Optional<ScheduledJobResponse> findByName(String name) {
+        List<Object[]> rows = entityManager.createNativeQuery(SELECT_JOBS + " WHERE name = :name")
+            .setParameter("name", name)
+            .getResultList();
+        return rows.stream().findFirst().map(ScheduledJobRepository::toResponse);
+    }
+
+    private static ScheduledJobResponse toResponse(Object[] row) {
+        return ScheduledJobResponse.builder()
+            .name((String) row[0])
+            .cron((String) row[1])
+            .nextRunAt(toLocal(row[2]))
+            .lastStartedAt(toLocal(row[3]))
+            .lastDurationMs((Long) row[4])
+            .lastRows((Long) row[5])
+            .lastStatus((String) row[6])
+            .lastError((String) row[7])
+            .lastNode((String) row[8])
+            .runCount((Long) row[9])
+            .build();
+    }
+
+    // Los DTOs exponen LocalDateTime en la zona del servidor, como createdAt/updatedAt de users
+    private static LocalDateTime toLocal(Object timestamp) {
+        return timestamp == null ? null
+            : LocalDateTime.ofInstant((Instant) timestamp, ZoneId.systemDefault());
+    }
+}
@@ -60,6 +60,12 @@ public interface TokenRepository extends JpaRepository<Token, UUID> {
     @Query("UPDATE Token t SET t.used = true WHERE t.id = :tokenId")
     int markTokenAsUsed(@Param("tokenId") UUID tokenId);
     
+    // Consumir un token de un solo uso: con dos peticiones simultáneas solo una actualiza la fila
+    @Transactional
+    @Modifying
+    @Query("UPDATE Token t SET t.used = true WHERE t.id = :tokenId AND t.used = false")
+    int consumeToken(@Param("tokenId") UUID tokenId);
+    
     // Invalidar todos los tokens de un usuario
     @Transactional
     @Modifying
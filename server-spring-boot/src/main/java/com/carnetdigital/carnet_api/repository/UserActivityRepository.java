@@ -0,0 +1,78 @@
+package com.carnetdigital.carnet_api.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Escritura por lotes de la actividad de los usuarios (last_login_at, last_seen_at, login_count).
+ * JDBC directo: las marcas de tiempo nulas se enlazan con su tipo, cosa que el query nativo de Hibernate no hace.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserActivityRepository {
+
+    public record UserActivity(UUID userId, Instant lastLoginAt, Instant lastSeenAt, int logins) {
+    }
+
+    private final DataSource dataSource;
+
+    /**
+     * Aplica todo el lote con un solo UPDATE ... FROM (VALUES ...). GREATEST ignora los NULL y login_count
+     * suma: varios nodos pueden escribir la actividad del mismo usuario en cualquier orden.
+     * No toca version ni "updatedAt": la actividad no es una edición del usuario ni cambia su ETag.
+     * Las filas van ordenadas por id para que dos nodos con lotes solapados bloqueen en el mismo orden y no
+     * se traben entre sí (un lote fallido vuelve al mapa y se reintenta junto con el siguiente).
+     * @return cantidad de usuarios actualizados.
+     */
+    @Transactional
+    public int applyBatch(List<UserActivity> batch) {
+        if (batch.isEmpty()) return 0;
+        List<UserActivity> ordered = batch.stream().sorted(Comparator.comparing(UserActivity::userId)).toList();
+
+        StringBuilder sql = new StringBuilder(200 + batch.size() * 48)
+            .append("UPDATE users AS u SET ")
+            .append("last_login_at = GREATEST(u.last_login_at, v.last_login_at), ")
+            .append("last_seen_at = GREATEST(u.last_seen_at, v.last_seen_at), ")
+            .append("login_count = u.login_count + v.logins ")
+            .append("FROM (VALUES ");
+        for (int i = 0; i < ordered.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?::uuid, ?::timestamptz, ?::timestamptz, ?::int)");
+        }
+        sql.append(") AS v(id, last_login_at, last_seen_at, logins) WHERE u.id = v.id");
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (UserActivity activity : ordered) {
+                statement.setObject(index++, activity.userId());
+                statement.setObject(index++, toOffset(activity.lastLoginAt()), Types.TIMESTAMP_WITH_TIMEZONE);
+                statement.setObject(index++, toOffset(activity.lastSeenAt()), Types.TIMESTAMP_WITH_TIMEZONE);
+                statement.setInt(index++, activity.logins());
+            }
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Registrar la actividad de usuarios", sql.toString(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private OffsetDateTime toOffset(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+}
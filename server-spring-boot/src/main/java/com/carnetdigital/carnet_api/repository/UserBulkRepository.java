@@ -0,0 +1,111 @@
+package com.carnetdigital.carnet_api.repository;
+
+import com.carnetdigital.carnet_api.dto.UserBulkActionRequest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Operaciones administrativas masivas sobre users como UPDATE set-based.
+ * Cada llamada ejecuta un único statement que actualiza un lote acotado de usuarios
+ * y, si corresponde, revoca sus tokens en el mismo statement (CTE con RETURNING).
+ */
+@Repository
+public class UserBulkRepository {
+
+    public enum BulkAction {
+        activate, deactivate, delete, restore
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public record ChunkResult(long affectedUsers, long revokedTokens) {
+    }
+
+    /**
+     * Actualiza como máximo {@code limit} usuarios que cumplan el filtro y todavía no estén en el estado destino.
+     * Al excluir los que ya cambiaron, llamadas sucesivas avanzan hasta devolver menos de {@code limit}.
+     */
+    @Transactional
+    public ChunkResult updateChunk(BulkAction action, UserBulkActionRequest filter, List<UUID> ids, int limit) {
+        List<String> conditions = new ArrayList<>();
+        conditions.add(pendingCondition(action));
+
+        // Los enums se incrustan como literales para que PostgreSQL los resuelva al tipo ENUM de la columna
+        if (filter.getRole() != null) {
+            conditions.add("role = '" + filter.getRole().name() + "'");
+        }
+        if (filter.getStatus() != null) {
+            conditions.add("status = '" + filter.getStatus().name() + "'");
+        }
+        if (filter.getCreatedFrom() != null) {
+            conditions.add("\"createdAt\" >= :createdFrom");
+        }
+        if (filter.getCreatedTo() != null) {
+            conditions.add("\"createdAt\" < :createdTo");
+        }
+        if (ids != null) {
+            conditions.add("id IN (:ids)");
+        }
+
+        StringBuilder sql = new StringBuilder()
+            .append("WITH affected AS (")
+            .append("UPDATE users SET ").append(setClause(action))
+            .append(" WHERE id IN (SELECT id FROM users WHERE ").append(String.join(" AND ", conditions))
+            .append(" LIMIT :limit) RETURNING id)");
+
+        if (revokesTokens(action)) {
+            sql.append(", revoked AS (")
+                .append("UPDATE tokens SET used = true, \"updatedAt\" = NOW() FROM affected ")
+                .append("WHERE tokens.user_fk = affected.id AND tokens.used = false RETURNING tokens.id)")
+                .append(" SELECT (SELECT COUNT(*) FROM affected), (SELECT COUNT(*) FROM revoked)");
+        } else {
+            sql.append(" SELECT (SELECT COUNT(*) FROM affected), 0");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        query.setParameter("limit", limit);
+        if (filter.getCreatedFrom() != null) {
+            query.setParameter("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            query.setParameter("createdTo", filter.getCreatedTo());
+        }
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+
+        Object[] counts = (Object[]) query.getSingleResult();
+        return new ChunkResult(((Number) counts[0]).longValue(), ((Number) counts[1]).longValue());
+    }
+
+    private String setClause(BulkAction action) {
+        return switch (action) {
+            case activate -> "active = true, status = 'active', version = version + 1, \"updatedAt\" = NOW()";
+            case deactivate -> "active = false, status = 'inactive', version = version + 1, security_stamp = security_stamp + 1, \"updatedAt\" = NOW()";
+            case delete -> "\"deletedAt\" = NOW(), version = version + 1, security_stamp = security_stamp + 1";
+            case restore -> "\"deletedAt\" = NULL, version = version + 1";
+        };
+    }
+
+    // Filas que todavía no están en el estado destino de la acción
+    private String pendingCondition(BulkAction action) {
+        return switch (action) {
+            case activate -> "\"deletedAt\" IS NULL AND (active = false OR status <> 'active')";
+            case deactivate -> "\"deletedAt\" IS NULL AND (active = true OR status <> 'inactive')";
+            case delete -> "\"deletedAt\" IS NULL";
+            case restore -> "\"deletedAt\" IS NOT NULL";
+        };
+    }
+
+    private boolean revokesTokens(BulkAction action) {
+        return action == BulkAction.deactivate || action == BulkAction.delete;
+    }
+}
@@ -0,0 +1,114 @@
+package com.carnetdigital.carnet_api.repository;
+
+import com.carnetdigital.carnet_api.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Acceso JDBC directo a la tabla users para operaciones masivas que no
+ * conviene pasar por Hibernate (COPY de PostgreSQL).
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserCopyRepository {
+
+    private static final String COPY_IN_SQL =
+        "COPY users (id, first_name, last_name, email, password, role, status, active, version, \"createdAt\", \"updatedAt\") " +
+        "FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+
+    /**
+     * Inserta los usuarios con un único COPY FROM STDIN dentro de la transacción actual.
+     * Los usuarios deben traer id, password ya hasheada y timestamps asignados.
+     * @return cantidad de filas insertadas.
+     */
+    @Transactional
+    public long copyIn(List<User> users) {
+        if (users.isEmpty()) return 0;
+
+        // Se usa la conexión enlazada a la transacción de Spring para que el COPY haga commit/rollback con ella
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IN_SQL);
+            try {
+                StringBuilder row = new StringBuilder(256);
+                for (User user : users) {
+                    row.setLength(0);
+                    appendCsvRow(row, user);
+                    byte[] bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Importar usuarios con COPY", COPY_IN_SQL, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Ejecuta un COPY (SELECT ...) TO STDOUT y escribe el resultado directamente en la salida,
+     * sin hidratar entidades ni acumular filas en memoria.
+     * @return cantidad de filas exportadas.
+     */
+    @Transactional(readOnly = true)
+    public long copyOut(String copySql, OutputStream out) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, out);
+        } catch (SQLException e) {
+            throw new UncategorizedSQLException("Exportar usuarios con COPY", copySql, e);
+        } catch (IOException e) {
+            // El cliente cortó la descarga
+            throw new UncheckedIOException("Error al escribir la exportación: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private void appendCsvRow(StringBuilder row, User user) {
+        appendCsvValue(row, user.getId().toString()).append(',');
+        appendCsvValue(row, user.getFirstName()).append(',');
+        appendCsvValue(row, user.getLastName()).append(',');
+        appendCsvValue(row, user.getEmail()).append(',');
+        appendCsvValue(row, user.getPassword()).append(',');
+        appendCsvValue(row, user.getRole().name()).append(',');
+        appendCsvValue(row, user.getStatus().name()).append(',');
+        appendCsvValue(row, user.getActive().toString()).append(',');
+        appendCsvValue(row, user.getVersion().toString()).append(',');
+        appendCsvValue(row, user.getCreatedAt().toString()).append(',');
+        appendCsvValue(row, user.getUpdatedAt().toString()).append('\n');
+    }
+
+    // En formato CSV de COPY un campo vacío sin comillas es NULL; los valores siempre van entre comillas
+    private StringBuilder appendCsvValue(StringBuilder row, String value) {
+        if (value == null) return row;
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') row.append('"');
+            row.append(c);
+        }
+        return row.append('"');
+    }
+}
@@ -1,26 +1,36 @@
 package com.carnetdigital.carnet_api.repository;
 
+import com.carnetdigital.carnet_api.dto.UserVersion;
 import com.carnetdigital.carnet_api.entity.User;
 import com.carnetdigital.carnet_api.entity.User.UserRole;
 import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     
     // ==================== BASIC QUERIES (excluyen eliminados automáticamente) ====================
-    Optional<User> findByEmail(String email);
-    boolean existsByEmail(String email);
+    // El email se compara sin distinguir mayúsculas: lower(email) usa el índice único idx_users_email_lower
+    @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    boolean existsByEmail(@Param("email") String email);
     
     // ==================== CON PAGINACIÓN ====================
     Page<User> findByRole(UserRole role, Pageable pageable);
@@ -47,6 +57,15 @@ public interface UserRepository extends JpaRepository<User, UUID> {
            "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :name, '%'))")
     List<User> searchByName(@Param("name") String name);
     
+    // ==================== VERSIONES (ETag) ====================
+    
+    // Solo id, versión y fecha de actualización: suficiente para responder 304 sin hidratar la entidad
+    @Query("SELECT new com.carnetdigital.carnet_api.dto.UserVersion(u.id, u.version, u.updatedAt) FROM User u WHERE u.id = :id")
+    Optional<UserVersion> findVersionById(@Param("id") UUID id);
+    
+    @Query("SELECT new com.carnetdigital.carnet_api.dto.UserVersion(u.id, u.version, u.updatedAt) FROM User u WHERE LOWER(u.email) = LOWER(:email)")
+    Optional<UserVersion> findVersionByEmail(@Param("email") String email);
+    
     // ==================== QUERIES QUE INCLUYEN ELIMINADOS ====================
     
     // Obtener por ID incluyendo eliminados
@@ -59,15 +78,33 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     
     @Query("SELECT u FROM User u")
     Page<User> findAllIncludingDeleted(Pageable pageable);
+
+    // ==================== STREAMING (listados escritos con StreamingApiResponse) ====================
+    // Cursor de PostgreSQL en lotes de 500 filas; requiere transacción abierta mientras se consume
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u FROM User u")
+    Stream<User> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u FROM User u")
+    Stream<User> streamAllIncludingDeleted(Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u")
+    long countAllIncludingDeleted();
     
     // Buscar por email incluyendo eliminados
-    @Query("SELECT u FROM User u WHERE u.email = :email")
+    @Query("SELECT u FROM User u WHERE LOWER(u.email) = LOWER(:email)")
     Optional<User> findByEmailIncludingDeleted(@Param("email") String email);
     
     // Verificar si email existe incluyendo eliminados
-    @Query("SELECT COUNT(u) > 0 FROM User u WHERE u.email = :email")
+    @Query("SELECT COUNT(u) > 0 FROM User u WHERE LOWER(u.email) = LOWER(:email)")
     boolean existsByEmailIncludingDeleted(@Param("email") String email);
     
+    // Emails ya registrados (incluye eliminados) de un lote, en una sola consulta; recibe y devuelve lower(email)
+    @Query(value = "SELECT lower(email) FROM users WHERE lower(email) IN (:emails)", nativeQuery = true)
+    List<String> findExistingEmailsIncludingDeleted(@Param("emails") Collection<String> emails);
+    
     // Buscar por rol incluyendo eliminados
     @Query("SELECT u FROM User u WHERE u.role = :role")
     List<User> findByRoleIncludingDeleted(@Param("role") UserRole role);
@@ -0,0 +1,47 @@
+package com.carnetdigital.carnet_api.repository;
+
+import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtros reutilizables sobre User para consultas construidas con Criteria
+ * (mismas condiciones que los métodos derivados de UserRepository).
+ */
+public class UserSpecifications {
+
+    public static Specification<User> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<User> hasRole(UserRole role) {
+        return (root, query, cb) -> cb.equal(root.get("role"), role);
+    }
+
+    public static Specification<User> hasStatus(UserStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<User> isActive() {
+        return (root, query, cb) -> cb.isTrue(root.get("active"));
+    }
+
+    // Igual que UserRepository.searchByName: nombre o apellido (y email si includeEmail)
+    public static Specification<User> nameContains(String search, boolean includeEmail) {
+        return (root, query, cb) -> {
+            String pattern = "%" + search.toLowerCase() + "%";
+            if (includeEmail) {
+                return cb.or(
+                    cb.like(cb.lower(root.get("firstName")), pattern),
+                    cb.like(cb.lower(root.get("lastName")), pattern),
+                    cb.like(cb.lower(root.get("email")), pattern)
+                );
+            }
+            return cb.or(
+                cb.like(cb.lower(root.get("firstName")), pattern),
+                cb.like(cb.lower(root.get("lastName")), pattern)
+            );
+        };
+    }
+}
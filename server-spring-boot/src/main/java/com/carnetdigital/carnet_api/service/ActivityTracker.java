@@ -0,0 +1,144 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.repository.UserActivityRepository;
+import com.carnetdigital.carnet_api.repository.UserActivityRepository.UserActivity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actividad de los usuarios (último login, última vez visto, cantidad de logins) con escritura diferida.
+ *
+ * /login, /refresh y /me solo actualizan un mapa en memoria con una entrada por usuario (gana la marca más
+ * reciente y los logins se suman). Cada activity.flush-interval-ms el mapa se vacía en la base con un
+ * UPDATE ... FROM (VALUES ...) por cada activity.batch-size usuarios, y una vez más al apagar.
+ * Si el proceso muere se pierde como máximo la actividad de un intervalo; si un lote falla vuelve al mapa.
+ */
+@Slf4j
+@Service
+public class ActivityTracker implements SmartLifecycle {
+
+    // lastLoginAt/lastSeenAt null = sin dato en esta ventana
+    private record Activity(Instant lastLoginAt, Instant lastSeenAt, int logins) {
+
+        Activity merge(Activity other) {
+            return new Activity(latest(lastLoginAt, other.lastLoginAt), latest(lastSeenAt, other.lastSeenAt),
+                logins + other.logins);
+        }
+
+        private static Instant latest(Instant a, Instant b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            return a.isAfter(b) ? a : b;
+        }
+    }
+
+    private final UserActivityRepository userActivityRepository;
+    private final MeterRegistry meterRegistry;
+    private final Timer flushTimer;
+    private final Map<UUID, Activity> pending = new ConcurrentHashMap<>();
+
+    @Value("${activity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${activity.batch-size:1000}")
+    private int batchSize;
+
+    private volatile boolean running;
+
+    public ActivityTracker(UserActivityRepository userActivityRepository, MeterRegistry meterRegistry) {
+        this.userActivityRepository = userActivityRepository;
+        this.meterRegistry = meterRegistry;
+        this.flushTimer = Timer.builder("activity.flush").register(meterRegistry);
+        Gauge.builder("activity.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public void recordLogin(UUID userId) {
+        if (!enabled) return;
+        Instant now = Instant.now();
+        pending.merge(userId, new Activity(now, now, 1), Activity::merge);
+    }
+
+    public void recordSeen(UUID userId) {
+        if (!enabled) return;
+        pending.merge(userId, new Activity(null, Instant.now(), 0), Activity::merge);
+    }
+
+    /**
+     * Escribe y descarta lo acumulado. Cada entrada se saca del mapa de forma atómica: la actividad que llega
+     * durante el flush crea una entrada nueva y sale en el siguiente.
+     * @return cantidad de usuarios actualizados.
+     */
+    @Scheduled(initialDelayString = "${activity.flush-interval-ms:10000}", fixedDelayString = "${activity.flush-interval-ms:10000}")
+    public int flush() {
+        if (pending.isEmpty()) return 0;
+
+        List<UserActivity> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        int updated = 0;
+        for (UUID userId : pending.keySet()) {
+            Activity activity = pending.remove(userId);
+            if (activity == null) continue;
+            batch.add(new UserActivity(userId, activity.lastLoginAt(), activity.lastSeenAt(), activity.logins()));
+            if (batch.size() == batchSize) {
+                updated += write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        return updated + write(batch);
+    }
+
+    private int write(List<UserActivity> batch) {
+        if (batch.isEmpty()) return 0;
+        long start = System.nanoTime();
+        try {
+            int updated = userActivityRepository.applyBatch(batch);
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.counter("activity.flushed", "outcome", "success").increment(batch.size());
+            return updated;
+        } catch (RuntimeException e) {
+            // Vuelve al mapa combinada con lo que haya llegado mientras tanto; se reintenta en el siguiente flush
+            log.warn("No se pudo escribir la actividad de {} usuarios: {}", batch.size(), e.getMessage());
+            meterRegistry.counter("activity.flushed", "outcome", "failure").increment(batch.size());
+            for (UserActivity activity : batch) {
+                pending.merge(activity.userId(),
+                    new Activity(activity.lastLoginAt(), activity.lastSeenAt(), activity.logins()), Activity::merge);
+            }
+            return 0;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    // Último flush al apagar, después de que el servidor web dejó de atender peticiones
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
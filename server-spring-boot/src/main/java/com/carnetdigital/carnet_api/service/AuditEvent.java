@@ -0,0 +1,20 @@
+package com.carnetdigital.carnet_api.service;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Evento de la bitácora de auditoría (tabla audit_events). occurredAt se toma al publicarlo;
+ * userId y email pueden faltar (login con un correo que no existe, borrado físico).
+ */
+public record AuditEvent(Instant occurredAt, Type type, UUID userId, String email, String detail) {
+
+    public enum Type {
+        login_success, login_failure, token_refresh, role_change, user_delete, user_bulk_delete, user_hard_delete,
+        password_reset, email_verified
+    }
+
+    public static AuditEvent of(Type type, UUID userId, String email, String detail) {
+        return new AuditEvent(Instant.now(), type, userId, email, detail);
+    }
+}
@@ -0,0 +1,237 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.helpers.RingBuffer;
+import com.carnetdigital.carnet_api.repository.AuditEventRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bitácora de auditoría asíncrona.
+ *
+ * Los hilos de las peticiones publican en un RingBuffer acotado (sin locks) y vuelven de inmediato;
+ * el hilo audit-writer junta hasta audit.batch-size eventos, o lo que haya cada audit.flush-interval,
+ * y los escribe con un solo COPY. Con el buffer lleno se aplica audit.overflow-policy. Al apagar, el
+ * servidor web deja de recibir peticiones primero y después este componente vacía el buffer.
+ */
+@Slf4j
+@Service
+public class AuditService implements SmartLifecycle {
+
+    public enum OverflowPolicy {
+        drop_newest,  // Se descarta el evento nuevo: el hilo de la petición nunca espera
+        drop_oldest,  // Se descarta el más viejo del buffer para hacer lugar
+        caller_runs   // El hilo de la petición escribe el evento él mismo (sin pérdida, con la latencia del INSERT)
+    }
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final AuditEventRepository auditEventRepository;
+    private final MeterRegistry meterRegistry;
+    private final RingBuffer<AuditEvent> buffer;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration shutdownTimeout;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    public AuditService(AuditEventRepository auditEventRepository, MeterRegistry meterRegistry,
+                        @Value("${audit.enabled:true}") boolean enabled,
+                        @Value("${audit.buffer-capacity:8192}") int bufferCapacity,
+                        @Value("${audit.batch-size:500}") int batchSize,
+                        @Value("${audit.flush-interval:200ms}") Duration flushInterval,
+                        @Value("${audit.overflow-policy:drop_newest}") OverflowPolicy overflowPolicy,
+                        @Value("${audit.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.auditEventRepository = auditEventRepository;
+        this.meterRegistry = meterRegistry;
+        this.buffer = new RingBuffer<>(bufferCapacity);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.shutdownTimeout = shutdownTimeout;
+        this.flushTimer = Timer.builder("audit.flush").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("audit.batch.size").register(meterRegistry);
+        Gauge.builder("audit.buffer.size", buffer, RingBuffer::size).register(meterRegistry);
+    }
+
+    public void record(AuditEvent.Type type, UUID userId, String email, String detail) {
+        if (!enabled) return;
+        AuditEvent event = AuditEvent.of(type, userId, email, detail);
+        // Dentro de una transacción el evento sale solo si confirma: un borrado revertido no queda auditado
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    private void publish(AuditEvent event) {
+        if (!buffer.offer(event) && !overflow(event)) {
+            return;
+        }
+        count("published", 1);
+        // Lote completo: despertar al escritor sin esperar al siguiente flush-interval
+        Thread current = writer;
+        if (current != null && buffer.size() >= batchSize) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    // true si el evento terminó en el buffer; en cualquier otro caso ya quedó contado
+    private boolean overflow(AuditEvent event) {
+        switch (overflowPolicy) {
+            case drop_oldest -> {
+                for (int attempt = 0; attempt < 8; attempt++) {
+                    if (buffer.poll() != null) {
+                        count("dropped", 1);
+                    }
+                    if (buffer.offer(event)) {
+                        return true;
+                    }
+                }
+                count("dropped", 1);
+            }
+            case caller_runs -> {
+                count("caller_runs", 1);
+                write(List.of(event));
+            }
+            default -> count("dropped", 1);
+        }
+        return false;
+    }
+
+    private void runWriter() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            if (running && buffer.size() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            batch.clear();
+            buffer.drainTo(batch, batchSize);
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        }
+    }
+
+    // Un lote que falla se reintenta; si sigue fallando se descarta para no frenar a los siguientes.
+    // Si lo rechazó una fila inválida, reintentar el lote igual no sirve: se escribe fila por fila
+    private void write(List<AuditEvent> batch) {
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                auditEventRepository.copyIn(batch);
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                batchSizes.record(batch.size());
+                count("written", batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (batch.size() > 1 && isRejectedRow(e)) {
+                    writeEach(batch);
+                    return;
+                }
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    log.error("Se descartan {} eventos de auditoría: {}", batch.size(), e.getMessage());
+                    count("failed", batch.size());
+                    return;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos * attempt);
+            }
+        }
+    }
+
+    // Cada fila en su propio COPY (y su transacción): solo se descartan las que la base rechaza.
+    // Un error que no es de la fila (p. ej. la base cayó) devuelve el resto al camino con reintentos
+    private void writeEach(List<AuditEvent> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            AuditEvent event = batch.get(i);
+            try {
+                auditEventRepository.copyIn(List.of(event));
+                count("written", 1);
+            } catch (RuntimeException e) {
+                if (!isRejectedRow(e)) {
+                    write(batch.subList(i, batch.size()));
+                    return;
+                }
+                log.warn("Se descarta un evento de auditoría {} rechazado por la base: {}", event.type(), e.getMessage());
+                count("failed", 1);
+            }
+        }
+    }
+
+    // SQLSTATE clase 22 (dato inválido, p. ej. más largo que la columna) o 23 (restricción): falla por la fila
+    private static boolean isRejectedRow(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                && (sql.getSQLState().startsWith("22") || sql.getSQLState().startsWith("23"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Eventos por resultado (audit.events{outcome=published|dropped|caller_runs|written|failed})
+    private void count(String outcome, int events) {
+        meterRegistry.counter("audit.events", "outcome", outcome).increment(events);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) return;
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("audit-writer").start(this::runWriter);
+    }
+
+    @Override
+    public void stop() {
+        Thread current = writer;
+        if (current == null) return;
+        running = false;
+        LockSupport.unpark(current);
+        try {
+            if (!current.join(shutdownTimeout)) {
+                log.warn("audit-writer no terminó en {}; quedan {} eventos sin escribir", shutdownTimeout, buffer.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Fase menor que la del servidor web: se detiene después de que este deja de atender peticiones
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
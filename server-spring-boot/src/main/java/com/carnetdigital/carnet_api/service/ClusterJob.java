@@ -0,0 +1,17 @@
+package com.carnetdigital.carnet_api.service;
+
+import org.springframework.scheduling.support.CronExpression;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Job programado que JobScheduler ejecuta en un solo nodo del clúster.
+ * task devuelve las filas afectadas, que quedan registradas en scheduled_jobs.last_rows.
+ */
+public record ClusterJob(String name, String cron, LongSupplier task) {
+
+    public ClusterJob {
+        // Falla al arrancar, no en la primera revisión
+        CronExpression.parse(cron);
+    }
+}
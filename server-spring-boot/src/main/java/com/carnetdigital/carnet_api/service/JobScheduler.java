@@ -0,0 +1,166 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.exception.ConflictException;
+import com.carnetdigital.carnet_api.exception.NotFoundException;
+import com.carnetdigital.carnet_api.repository.ScheduledJobRepository;
+import com.carnetdigital.carnet_api.repository.ScheduledJobRepository.JobState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Ejecuta cada ClusterJob en un solo nodo del clúster.
+ *
+ * Cada nodo revisa los jobs cada jobs.poll-interval-ms. Por job abre una transacción, intenta
+ * pg_try_advisory_xact_lock y, si lo obtiene y next_run_at ya venció, corre la tarea en esa misma
+ * transacción y adelanta next_run_at al siguiente disparo del cron. Los otros nodos no obtienen el lock
+ * o, si lo obtienen después del commit, ya ven next_run_at adelantado: cada disparo corre una sola vez.
+ * Si el nodo que ejecuta muere, PostgreSQL cierra su sesión, revierte la transacción y libera el lock;
+ * next_run_at sigue vencido y otro nodo lo toma en su siguiente revisión.
+ */
+@Slf4j
+@Service
+public class JobScheduler {
+
+    public enum Outcome {
+        success, failed, not_due, locked
+    }
+
+    private final Map<String, ClusterJob> jobs = new LinkedHashMap<>();
+    private final ScheduledJobRepository scheduledJobRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jobs.enabled:true}")
+    private boolean enabled;
+
+    // Identifica al nodo en scheduled_jobs.last_node; por defecto pid@host
+    @Value("${jobs.node-id:}")
+    private String nodeId;
+
+    public JobScheduler(List<ClusterJob> jobs, ScheduledJobRepository scheduledJobRepository,
+                        PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        jobs.forEach(job -> this.jobs.put(job.name(), job));
+        this.scheduledJobRepository = scheduledJobRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Hilo propio (SchedulingConfig): un job largo no demora las demás tareas @Scheduled
+    @Scheduled(initialDelayString = "${jobs.poll-interval-ms:15000}", fixedDelayString = "${jobs.poll-interval-ms:15000}",
+        scheduler = "jobsScheduler")
+    public void poll() {
+        if (!enabled) return;
+        for (ClusterJob job : jobs.values()) {
+            runIfDue(job);
+        }
+    }
+
+    public Outcome runIfDue(ClusterJob job) {
+        return execute(job, false);
+    }
+
+    // Disparo manual (endpoint de administración): ignora next_run_at, pero nunca en paralelo con otro nodo
+    public Outcome runNow(String name) {
+        ClusterJob job = jobs.get(name);
+        if (job == null) {
+            throw new NotFoundException("Job no encontrado: " + name);
+        }
+        Outcome outcome = execute(job, true);
+        if (outcome == Outcome.locked) {
+            throw new ConflictException("El job " + name + " ya se está ejecutando en otro nodo");
+        }
+        return outcome;
+    }
+
+    private Outcome execute(ClusterJob job, boolean force) {
+        long start = System.nanoTime();
+        // Se fija al empezar la tarea: si sigue en null la falla fue del lock o del estado, no del job
+        AtomicReference<JobState> running = new AtomicReference<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                if (!scheduledJobRepository.tryLock(job.name())) {
+                    return Outcome.locked;
+                }
+                JobState state = scheduledJobRepository.findState(job.name());
+                Instant next = nextRun(job, state.now());
+                if (!job.cron().equals(state.cron())) {
+                    // Job nuevo o con cron cambiado: se agenda desde ahora
+                    scheduledJobRepository.schedule(job.name(), job.cron(), next);
+                    if (!force) return Outcome.not_due;
+                } else if (!force && state.nextRunAt().isAfter(state.now())) {
+                    return Outcome.not_due;
+                }
+
+                running.set(state);
+                long rows = job.task().getAsLong();
+                long durationMs = elapsedMs(start);
+                scheduledJobRepository.recordSuccess(job.name(), state.now(), durationMs, rows, nodeId(), next);
+                record(job, Outcome.success, start);
+                log.info("Job {}: {} filas en {} ms", job.name(), rows, durationMs);
+                return Outcome.success;
+            });
+        } catch (RuntimeException e) {
+            JobState state = running.get();
+            if (state == null) {
+                log.warn("Job {}: no se pudo revisar: {}", job.name(), e.getMessage());
+                return Outcome.failed;
+            }
+            record(job, Outcome.failed, start);
+            recordFailure(job, state, elapsedMs(start), e);
+            return Outcome.failed;
+        }
+    }
+
+    // La transacción del job ya se revirtió; la falla se registra aparte y el job pasa al siguiente disparo
+    private void recordFailure(ClusterJob job, JobState state, long durationMs, RuntimeException failure) {
+        log.error("Job {}: falló después de {} ms: {}", job.name(), durationMs, failure.getMessage(), failure);
+        if (state.nextRunAt() == null) {
+            // Disparo manual de un job que aún no estaba registrado: su registro se revirtió con la falla
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> scheduledJobRepository.recordFailure(job.name(),
+                state.now(), durationMs, failure.getMessage(), nodeId(), state.nextRunAt(), nextRun(job, state.now())));
+        } catch (RuntimeException e) {
+            log.warn("Job {}: no se pudo registrar la falla: {}", job.name(), e.getMessage());
+        }
+    }
+
+    private Instant nextRun(ClusterJob job, Instant now) {
+        return CronExpression.parse(job.cron())
+            .next(now.atZone(ZoneId.systemDefault()))
+            .toInstant();
+    }
+
+    private void record(ClusterJob job, Outcome outcome, long start) {
+        Timer.builder("jobs.run")
+            .tag("job", job.name())
+            .tag("outcome", outcome.name())
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private String nodeId() {
+        return nodeId == null || nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+}
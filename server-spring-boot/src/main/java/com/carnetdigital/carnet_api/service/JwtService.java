@@ -1,9 +1,13 @@
 package com.carnetdigital.carnet_api.service;
 
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -12,11 +16,18 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
+    // auth.jwt{operation, outcome}: se registran una vez y se reutilizan en cada firma/verificación
+    private final Timer signSuccessTimer;
+    private final Timer signFailureTimer;
+    private final Timer verifySuccessTimer;
+    private final Timer verifyFailureTimer;
+
     @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatIsLongEnough12345}")
     private String SECRET_KEY;
 
@@ -26,21 +37,38 @@ public class JwtService {
     @Value("${jwt.refresh-token-expiration:604800000}") // 7 días
     private long refreshTokenExpiration;
 
-    // Generar Access Token
-    public String generateAccessToken(String email, UUID userId, String role) {
+    public JwtService(MeterRegistry meterRegistry) {
+        this.signSuccessTimer = jwtTimer(meterRegistry, "sign", "success");
+        this.signFailureTimer = jwtTimer(meterRegistry, "sign", "failure");
+        this.verifySuccessTimer = jwtTimer(meterRegistry, "verify", "success");
+        this.verifyFailureTimer = jwtTimer(meterRegistry, "verify", "failure");
+    }
+
+    private static Timer jwtTimer(MeterRegistry meterRegistry, String operation, String outcome) {
+        return Timer.builder("auth.jwt")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    // Generar Access Token; stamp = sello de seguridad vigente del usuario (users.security_stamp)
+    public String generateAccessToken(String email, UUID userId, String role, int stamp) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId.toString());
         claims.put("role", role);
         claims.put("tokenType", "access");
+        claims.put("stamp", stamp);
         
         return createToken(claims, email, accessTokenExpiration);
     }
 
     // Generar Refresh Token
-    public String generateRefreshToken(String email, UUID userId) {
+    public String generateRefreshToken(String email, UUID userId, int stamp) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId.toString());
         claims.put("tokenType", "refresh");
+        claims.put("stamp", stamp);
         
         return createToken(claims, email, refreshTokenExpiration);
     }
@@ -50,13 +78,21 @@ public class JwtService {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
-        return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        long start = System.nanoTime();
+        boolean signed = false;
+        try {
+            String token = Jwts.builder()
+                    .setClaims(claims)
+                    .setSubject(subject)
+                    .setIssuedAt(now)
+                    .setExpiration(expiryDate)
+                    .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                    .compact();
+            signed = true;
+            return token;
+        } finally {
+            recordJwt(signed ? signSuccessTimer : signFailureTimer, System.nanoTime() - start);
+        }
     }
 
     // Obtener la clave de firma
@@ -71,8 +107,11 @@ public class JwtService {
 
     // Extraer userId del token
     public UUID extractUserId(String token) {
-        String userIdStr = extractClaim(token, claims -> claims.get("userId", String.class));
-        return UUID.fromString(userIdStr);
+        return extractUserId(extractAllClaims(token));
+    }
+
+    public UUID extractUserId(Claims claims) {
+        return UUID.fromString(claims.get("userId", String.class));
     }
 
     // Extraer rol del token
@@ -96,13 +135,49 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    // Verifica firma y expiración una sola vez; los claims se leen después sin volver a parsear
+    public Claims parse(String token) {
+        return extractAllClaims(token);
+    }
+
+    // userId de un header "Bearer <access token>" con firma y expiración válidas; null si no hay o no es válido
+    public UUID authenticatedUserId(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) return null;
+        try {
+            Claims claims = parse(authorization.substring(7));
+            return isAccessToken(claims) ? extractUserId(claims) : null;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Sello del token; los emitidos antes de existir el claim equivalen al sello inicial (0)
+    public static int extractStamp(Claims claims) {
+        Integer stamp = claims.get("stamp", Integer.class);
+        return stamp != null ? stamp : 0;
+    }
+
     // Extraer todos los claims
+    // Parseo + verificación de firma, medido por resultado (auth.jwt{operation=verify})
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        long start = System.nanoTime();
+        boolean verified = false;
+        try {
+            Claims claims = Jwts.parser()
+                    .setSigningKey(getSigningKey())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+            verified = true;
+            return claims;
+        } finally {
+            recordJwt(verified ? verifySuccessTimer : verifyFailureTimer, System.nanoTime() - start);
+        }
+    }
+
+    private void recordJwt(Timer timer, long elapsedNanos) {
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        RequestTimings.add(RequestTimings.Phase.JWT, elapsedNanos);
     }
 
     // Verificar si el token ha expirado
@@ -118,13 +193,19 @@ public class JwtService {
 
     // Validar que sea un access token
     public boolean isAccessToken(String token) {
-        String tokenType = extractTokenType(token);
-        return "access".equals(tokenType);
+        return isAccessToken(extractAllClaims(token));
+    }
+
+    public boolean isAccessToken(Claims claims) {
+        return "access".equals(claims.get("tokenType", String.class));
     }
 
     // Validar que sea un refresh token
     public boolean isRefreshToken(String token) {
-        String tokenType = extractTokenType(token);
-        return "refresh".equals(tokenType);
+        return isRefreshToken(extractAllClaims(token));
+    }
+
+    public boolean isRefreshToken(Claims claims) {
+        return "refresh".equals(claims.get("tokenType", String.class));
     }
 }
\ No newline at end of file
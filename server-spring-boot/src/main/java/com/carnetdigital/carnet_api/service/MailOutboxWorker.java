@@ -0,0 +1,165 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.repository.MailOutboxRepository;
+import com.carnetdigital.carnet_api.repository.MailOutboxRepository.OutboxMail;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vacía mail_outbox hacia el servidor SMTP. Ninguna petición espera al SMTP: solo insertan en el outbox.
+ *
+ * Cada mail.outbox.poll-interval-ms toma lotes de mail.outbox.batch-size (SKIP LOCKED, varios nodos pueden
+ * correrlo a la vez) y envía cada lote por una sola conexión SMTP. Un correo que falla se reintenta con
+ * espera exponencial (mail.outbox.backoff, 2x, 4x, ... hasta mail.outbox.max-backoff) y tras
+ * mail.outbox.max-attempts intentos queda en status 'failed'.
+ */
+@Slf4j
+@Service
+public class MailOutboxWorker {
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final ObjectProvider<JavaMailSender> mailSender;
+    private final MeterRegistry meterRegistry;
+    private final Timer sendTimer;
+
+    @Value("${mail.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff:30s}")
+    private Duration backoff;
+
+    @Value("${mail.outbox.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    @Value("${mail.outbox.lease:5m}")
+    private Duration lease;
+
+    @Value("${mail.from:no-reply@carnetdigital.local}")
+    private String from;
+
+    public MailOutboxWorker(MailOutboxRepository mailOutboxRepository, ObjectProvider<JavaMailSender> mailSender,
+                            MeterRegistry meterRegistry) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailSender = mailSender;
+        this.meterRegistry = meterRegistry;
+        this.sendTimer = Timer.builder("mail.outbox.send").register(meterRegistry);
+    }
+
+    /**
+     * Envía todo lo vencido, lote por lote. Los correos que fallan quedan reprogramados en el futuro,
+     * así que el ciclo termina aunque el servidor SMTP esté caído. Corre en su propio hilo (SchedulingConfig):
+     * los envíos bloquean hasta que responde el SMTP y no deben demorar las demás tareas @Scheduled.
+     * @return cantidad de correos enviados.
+     */
+    @Scheduled(initialDelayString = "${mail.outbox.poll-interval-ms:2000}", fixedDelayString = "${mail.outbox.poll-interval-ms:2000}",
+        scheduler = "mailOutboxScheduler")
+    public int drain() {
+        JavaMailSender sender = mailSender.getIfAvailable();
+        if (!enabled || sender == null) return 0;
+
+        int sent = 0;
+        List<OutboxMail> batch;
+        do {
+            batch = mailOutboxRepository.claim(batchSize, lease);
+            if (!batch.isEmpty()) {
+                sent += send(sender, batch);
+            }
+        } while (batch.size() == batchSize);
+        return sent;
+    }
+
+    private int send(JavaMailSender sender, List<OutboxMail> batch) {
+        Map<SimpleMailMessage, OutboxMail> messages = new IdentityHashMap<>(batch.size());
+        for (OutboxMail mail : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(mail.recipient());
+            message.setSubject(mail.subject());
+            message.setText(mail.text());
+            messages.put(message, mail);
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        long start = System.nanoTime();
+        try {
+            sender.send(messages.keySet().toArray(SimpleMailMessage[]::new));
+        } catch (MailSendException e) {
+            // Por mensaje; vacío si falló la conexión antes de intentar alguno
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                failures = allFailed(messages, e);
+            }
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (Map.Entry<SimpleMailMessage, OutboxMail> entry : messages.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure == null) {
+                sentIds.add(entry.getValue().id());
+            } else {
+                retryOrFail(entry.getValue(), failure);
+            }
+        }
+        mailOutboxRepository.markSent(sentIds);
+        count("sent", sentIds.size());
+        return sentIds.size();
+    }
+
+    private void retryOrFail(OutboxMail mail, Exception failure) {
+        String error = failure.getMessage() != null ? failure.getMessage() : failure.getClass().getSimpleName();
+        if (mail.attempts() >= maxAttempts) {
+            log.error("Correo {} a {} descartado tras {} intentos: {}", mail.id(), mail.recipient(), mail.attempts(), error);
+            mailOutboxRepository.markFailed(mail.id(), error);
+            count("failed", 1);
+        } else {
+            Duration delay = backoffFor(mail.attempts());
+            log.warn("Correo {} a {} falló (intento {}), se reintenta en {}: {}", mail.id(), mail.recipient(),
+                mail.attempts(), delay, error);
+            mailOutboxRepository.reschedule(mail.id(), error, delay);
+            count("retry", 1);
+        }
+    }
+
+    // backoff * 2^(intentos - 1), con tope en max-backoff
+    Duration backoffFor(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration delay = backoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static Map<Object, Exception> allFailed(Map<SimpleMailMessage, OutboxMail> messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>(messages.size());
+        messages.keySet().forEach(message -> failures.put(message, e));
+        return failures;
+    }
+
+    // Correos por resultado (mail.outbox{outcome=sent|retry|failed})
+    private void count(String outcome, int mails) {
+        meterRegistry.counter("mail.outbox", "outcome", outcome).increment(mails);
+    }
+}
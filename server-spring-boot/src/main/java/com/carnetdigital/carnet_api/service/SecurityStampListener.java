@@ -0,0 +1,118 @@
+package com.carnetdigital.carnet_api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Revocación entre nodos: escucha el canal security_stamp (trigger de V12 sobre users) y descarta de
+ * SecurityStampService la entrada del usuario que cambió en cualquier nodo, al confirmar esa transacción.
+ *
+ * Usa una conexión propia fuera del pool (LISTEN la ocupa mientras la aplicación esté arriba). Si la conexión
+ * se cae se reintenta cada auth.security-stamp.reconnect-delay; al volver a escuchar se descarta toda la caché
+ * porque los avisos de ese intervalo se perdieron. Mientras tanto sigue valiendo auth.security-stamp.ttl.
+ */
+@Slf4j
+@Component
+public class SecurityStampListener implements SmartLifecycle {
+
+    private static final String CHANNEL = "security_stamp";
+    private static final int POLL_MILLIS = 500;
+
+    private final SecurityStampService securityStampService;
+    private final boolean enabled;
+    private final String url;
+    private final Properties connectionProperties = new Properties();
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private volatile Thread listener;
+
+    public SecurityStampListener(SecurityStampService securityStampService,
+                                 @Value("${auth.security-stamp.listen:true}") boolean enabled,
+                                 @Value("${spring.datasource.url}") String url,
+                                 @Value("${spring.datasource.username}") String username,
+                                 @Value("${spring.datasource.password:}") String password,
+                                 @Value("${spring.datasource.hikari.data-source-properties.ssl:false}") String ssl,
+                                 @Value("${auth.security-stamp.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.securityStampService = securityStampService;
+        this.enabled = enabled;
+        this.url = url;
+        this.reconnectDelay = reconnectDelay;
+        connectionProperties.setProperty("user", username);
+        connectionProperties.setProperty("password", password);
+        connectionProperties.setProperty("ssl", ssl);
+        connectionProperties.setProperty("ApplicationName", "carnet-api security-stamp-listener");
+    }
+
+    // true mientras la conexión de LISTEN está activa
+    public boolean isListening() {
+        return listening;
+    }
+
+    private void runListener() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, connectionProperties);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                // Lo que cambió mientras no se escuchaba no llegó como aviso
+                securityStampService.evictAll();
+                listening = true;
+                log.info("Escuchando el canal {} para revocar sellos entre nodos", CHANNEL);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        securityStampService.evictNotified(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Se perdió la escucha de {} ({}); se reintenta en {}", CHANNEL, e.getMessage(), reconnectDelay);
+            } finally {
+                listening = false;
+            }
+            LockSupport.parkNanos(this, reconnectDelay.toNanos());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) return;
+        running = true;
+        listener = Thread.ofPlatform().daemon().name("security-stamp-listener").start(this::runListener);
+    }
+
+    @Override
+    public void stop() {
+        Thread current = listener;
+        if (current == null) return;
+        running = false;
+        LockSupport.unpark(current);
+        try {
+            current.join(Duration.ofMillis(POLL_MILLIS * 4L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        listener = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
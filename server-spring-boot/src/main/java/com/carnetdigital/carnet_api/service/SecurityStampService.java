@@ -0,0 +1,172 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.dto.UserSummaryResponse;
+import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.mapper.UserMapper;
+import com.carnetdigital.carnet_api.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sello de seguridad por usuario (users.security_stamp, claim "stamp" de los JWT).
+ *
+ * Un token sigue siendo válido mientras su sello coincida con el actual del usuario. El sello y un resumen
+ * del usuario se guardan en memoria al primer uso, así refresh y la validación del access token no leen
+ * la base. bump() incrementa el sello dentro de la transacción del cambio y descarta la entrada al commit:
+ * en este nodo la revocación es inmediata; los demás nodos la descartan al recibir el aviso del canal
+ * security_stamp (SecurityStampListener). auth.security-stamp.ttl queda como respaldo si la escucha se cae,
+ * y un token con un sello más nuevo que el guardado fuerza la recarga.
+ *
+ * La caché guarda a lo sumo auth.security-stamp.max-entries usuarios: al pasarse se descartan primero las
+ * entradas vencidas y después cualquiera (solo cuesta una recarga). Cada minuto se barren las vencidas de
+ * usuarios que no volvieron a autenticarse.
+ */
+@Service
+public class SecurityStampService {
+
+    // user null = el usuario no existe o fue borrado: ningún sello es válido
+    private record Entry(int stamp, UserSummaryResponse user, long loadedAt) {
+    }
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // Cambia con cada invalidación: una carga que empezó antes no deja en caché un sello viejo
+    private final AtomicLong generation = new AtomicLong();
+
+    public SecurityStampService(UserRepository userRepository, UserMapper userMapper,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                @Value("${auth.security-stamp.ttl:30s}") Duration ttl,
+                                @Value("${auth.security-stamp.max-entries:100000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Resumen del usuario si el sello del token es el vigente; vacío si el token fue revocado.
+     */
+    public Optional<UserSummaryResponse> currentUser(UUID userId, int stamp) {
+        Entry entry = entries.get(userId);
+        // Un sello mayor que el guardado solo puede venir de un cambio en otro nodo: la entrada está vieja
+        if (entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos && (entry.user() == null || stamp <= entry.stamp())) {
+            count("hit");
+        } else {
+            entry = load(userId);
+            count("load");
+        }
+        if (entry.user() == null || entry.stamp() != stamp) {
+            count("revoked");
+            return Optional.empty();
+        }
+        return Optional.of(entry.user());
+    }
+
+    /**
+     * Revoca los tokens emitidos del usuario. Se llama dentro de la transacción que lo modifica;
+     * la caché se actualiza solo si esa transacción confirma.
+     */
+    public void bump(User user) {
+        user.setSecurityStamp(user.getSecurityStamp() + 1);
+        evictAfterCommit(user.getId());
+    }
+
+    // El usuario cambió sin revocar tokens (nombre, estado, restauración): la próxima validación lo recarga
+    public void evictAfterCommit(UUID userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(userId);
+            }
+        });
+    }
+
+    // Operaciones masivas: no se sabe qué usuarios cambiaron, se descarta todo
+    public void evictAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    // Aviso del canal security_stamp: payload = id del usuario que cambió en cualquier nodo
+    void evictNotified(String payload) {
+        try {
+            evict(UUID.fromString(payload));
+        } catch (IllegalArgumentException e) {
+            evictAll();
+        }
+    }
+
+    // Limpieza de entradas vencidas; sin esto la caché crecería con cada usuario que alguna vez se autenticó
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.loadedAt() >= ttlNanos);
+    }
+
+    // Entradas en caché (para pruebas y diagnóstico)
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(UUID userId) {
+        generation.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    // Transacción de escritura a propósito: se lee del primario, una réplica atrasada devolvería el sello anterior
+    private Entry load(UUID userId) {
+        long seen = generation.get();
+        Entry entry = transactionTemplate.execute(status -> userRepository.findById(userId)
+            .map(user -> new Entry(user.getSecurityStamp(), userMapper.toSummaryResponse(user), System.nanoTime()))
+            .orElseGet(() -> new Entry(-1, null, System.nanoTime())));
+        entries.put(userId, entry);
+        if (generation.get() != seen) {
+            entries.remove(userId, entry);
+        }
+        if (entries.size() > maxEntries) {
+            trim();
+        }
+        return entry;
+    }
+
+    // Quitar una entrada no necesita avanzar generation: la próxima validación de ese usuario la recarga
+    private void trim() {
+        evictExpired();
+        Iterator<UUID> userIds = entries.keySet().iterator();
+        while (entries.size() > maxEntries && userIds.hasNext()) {
+            userIds.next();
+            userIds.remove();
+        }
+    }
+
+    // Uso de la caché de sellos (auth.security_stamp{result=hit|load|revoked})
+    private void count(String result) {
+        meterRegistry.counter("auth.security_stamp", "result", result).increment();
+    }
+}
@@ -4,19 +4,33 @@ import com.carnetdigital.carnet_api.dto.*;
 import com.carnetdigital.carnet_api.entity.Token;
 import com.carnetdigital.carnet_api.entity.Token.TokenType;
 import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import com.carnetdigital.carnet_api.exception.BadRequestException;
+import com.carnetdigital.carnet_api.exception.NotFoundException;
+import com.carnetdigital.carnet_api.exception.UnauthorizedException;
 import com.carnetdigital.carnet_api.mapper.TokenMapper;
+import com.carnetdigital.carnet_api.repository.MailOutboxRepository;
 import com.carnetdigital.carnet_api.repository.TokenRepository;
 import com.carnetdigital.carnet_api.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TokenService {
@@ -24,11 +38,24 @@ public class TokenService {
     private final TokenRepository tokenRepository;
     private final UserRepository userRepository;
     private final TokenMapper tokenMapper;
+    private final MeterRegistry meterRegistry;
+    private final PasswordEncoder passwordEncoder;
+    private final SecurityStampService securityStampService;
+    private final MailOutboxRepository mailOutboxRepository;
+    private final AuditService auditService;
+
+    // Base de los enlaces de los correos (la aplicación web que abre /reset-password y /verify-email)
+    @Value("${mail.links.base-url:http://localhost:5173}")
+    private String linksBaseUrl;
+
+    // Un pedido repetido dentro de este intervalo no genera otro correo (evita usar el endpoint para inundar un buzón)
+    @Value("${auth.account-mail.min-interval:60s}")
+    private Duration accountMailMinInterval;
 
     @Transactional
     public TokenResponse createToken(TokenCreateRequest request) {
         User user = userRepository.findById(request.getUserId())
-            .orElseThrow(() -> new RuntimeException("User not found with id: " + request.getUserId()));
+            .orElseThrow(() -> new NotFoundException("User not found with id: " + request.getUserId()));
 
         Token token = new Token();
         token.setUser(user);
@@ -47,14 +74,14 @@ public class TokenService {
     @Transactional(readOnly = true)
     public TokenDetailResponse getTokenById(UUID id) {
         Token token = tokenRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Token not found with id: " + id));
+            .orElseThrow(() -> new NotFoundException("Token not found with id: " + id));
         return tokenMapper.toDetailResponse(token);
     }
 
     @Transactional(readOnly = true)
     public TokenDetailResponse getTokenByValue(String tokenValue) {
         Token token = tokenRepository.findByToken(tokenValue)
-            .orElseThrow(() -> new RuntimeException("Token not found"));
+            .orElseThrow(() -> new NotFoundException("Token not found"));
         return tokenMapper.toDetailResponse(token);
     }
 
@@ -102,7 +129,7 @@ public class TokenService {
     @Transactional
     public void markTokenAsUsed(UUID tokenId) {
         Token token = tokenRepository.findById(tokenId)
-            .orElseThrow(() -> new RuntimeException("Token not found with id: " + tokenId));
+            .orElseThrow(() -> new NotFoundException("Token not found with id: " + tokenId));
         token.setUsed(true);
         tokenRepository.save(token);
     }
@@ -110,7 +137,7 @@ public class TokenService {
     @Transactional
     public void markTokenAsUsedByValue(String tokenValue) {
         Token token = tokenRepository.findByToken(tokenValue)
-            .orElseThrow(() -> new RuntimeException("Token not found"));
+            .orElseThrow(() -> new NotFoundException("Token not found"));
         token.setUsed(true);
         tokenRepository.save(token);
     }
@@ -128,21 +155,16 @@ public class TokenService {
     @Transactional
     public void deleteToken(UUID tokenId) {
         Token token = tokenRepository.findById(tokenId)
-            .orElseThrow(() -> new RuntimeException("Token not found with id: " + tokenId));
+            .orElseThrow(() -> new NotFoundException("Token not found with id: " + tokenId));
         tokenRepository.delete(token); // Soft delete
     }
 
+    // También es el job token-cleanup (JobsConfig), que corre en un solo nodo cada día a las 2 AM
     @Transactional
     public int cleanExpiredTokens() {
-        return tokenRepository.deleteExpiredTokens(LocalDateTime.now());
-    }
-
-    // Tarea programada para limpiar tokens expirados (cada día a las 2 AM)
-    @Scheduled(cron = "0 0 2 * * *")
-    @Transactional
-    public void scheduledCleanup() {
-        int deleted = cleanExpiredTokens();
-        System.out.println("Cleaned up " + deleted + " expired tokens");
+        int deleted = tokenRepository.deleteExpiredTokens(LocalDateTime.now());
+        meterRegistry.counter("tokens.purged").increment(deleted);
+        return deleted;
     }
 
     @Transactional(readOnly = true)
@@ -156,6 +178,128 @@ public class TokenService {
                UUID.randomUUID().toString().replace("-", "");
     }
 
+    // =============== RESTABLECER CONTRASEÑA Y VERIFICAR CORREO ===============
+    // El token viaja solo en el correo; en la base queda su SHA-256, una copia de la tabla no sirve para usarlo.
+    // El correo entra a mail_outbox en la misma transacción que el token y lo envía MailOutboxWorker; el token
+    // va aparte del cuerpo (link_token) y se borra de la fila al enviarlo.
+
+    /**
+     * Envía el enlace para elegir una nueva contraseña. No revela si el correo existe: con un correo
+     * desconocido, un usuario inactivo o un pedido repetido dentro de auth.account-mail.min-interval no hace nada.
+     */
+    @Transactional
+    public void requestPasswordReset(String email) {
+        userRepository.findByEmail(email)
+            .filter(User::getActive)
+            .filter(user -> !recentlyIssued(user, TokenType.reset))
+            .ifPresent(user -> {
+                String token = issueToken(user, TokenType.reset);
+                mailOutboxRepository.enqueue(user.getEmail(), "Restablecer tu contraseña",
+                    greeting(user) +
+                    "Para elegir una nueva contraseña abre este enlace:\n" +
+                    link("/reset-password") + "\n\n" +
+                    "El enlace es de un solo uso y vence en unas horas. " +
+                    "Si no lo pediste, ignora este correo: tu contraseña no cambia.\n",
+                    token);
+            });
+    }
+
+    // Cambia la contraseña con el token del correo y revoca los JWT emitidos antes, igual que changePassword
+    @Transactional
+    public void resetPassword(PasswordResetRequest request) {
+        if (!request.getNewPassword().equals(request.getConfirmPassword())) {
+            throw new BadRequestException("Las contraseñas no coinciden");
+        }
+
+        User user = consumeToken(request.getToken(), TokenType.reset);
+        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        securityStampService.bump(user);
+        userRepository.save(user);
+        auditService.record(AuditEvent.Type.password_reset, user.getId(), user.getEmail(), null);
+    }
+
+    // Registro público (UserService.registerUser) y reenvío: el usuario queda pending hasta confirmar
+    @Transactional
+    public void sendVerification(User user) {
+        String token = issueToken(user, TokenType.verification);
+        mailOutboxRepository.enqueue(user.getEmail(), "Verifica tu correo",
+            greeting(user) +
+            "Para confirmar tu correo abre este enlace:\n" +
+            link("/verify-email") + "\n\n" +
+            "Si no creaste una cuenta, ignora este correo.\n",
+            token);
+    }
+
+    // Mismo criterio que requestPasswordReset: solo usuarios pending, sin revelar si el correo existe
+    @Transactional
+    public void requestVerification(String email) {
+        userRepository.findByEmail(email)
+            .filter(user -> user.getStatus() == UserStatus.pending)
+            .filter(user -> !recentlyIssued(user, TokenType.verification))
+            .ifPresent(this::sendVerification);
+    }
+
+    @Transactional
+    public void verifyEmail(String tokenValue) {
+        User user = consumeToken(tokenValue, TokenType.verification);
+        // Un usuario desactivado por un administrador sigue inactivo aunque confirme el correo
+        if (user.getStatus() == UserStatus.pending) {
+            user.setStatus(UserStatus.active);
+            userRepository.save(user);
+            securityStampService.evictAfterCommit(user.getId());
+        }
+        auditService.record(AuditEvent.Type.email_verified, user.getId(), user.getEmail(), null);
+    }
+
+    // Un solo enlace vigente por tipo: pedir otro invalida el anterior
+    private String issueToken(User user, TokenType tokenType) {
+        invalidateUserTokensByType(user.getId(), tokenType);
+
+        String value = generateTokenString();
+        Token token = new Token();
+        token.setUser(user);
+        token.setTokenType(tokenType);
+        token.setToken(hash(value)); // La vigencia la pone @PrePersist según el tipo
+        tokenRepository.save(token);
+        return value;
+    }
+
+    // Marca el token como usado con un UPDATE condicional: dos peticiones con el mismo enlace, solo una pasa
+    private User consumeToken(String value, TokenType tokenType) {
+        Token token = tokenRepository.findByToken(hash(value))
+            .filter(t -> t.getTokenType() == tokenType && t.isValid())
+            .orElseThrow(() -> new UnauthorizedException("Enlace inválido o vencido"));
+        if (tokenRepository.consumeToken(token.getId()) == 0) {
+            throw new UnauthorizedException("Enlace inválido o vencido");
+        }
+        return token.getUser();
+    }
+
+    private boolean recentlyIssued(User user, TokenType tokenType) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minus(accountMailMinInterval);
+        return tokenRepository.findValidTokensByUserAndType(user.getId(), tokenType, now).stream()
+            .anyMatch(token -> token.getCreatedAt().isAfter(since));
+    }
+
+    // El token lo pone MailOutboxWorker al enviar (MailOutboxRepository.TOKEN_PLACEHOLDER)
+    private String link(String path) {
+        return linksBaseUrl + path + "?token=" + MailOutboxRepository.TOKEN_PLACEHOLDER;
+    }
+
+    private static String greeting(User user) {
+        return (user.getFirstName() != null ? "Hola " + user.getFirstName() : "Hola") + ",\n\n";
+    }
+
+    private static String hash(String value) {
+        try {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     // =============== MÉTODOS PARA AUTENTICACIÓN JWT (Opcional) ===============
 
     @Transactional
@@ -197,14 +341,14 @@ public class TokenService {
     @Transactional
     public AuthTokenResponse refreshAccessToken(TokenRefreshRequest request) {
         Token refreshToken = tokenRepository.findByToken(request.getRefreshToken())
-            .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
+            .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
 
         if (!refreshToken.isValid()) {
-            throw new RuntimeException("Refresh token is invalid or expired");
+            throw new UnauthorizedException("Refresh token is invalid or expired");
         }
 
         if (refreshToken.getTokenType() != TokenType.refresh) {
-            throw new RuntimeException("Token is not a refresh token");
+            throw new UnauthorizedException("Token is not a refresh token");
         }
 
         // Generar nuevo access token
@@ -0,0 +1,68 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import com.carnetdigital.carnet_api.repository.UserCopyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportación de usuarios a CSV con COPY (SELECT ...) TO STDOUT.
+ * Las filas pasan de PostgreSQL a la salida HTTP sin entidades, mapper ni JSON,
+ * con memoria constante sin importar el tamaño de la tabla.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    public enum DeletedFilter {
+        exclude, include, only
+    }
+
+    private static final String EXPORT_COLUMNS =
+        "id, first_name, last_name, email, role, status, active, \"createdAt\", \"updatedAt\", \"deletedAt\"";
+
+    private final UserCopyRepository userCopyRepository;
+
+    public long exportUsers(UserRole role, UserStatus status, DeletedFilter deleted, boolean gzip, OutputStream out) {
+        try {
+            if (!gzip) {
+                return userCopyRepository.copyOut(buildCopySql(role, status, deleted), out);
+            }
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+            long rows = userCopyRepository.copyOut(buildCopySql(role, status, deleted), gzipOut);
+            gzipOut.finish();
+            return rows;
+        } catch (IOException e) {
+            throw new RuntimeException("Error al comprimir la exportación: " + e.getMessage(), e);
+        }
+    }
+
+    // COPY no admite parámetros enlazados; los filtros son enums, por lo que sus valores son seguros de incrustar
+    private String buildCopySql(UserRole role, UserStatus status, DeletedFilter deleted) {
+        List<String> conditions = new ArrayList<>();
+        if (role != null) {
+            conditions.add("role = '" + role.name() + "'");
+        }
+        if (status != null) {
+            conditions.add("status = '" + status.name() + "'");
+        }
+        if (deleted == DeletedFilter.exclude) {
+            conditions.add("\"deletedAt\" IS NULL");
+        } else if (deleted == DeletedFilter.only) {
+            conditions.add("\"deletedAt\" IS NOT NULL");
+        }
+
+        StringBuilder sql = new StringBuilder("COPY (SELECT ").append(EXPORT_COLUMNS).append(" FROM users");
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY \"createdAt\") TO STDOUT WITH (FORMAT csv, HEADER)").toString();
+    }
+}
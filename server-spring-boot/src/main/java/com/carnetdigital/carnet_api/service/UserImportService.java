@@ -0,0 +1,260 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.dto.UserCreateRequest;
+import com.carnetdigital.carnet_api.dto.UserImportError;
+import com.carnetdigital.carnet_api.dto.UserImportResponse;
+import com.carnetdigital.carnet_api.entity.User;
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.exception.BadRequestException;
+import com.carnetdigital.carnet_api.mapper.UserMapper;
+import com.carnetdigital.carnet_api.repository.UserCopyRepository;
+import com.carnetdigital.carnet_api.repository.UserRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de usuarios desde CSV o NDJSON.
+ * El archivo se lee en streaming y se procesa en lotes: validación contra
+ * UserCreateRequest, deduplicación de emails con una sola consulta por lote,
+ * hash BCrypt en paralelo y carga con COPY. Cada lote se confirma por separado.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    public enum ImportFormat {
+        csv, ndjson
+    }
+
+    private final UserRepository userRepository;
+    private final UserCopyRepository userCopyRepository;
+    private final UserMapper userMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+
+    @Value("${users.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public UserImportResponse importUsers(InputStream input, ImportFormat format) {
+        long start = System.nanoTime();
+        UserImportResponse report = UserImportResponse.builder().build();
+        Set<String> seenEmails = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> header = null;
+            String line;
+            long lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                // La primera línea del CSV es el encabezado
+                if (format == ImportFormat.csv && header == null) {
+                    header = parseCsvHeader(line);
+                    continue;
+                }
+
+                report.setTotalRows(report.getTotalRows() + 1);
+
+                UserCreateRequest request;
+                try {
+                    request = format == ImportFormat.csv
+                        ? fromCsv(header, parseCsvLine(line))
+                        : jsonMapper.readValue(line, UserCreateRequest.class);
+                } catch (IllegalArgumentException | JacksonException e) {
+                    reject(report, lineNumber, null, "Fila mal formada: " + e.getMessage());
+                    continue;
+                }
+
+                String violations = validate(request);
+                if (violations != null) {
+                    reject(report, lineNumber, request.getEmail(), violations);
+                    continue;
+                }
+
+                if (!seenEmails.add(normalizeEmail(request.getEmail()))) {
+                    reject(report, lineNumber, request.getEmail(), "Email duplicado en el archivo");
+                    continue;
+                }
+
+                chunk.add(new ImportRow(lineNumber, request));
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, report);
+                    chunk.clear();
+                }
+            }
+            flush(chunk, report);
+        } catch (IOException e) {
+            throw new BadRequestException("Error al leer el archivo de importación: " + e.getMessage(), e);
+        }
+
+        report.setDurationMs((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    // Procesa un lote: descarta emails ya registrados, hashea en paralelo y carga con COPY
+    private void flush(List<ImportRow> chunk, UserImportResponse report) {
+        if (chunk.isEmpty()) return;
+
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmailsIncludingDeleted(
+            chunk.stream().map(row -> normalizeEmail(row.request().getEmail())).collect(Collectors.toList())
+        ));
+
+        List<ImportRow> pending = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(normalizeEmail(row.request().getEmail()))) {
+                reject(report, row.line(), row.request().getEmail(), "Email en uso");
+            } else {
+                pending.add(row);
+            }
+        }
+        if (pending.isEmpty()) return;
+
+        // BCrypt es CPU-bound: se reparte entre todos los núcleos
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = pending.parallelStream()
+            .map(row -> toUser(row.request(), now))
+            .collect(Collectors.toList());
+
+        try {
+            report.setImported(report.getImported() + userCopyRepository.copyIn(users));
+        } catch (RuntimeException e) {
+            // Una fila que falla (p. ej. un email registrado concurrentemente) revierte el COPY completo:
+            // se reintenta fila por fila, cada una en su transacción, y solo se rechazan las que fallan
+            for (int i = 0; i < pending.size(); i++) {
+                ImportRow row = pending.get(i);
+                try {
+                    report.setImported(report.getImported() + userCopyRepository.copyIn(List.of(users.get(i))));
+                } catch (RuntimeException rowError) {
+                    reject(report, row.line(), row.request().getEmail(), rowError.getMessage());
+                }
+            }
+        }
+    }
+
+    // Los emails se comparan sin distinguir mayúsculas (el archivo, el lote y la base)
+    private static String normalizeEmail(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private User toUser(UserCreateRequest request, LocalDateTime now) {
+        User user = userMapper.toEntity(request);
+        user.setId(UUID.randomUUID());
+        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+        return user;
+    }
+
+    private String validate(UserCreateRequest request) {
+        Set<ConstraintViolation<UserCreateRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+            .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private void reject(UserImportResponse report, long line, String email, String message) {
+        report.setFailed(report.getFailed() + 1);
+        report.getErrors().add(UserImportError.builder()
+            .line(line)
+            .email(email)
+            .message(message)
+            .build());
+    }
+
+    // ==================== CSV ====================
+
+    // Columnas aceptadas: firstName, lastName, email, password, role (también en snake_case)
+    private Map<String, Integer> parseCsvHeader(String line) {
+        List<String> columns = parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().replace("_", "").toLowerCase(), i);
+        }
+        if (!header.containsKey("email") || !header.containsKey("password")) {
+            throw new BadRequestException("El encabezado CSV debe incluir las columnas email y password");
+        }
+        return header;
+    }
+
+    private UserCreateRequest fromCsv(Map<String, Integer> header, List<String> values) {
+        String role = column(header, values, "role");
+        return UserCreateRequest.builder()
+            .firstName(column(header, values, "firstname"))
+            .lastName(column(header, values, "lastname"))
+            .email(column(header, values, "email"))
+            .password(column(header, values, "password"))
+            .role(role != null ? UserRole.valueOf(role) : null)
+            .build();
+    }
+
+    private String column(Map<String, Integer> header, List<String> values, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) return null;
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Parser RFC 4180 de una línea (campos entre comillas con "" escapadas; sin saltos de línea internos)
+    private List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private record ImportRow(long line, UserCreateRequest request) {
+    }
+}
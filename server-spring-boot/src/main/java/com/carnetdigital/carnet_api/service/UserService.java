@@ -4,21 +4,43 @@ import com.carnetdigital.carnet_api.dto.*;
 import com.carnetdigital.carnet_api.entity.User;
 import com.carnetdigital.carnet_api.entity.User.UserRole;
 import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import com.carnetdigital.carnet_api.exception.BadRequestException;
+import com.carnetdigital.carnet_api.exception.ConflictException;
+import com.carnetdigital.carnet_api.exception.NotFoundException;
+import com.carnetdigital.carnet_api.exception.PreconditionFailedException;
+import com.carnetdigital.carnet_api.helpers.ETagHelper;
 import com.carnetdigital.carnet_api.mapper.UserMapper;
+import com.carnetdigital.carnet_api.repository.UserBulkRepository;
+import com.carnetdigital.carnet_api.repository.UserBulkRepository.BulkAction;
+import com.carnetdigital.carnet_api.repository.UserBulkRepository.ChunkResult;
+import com.carnetdigital.carnet_api.repository.UserProjectionRepository;
 import com.carnetdigital.carnet_api.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
@@ -26,13 +48,28 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserBulkRepository userBulkRepository;
+    private final UserProjectionRepository userProjectionRepository;
+    private final SecurityStampService securityStampService;
+    private final AuditService auditService;
+    private final TokenService tokenService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final Set<String> SELECTABLE_FIELDS = new LinkedHashSet<>(List.of(
+        "id", "firstName", "lastName", "email", "role", "status", "active", "createdAt", "updatedAt"
+    ));
+
+    @Value("${users.bulk.chunk-size:500}")
+    private int bulkChunkSize;
     
     //@Transactional es una anotación de Spring que sirve para manejar transacciones en métodos que interactúan con la base de datos.
     @Transactional
     public UserResponse createUser(UserCreateRequest request) {
         // Verificar si el email existe incluyendo usuarios eliminados
         if (userRepository.existsByEmailIncludingDeleted(request.getEmail())) {
-            throw new RuntimeException("Email en uso");
+            throw new ConflictException("Email en uso");
         }
 
         User user = userMapper.toEntity(request);
@@ -42,20 +79,43 @@ public class UserService {
         return userMapper.toResponse(savedUser);
     }
 
+    // Registro público: el correo de verificación entra al outbox en la misma transacción que el usuario
+    @Transactional
+    public UserResponse registerUser(UserCreateRequest request) {
+        UserResponse user = createUser(request);
+        tokenService.sendVerification(userRepository.getReferenceById(user.getId()));
+        return user;
+    }
+
     @Transactional(readOnly = true)
     public UserDetailResponse getUserById(UUID id) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + id));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado: " + id));
         return userMapper.toDetailResponse(user);
     }
 
     @Transactional(readOnly = true)
     public UserResponse getUserByEmail(String email) {
         User user = userRepository.findByEmailIncludingDeleted(email)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado por el email: " + email));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado por el email: " + email));
         return userMapper.toResponse(user);
     }
 
+    // VERSIÓN (ETag) - consulta de solo id/versión/updatedAt para peticiones condicionales
+    @Transactional(readOnly = true)
+    public String getUserETagById(UUID id) {
+        UserVersion version = userRepository.findVersionById(id)
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado: " + id));
+        return ETagHelper.userETag(version);
+    }
+
+    @Transactional(readOnly = true)
+    public String getUserETagByEmail(String email) {
+        UserVersion version = userRepository.findVersionByEmail(email)
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado por el email: " + email));
+        return ETagHelper.userETag(version);
+    }
+
     // GET ALL - SIN PAGINACIÓN (excluye eliminados - comportamiento por defecto)
     @Transactional(readOnly = true)
     public List<UserResponse> getAllUsers() {
@@ -98,6 +158,33 @@ public class UserService {
         return mapToPagedResponse(userPage);
     }
 
+    // GET ALL - STREAMING (excluye eliminados): cada usuario se mapea, se entrega al sink y se
+    // desasocia del contexto de persistencia, así la memoria no crece con la cantidad de filas
+    @Transactional(readOnly = true)
+    public long forEachUser(Consumer<? super UserResponse> sink) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            return forEachMapped(users, sink);
+        }
+    }
+
+    // GET ALL - STREAMING CON PAGINACIÓN (INCLUYENDO ELIMINADOS)
+    @Transactional(readOnly = true)
+    public long forEachUserIncludingDeleted(int page, int size, String sortBy, String sortDirection,
+                                            Consumer<? super UserResponse> sink) {
+        Sort sort = sortDirection.equalsIgnoreCase("desc")
+            ? Sort.by(sortBy).descending()
+            : Sort.by(sortBy).ascending();
+
+        try (Stream<User> users = userRepository.streamAllIncludingDeleted(PageRequest.of(page, size, sort))) {
+            return forEachMapped(users, sink);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long countAllUsersIncludingDeleted() {
+        return userRepository.countAllIncludingDeleted();
+    }
+
     // USUARIOS ELIMINADOS - SIN PAGINACIÓN
     @Transactional(readOnly = true)
     public List<UserResponse> getDeletedUsers() {
@@ -246,6 +333,65 @@ public class UserService {
         return mapToPagedResponse(userPage);
     }
 
+    // CAMPOS DISPERSOS (?fields=) - SIN PAGINACIÓN: solo se consultan las columnas pedidas
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getUserFields(Specification<User> filter, String fields) {
+        return userProjectionRepository.findFields(filter, parseFields(fields), Sort.unsorted());
+    }
+
+    // CAMPOS DISPERSOS (?fields=) - CON PAGINACIÓN
+    @Transactional(readOnly = true)
+    public PagedResponse<Map<String, Object>> getUserFields(Specification<User> filter, String fields,
+                                                            int page, int size, String sortBy, String sortDirection) {
+        Sort sort = sortDirection.equalsIgnoreCase("desc") 
+            ? Sort.by(sortBy).descending() 
+            : Sort.by(sortBy).ascending();
+        
+        Pageable pageable = PageRequest.of(page, size, sort);
+        List<Map<String, Object>> content = userProjectionRepository.findFields(filter, parseFields(fields), pageable);
+        Page<Map<String, Object>> fieldPage = new PageImpl<>(content, pageable, userProjectionRepository.count(filter));
+        
+        return new PagedResponse<>(
+            content,
+            fieldPage.getNumber(),
+            fieldPage.getSize(),
+            fieldPage.getTotalElements(),
+            fieldPage.getTotalPages(),
+            fieldPage.isFirst(),
+            fieldPage.isLast(),
+            fieldPage.isEmpty()
+        );
+    }
+
+    // Valida ?fields=id,firstName contra los campos de UserResponse
+    private List<String> parseFields(String fields) {
+        List<String> parsed = Arrays.stream(fields.split(","))
+            .map(String::trim)
+            .filter(field -> !field.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+
+        if (parsed.isEmpty()) {
+            throw new BadRequestException("Debe indicar al menos un campo en fields");
+        }
+        for (String field : parsed) {
+            if (!SELECTABLE_FIELDS.contains(field)) {
+                throw new BadRequestException("Campo no permitido: " + field + ". Permitidos: " + SELECTABLE_FIELDS);
+            }
+        }
+        return parsed;
+    }
+
+    private long forEachMapped(Stream<User> users, Consumer<? super UserResponse> sink) {
+        long count = 0;
+        for (User user : (Iterable<User>) users::iterator) {
+            sink.accept(userMapper.toResponse(user));
+            entityManager.detach(user);
+            count++;
+        }
+        return count;
+    }
+
     // Método auxiliar para convertir Page a PagedResponse
     private PagedResponse<UserResponse> mapToPagedResponse(Page<User> userPage) {
         List<UserResponse> content = userPage.getContent().stream()
@@ -264,108 +410,227 @@ public class UserService {
         );
     }
 
+    // Usuario actualizado junto con el ETag de la versión recién guardada
+    public record UpdatedUser(UserResponse user, String eTag) {
+    }
+
     @Transactional
     public UserResponse updateUser(UUID id, UserUpdateRequest request) {
+        return updateUser(id, request, null).user();
+    }
+
+    // ifMatch: ETag que el cliente leyó; si no coincide con la versión actual se rechaza la escritura
+    @Transactional
+    public UpdatedUser updateUser(UUID id, UserUpdateRequest request, String ifMatch) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado con id: " + id));
 
         // No permitir actualizar usuarios eliminados
         if (user.getDeletedAt() != null) {
-            throw new RuntimeException("No se puede actualizar un usuario eliminado");
+            throw new ConflictException("No se puede actualizar un usuario eliminado");
         }
 
-        if (request.getEmail() != null && !request.getEmail().equals(user.getEmail())) {
+        if (ifMatch != null && !ETagHelper.matchesStrong(ifMatch, ETagHelper.userETag(toVersion(user)))) {
+            throw new PreconditionFailedException("El usuario fue modificado desde la última lectura");
+        }
+
+        // Cambiar solo mayúsculas/minúsculas del propio email no es un conflicto
+        if (request.getEmail() != null && !request.getEmail().equalsIgnoreCase(user.getEmail())) {
             if (userRepository.existsByEmailIncludingDeleted(request.getEmail())) {
-                throw new RuntimeException("El correo electrónico ya existe");
+                throw new ConflictException("El correo electrónico ya existe");
             }
         }
 
+        // Rol, correo (subject del JWT) o desactivación revocan los tokens emitidos
+        boolean revokesTokens = (request.getRole() != null && request.getRole() != user.getRole())
+            || (request.getEmail() != null && !request.getEmail().equals(user.getEmail()))
+            || (Boolean.FALSE.equals(request.getActive()) && user.getActive())
+            || (request.getStatus() == UserStatus.inactive && user.getStatus() != UserStatus.inactive);
+
+        if (request.getRole() != null && request.getRole() != user.getRole()) {
+            auditService.record(AuditEvent.Type.role_change, id, user.getEmail(), user.getRole() + " -> " + request.getRole());
+        }
+
         userMapper.updateEntity(user, request);
-        User updatedUser = userRepository.save(user);
-        return userMapper.toResponse(updatedUser);
+        if (revokesTokens) {
+            securityStampService.bump(user);
+        } else {
+            securityStampService.evictAfterCommit(id);
+        }
+        // saveAndFlush aplica el chequeo de @Version ahora y deja la nueva versión en la entidad
+        User updatedUser = userRepository.saveAndFlush(user);
+        return new UpdatedUser(userMapper.toResponse(updatedUser), ETagHelper.userETag(toVersion(updatedUser)));
+    }
+
+    private UserVersion toVersion(User user) {
+        return new UserVersion(user.getId(), user.getVersion(), user.getUpdatedAt());
     }
 
     @Transactional
     public void changePassword(UUID id, UserPasswordChangeRequest request) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado con id: " + id));
 
         // No permitir cambiar contraseña de usuarios eliminados
         if (user.getDeletedAt() != null) {
-            throw new RuntimeException("No se puede cambiar la contraseña de un usuario eliminado");
+            throw new ConflictException("No se puede cambiar la contraseña de un usuario eliminado");
         }
 
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
-            throw new RuntimeException("La contraseña actual es incorrecta");
+            throw new BadRequestException("La contraseña actual es incorrecta");
         }
 
         if (!request.getNewPassword().equals(request.getConfirmPassword())) {
-            throw new RuntimeException("Las contraseñas no coinciden");
+            throw new BadRequestException("Las contraseñas no coinciden");
         }
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
+        securityStampService.bump(user);
         userRepository.save(user);
     }
 
     @Transactional
     public void activateUser(UUID id) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado con id: " + id));
 
         // No permitir activar usuarios eliminados
         if (user.getDeletedAt() != null) {
-            throw new RuntimeException("No se puede activar un usuario eliminado");
+            throw new ConflictException("No se puede activar un usuario eliminado");
         }
 
         user.setActive(true);
         user.setStatus(UserStatus.active);
+        securityStampService.evictAfterCommit(id);
         userRepository.save(user);
     }
 
     @Transactional
     public void deactivateUser(UUID id) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + id));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado con id: " + id));
 
         // No permitir desactivar usuarios eliminados
         if (user.getDeletedAt() != null) {
-            throw new RuntimeException("No se puede desactivar un usuario eliminado");
+            throw new ConflictException("No se puede desactivar un usuario eliminado");
         }
 
         user.setActive(false);
         user.setStatus(UserStatus.inactive);
+        securityStampService.bump(user);
         userRepository.save(user);
     }
 
     @Transactional
     public void deleteUser(UUID id) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException(": " + id));
+            .orElseThrow(() -> new NotFoundException("Usuario no encontrado con id: " + id));
 
         // Solo eliminar si no está ya eliminado
         if (user.getDeletedAt() == null) {
-            userRepository.delete(user); // Esto ejecutará el soft delete
+            userRepository.delete(user); // Esto ejecutará el soft delete (e incrementa security_stamp)
+            securityStampService.evictAfterCommit(id);
+            auditService.record(AuditEvent.Type.user_delete, id, user.getEmail(), null);
         }
     }
 
     @Transactional
     public void restoreUser(UUID id) {
         User user = userRepository.findByIdIncludingDeleted(id)
-            .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+            .orElseThrow(() -> new NotFoundException("User not found with id: " + id));
 
         // Solo restaurar si está eliminado
         if (user.getDeletedAt() != null) {
             user.setDeletedAt(null);
+            securityStampService.evictAfterCommit(id);
             userRepository.save(user);
         }
     }
 
+    // OPERACIONES MASIVAS - un UPDATE set-based por lote, cada lote en su propia transacción
+    public UserBulkActionResponse bulkUpdate(BulkAction action, UserBulkActionRequest request) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = request.getRole() != null || request.getStatus() != null
+            || request.getCreatedFrom() != null || request.getCreatedTo() != null;
+
+        // Evitar que un cuerpo vacío afecte a toda la tabla
+        if (!hasIds && !hasFilter) {
+            throw new BadRequestException("Debe indicar ids o al menos un filtro (role, status, createdFrom, createdTo)");
+        }
+
+        long affectedUsers = 0;
+        long revokedTokens = 0;
+        int chunks = 0;
+        int failedChunks = 0;
+        Long skippedUsers = null;
+        Long failedUsers = null;
+        String error = null;
+
+        if (hasIds) {
+            // Los lotes por ids son independientes: uno que falla no impide aplicar los siguientes
+            List<UUID> ids = request.getIds().stream().distinct().collect(Collectors.toList());
+            failedUsers = 0L;
+            for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+                List<UUID> chunkIds = ids.subList(from, Math.min(from + bulkChunkSize, ids.size()));
+                chunks++;
+                try {
+                    ChunkResult result = userBulkRepository.updateChunk(action, request, chunkIds, bulkChunkSize);
+                    affectedUsers += result.affectedUsers();
+                    revokedTokens += result.revokedTokens();
+                } catch (RuntimeException e) {
+                    log.warn("Falló el lote {} de la operación masiva {}: {}", chunks, action, e.getMessage());
+                    failedChunks++;
+                    failedUsers += chunkIds.size();
+                    error = error != null ? error : e.getMessage();
+                }
+                securityStampService.evictAll();
+            }
+            skippedUsers = ids.size() - affectedUsers - failedUsers;
+        } else {
+            // Por filtro cada lote toma los siguientes pendientes: si uno falla, los siguientes fallarían igual
+            ChunkResult result;
+            do {
+                chunks++;
+                try {
+                    result = userBulkRepository.updateChunk(action, request, null, bulkChunkSize);
+                } catch (RuntimeException e) {
+                    log.warn("Falló el lote {} de la operación masiva {}: {}", chunks, action, e.getMessage());
+                    failedChunks++;
+                    error = e.getMessage();
+                    break;
+                } finally {
+                    securityStampService.evictAll();
+                }
+                affectedUsers += result.affectedUsers();
+                revokedTokens += result.revokedTokens();
+            } while (result.affectedUsers() >= bulkChunkSize);
+        }
+
+        if (action == BulkAction.delete && affectedUsers > 0) {
+            auditService.record(AuditEvent.Type.user_bulk_delete, null, null,
+                affectedUsers + " usuarios" + (hasIds ? " por ids" : " por filtro"));
+        }
+
+        return UserBulkActionResponse.builder()
+            .action(action.name())
+            .affectedUsers(affectedUsers)
+            .revokedTokens(revokedTokens)
+            .chunks(chunks)
+            .skippedUsers(skippedUsers)
+            .failedChunks(failedChunks)
+            .failedUsers(failedUsers)
+            .error(error)
+            .build();
+    }
+
     @Transactional
     public void hardDeleteUser(UUID id) {
         if (!userRepository.existsByIdIncludingDeleted(id)) {
-            throw new RuntimeException("User not found with id: " + id);
+            throw new NotFoundException("User not found with id: " + id);
         }
         userRepository.hardDeleteById(id);
+        securityStampService.evictAfterCommit(id);
+        auditService.record(AuditEvent.Type.user_hard_delete, id, null, null);
     }
 
     @Transactional(readOnly = true)
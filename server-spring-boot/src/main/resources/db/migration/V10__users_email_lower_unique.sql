@@ -0,0 +1,10 @@
+-- Las búsquedas por email (login, registro, recuperación, ETag por email, importación) comparan
+-- LOWER(email) = LOWER(?), así que el índice de V3 pasa a ser único: además de servir esas consultas
+-- impide registrar el mismo correo con otras mayúsculas.
+-- Si ya existen correos repetidos sin distinguir mayúsculas, la migración falla indicando la clave
+-- duplicada; hay que unificar esas cuentas antes de aplicarla.
+-- Se construye el único con CONCURRENTLY (sin bloquear escrituras, fuera de transacción: ver el .conf) y
+-- recién entonces se reemplaza el anterior, así las búsquedas por email nunca quedan sin índice.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_lower_unique ON users (LOWER(email));
+DROP INDEX CONCURRENTLY IF EXISTS idx_users_email_lower;
+ALTER INDEX IF EXISTS idx_users_email_lower_unique RENAME TO idx_users_email_lower;
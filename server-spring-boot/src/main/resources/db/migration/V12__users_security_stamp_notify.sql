@@ -0,0 +1,25 @@
+-- Aviso entre nodos de la caché de sellos (SecurityStampService): cada cambio del sello o de los datos que
+-- guarda esa caché publica el id del usuario en el canal security_stamp. NOTIFY se entrega al confirmar la
+-- transacción (nada si se revierte) y SecurityStampListener descarta la entrada en cada nodo. Al ser un
+-- trigger cubre también las operaciones masivas y los cambios hechos fuera de la aplicación.
+CREATE OR REPLACE FUNCTION users_security_stamp_notify() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('security_stamp', OLD.id::text);
+    ELSIF NEW.security_stamp IS DISTINCT FROM OLD.security_stamp
+        OR NEW.first_name IS DISTINCT FROM OLD.first_name
+        OR NEW.last_name IS DISTINCT FROM OLD.last_name
+        OR NEW.email IS DISTINCT FROM OLD.email
+        OR NEW.role IS DISTINCT FROM OLD.role
+        OR NEW.status IS DISTINCT FROM OLD.status
+        OR NEW."deletedAt" IS DISTINCT FROM OLD."deletedAt" THEN
+        PERFORM pg_notify('security_stamp', NEW.id::text);
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS users_security_stamp_notify ON users;
+CREATE TRIGGER users_security_stamp_notify
+    AFTER UPDATE OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION users_security_stamp_notify();
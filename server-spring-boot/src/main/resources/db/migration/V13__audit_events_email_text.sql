@@ -0,0 +1,4 @@
+-- El correo de un login fallido es el que envió el cliente, no uno validado contra users: con VARCHAR(100)
+-- un valor más largo hacía fallar el COPY de todo el lote. TEXT no limita el largo (AuditService, además,
+-- reintenta fila por fila si una fila es rechazada).
+ALTER TABLE audit_events ALTER COLUMN email TYPE TEXT;
@@ -0,0 +1,8 @@
+-- El token del enlace (restablecer contraseña, verificar correo) sale del cuerpo: body guarda el texto con
+-- el marcador {token} y link_token el valor, que MailOutboxWorker pone al enviar y que se borra al quedar
+-- la fila sent o failed. Así las filas que se conservan hasta la purga no tienen un enlace utilizable.
+ALTER TABLE mail_outbox ADD COLUMN IF NOT EXISTS link_token TEXT;
+
+-- Filas ya enviadas o fallidas con el token dentro del cuerpo
+UPDATE mail_outbox SET body = regexp_replace(body, 'token=[0-9a-f]{64}', 'token={token}', 'g')
+WHERE status <> 'pending' AND body ~ 'token=[0-9a-f]{64}';
@@ -0,0 +1,3 @@
+-- Encabezados de la respuesta original que IdempotencyFilter repite junto con el cuerpo (ETag, Location,
+-- Retry-After), uno por línea como "Nombre: valor". NULL si la respuesta no tenía ninguno o sigue en curso.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS headers TEXT;
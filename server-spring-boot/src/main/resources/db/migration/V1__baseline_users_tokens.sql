@@ -0,0 +1,52 @@
+-- Esquema inicial de users y tokens, equivalente al que creaba Sequelize (server/src/core/models).
+-- En bases existentes Flyway marca esta versión como baseline y no la ejecuta.
+
+DO $$ BEGIN
+    CREATE TYPE enum_users_role AS ENUM ('admin', 'student');
+EXCEPTION WHEN duplicate_object THEN NULL;
+END $$;
+
+DO $$ BEGIN
+    CREATE TYPE enum_users_status AS ENUM ('active', 'inactive', 'pending');
+EXCEPTION WHEN duplicate_object THEN NULL;
+END $$;
+
+DO $$ BEGIN
+    CREATE TYPE enum_tokens_token_type AS ENUM ('access', 'refresh', 'reset', 'verification');
+EXCEPTION WHEN duplicate_object THEN NULL;
+END $$;
+
+CREATE TABLE IF NOT EXISTS users (
+    id          UUID PRIMARY KEY,
+    first_name  VARCHAR(42),
+    last_name   VARCHAR(42),
+    email       VARCHAR(100) NOT NULL UNIQUE,
+    password    VARCHAR(60) NOT NULL,
+    role        enum_users_role NOT NULL DEFAULT 'student',
+    status      enum_users_status NOT NULL DEFAULT 'pending',
+    active      BOOLEAN NOT NULL DEFAULT true,
+    "createdAt" TIMESTAMP WITH TIME ZONE NOT NULL,
+    "updatedAt" TIMESTAMP WITH TIME ZONE NOT NULL,
+    "deletedAt" TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS users_role ON users (role);
+CREATE INDEX IF NOT EXISTS users_status ON users (status);
+CREATE INDEX IF NOT EXISTS users_active ON users (active);
+
+CREATE TABLE IF NOT EXISTS tokens (
+    id          UUID PRIMARY KEY,
+    token       TEXT NOT NULL,
+    used        BOOLEAN DEFAULT false,
+    user_fk     UUID NOT NULL REFERENCES users (id) ON DELETE CASCADE ON UPDATE CASCADE,
+    expires_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    token_type  enum_tokens_token_type NOT NULL,
+    "createdAt" TIMESTAMP WITH TIME ZONE NOT NULL,
+    "updatedAt" TIMESTAMP WITH TIME ZONE NOT NULL,
+    "deletedAt" TIMESTAMP WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_token_unique ON tokens (token);
+CREATE INDEX IF NOT EXISTS idx_active_tokens ON tokens (used) WHERE used = false;
+CREATE INDEX IF NOT EXISTS idx_user_tokens ON tokens (user_fk);
+CREATE INDEX IF NOT EXISTS idx_token_expiration ON tokens (expires_at);
@@ -0,0 +1,2 @@
+-- Columna de bloqueo optimista usada por @Version en User y por los ETags de la API
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version INTEGER NOT NULL DEFAULT 0;
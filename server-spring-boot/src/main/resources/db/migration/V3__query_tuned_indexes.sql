@@ -0,0 +1,46 @@
+-- Índices alineados con las consultas reales de UserRepository / TokenRepository.
+-- @SQLRestriction agrega "deletedAt" IS NULL a toda consulta, por eso los índices son parciales
+-- sobre ese predicado: excluyen filas eliminadas y el planner puede usarlos directamente.
+-- CONCURRENTLY no bloquea las escrituras en users ni en tokens mientras se construye cada índice; por eso
+-- el script corre fuera de una transacción (V3__query_tuned_indexes.sql.conf). Si falla a mitad de camino
+-- puede quedar un índice INVALID que IF NOT EXISTS no reconstruye: borrarlo antes de reintentar.
+
+-- ==================== USERS ====================
+
+-- findByRole / findByStatus paginados ordenan por "createdAt" DESC (UserService)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_role_created
+    ON users (role, "createdAt" DESC) WHERE "deletedAt" IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_status_created
+    ON users (status, "createdAt" DESC) WHERE "deletedAt" IS NULL;
+
+-- Listado general paginado (sortBy por defecto: createdAt desc)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_created
+    ON users ("createdAt" DESC) WHERE "deletedAt" IS NULL;
+
+-- getActiveUsers paginado ordena por first_name
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_active_first_name
+    ON users (first_name) WHERE active = true AND "deletedAt" IS NULL;
+
+-- Búsquedas de email sin distinguir mayúsculas
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_lower
+    ON users (LOWER(email));
+
+-- Reemplazados por los compuestos parciales (role/status/active solos tienen baja selectividad)
+DROP INDEX CONCURRENTLY IF EXISTS users_role;
+DROP INDEX CONCURRENTLY IF EXISTS users_status;
+DROP INDEX CONCURRENTLY IF EXISTS users_active;
+
+-- ==================== TOKENS ====================
+
+-- findValidTokensByUserAndType, findByUserIdAndUsedFalse e invalidateUserTokensByType
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tokens_user_type_unused
+    ON tokens (user_fk, token_type) WHERE used = false AND "deletedAt" IS NULL;
+
+-- findByToken / existsValidToken
+DROP INDEX CONCURRENTLY IF EXISTS idx_token_unique;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tokens_token
+    ON tokens (token) WHERE "deletedAt" IS NULL;
+
+-- Índice sobre un booleano: casi no filtra y lo cubre idx_tokens_user_type_unused
+DROP INDEX CONCURRENTLY IF EXISTS idx_active_tokens;
@@ -0,0 +1,16 @@
+-- Estado de los jobs programados del clúster (JobScheduler): un registro por job.
+-- Todos los nodos consultan la tabla; el que obtiene pg_try_advisory_xact_lock y ve next_run_at vencido
+-- ejecuta el job y, en la misma transacción, adelanta next_run_at y registra la corrida.
+
+CREATE TABLE IF NOT EXISTS scheduled_jobs (
+    name             VARCHAR(100) PRIMARY KEY,
+    cron             VARCHAR(100) NOT NULL,
+    next_run_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_started_at  TIMESTAMP WITH TIME ZONE,
+    last_duration_ms BIGINT,
+    last_rows        BIGINT,
+    last_status      VARCHAR(20),
+    last_error       TEXT,
+    last_node        VARCHAR(255),
+    run_count        BIGINT NOT NULL DEFAULT 0
+);
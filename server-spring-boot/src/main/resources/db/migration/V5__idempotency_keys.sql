@@ -0,0 +1,17 @@
+-- Respuestas guardadas por Idempotency-Key (IdempotencyFilter) para repetirlas ante reintentos del cliente.
+-- status NULL = petición en curso en algún nodo; expires_at lo fija api.idempotency.ttl y el job
+-- idempotency-purge borra las vencidas.
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    scope           VARCHAR(100) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash    CHAR(64) NOT NULL,
+    status          INTEGER,
+    content_type    VARCHAR(255),
+    body            BYTEA,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys (expires_at);
@@ -0,0 +1,3 @@
+-- Sello de seguridad por usuario: viaja en los JWT (claim "stamp") y se incrementa al desactivar,
+-- borrar o cambiar contraseña, rol o correo; un token con un sello anterior deja de ser válido
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_stamp INTEGER NOT NULL DEFAULT 0;
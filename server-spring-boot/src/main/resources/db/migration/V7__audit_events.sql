@@ -0,0 +1,15 @@
+-- Bitácora de auditoría (AuditService): logins, refresh, cambios de rol y borrados de usuarios.
+-- Las filas llegan por lotes con COPY desde el hilo audit-writer; occurred_at es el momento del evento,
+-- no el de la escritura. user_id no es FK: el evento debe sobrevivir al borrado físico del usuario.
+
+CREATE TABLE IF NOT EXISTS audit_events (
+    id          BIGSERIAL PRIMARY KEY,
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    event_type  VARCHAR(40) NOT NULL,
+    user_id     UUID,
+    email       VARCHAR(100),
+    detail      TEXT
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_events_user ON audit_events (user_id, occurred_at);
+CREATE INDEX IF NOT EXISTS idx_audit_events_occurred ON audit_events (occurred_at);
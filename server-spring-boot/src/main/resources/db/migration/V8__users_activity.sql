@@ -0,0 +1,10 @@
+-- Actividad de los usuarios para reportes de cuentas inactivas. ActivityTracker la acumula en memoria y
+-- la escribe por lotes (UPDATE ... FROM (VALUES ...)); ninguna de estas columnas está indexada, así que
+-- esas actualizaciones pueden ser HOT. fillfactor 90 deja lugar en cada página para la nueva versión
+-- de la fila (aplica a las páginas que se escriban de aquí en adelante).
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_login_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_seen_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS login_count BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE users SET (fillfactor = 90);
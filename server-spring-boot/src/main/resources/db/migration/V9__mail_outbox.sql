@@ -0,0 +1,23 @@
+-- Outbox de correo saliente (restablecer contraseña, verificar correo). La fila se inserta en la misma
+-- transacción que el token que la origina: si la transacción se revierte no sale ningún correo, y si
+-- confirma el correo sale aunque el servidor SMTP esté caído en ese momento.
+-- MailOutboxWorker toma lotes con FOR UPDATE SKIP LOCKED y los envía; un fallo reprograma la fila en
+-- next_attempt_at con espera exponencial hasta agotar los intentos (status = 'failed').
+
+CREATE TABLE IF NOT EXISTS mail_outbox (
+    id              BIGSERIAL PRIMARY KEY,
+    recipient       VARCHAR(100) NOT NULL,
+    subject         VARCHAR(200) NOT NULL,
+    body            TEXT NOT NULL,
+    status          VARCHAR(20) NOT NULL DEFAULT 'pending' CHECK (status IN ('pending', 'sent', 'failed')),
+    attempts        INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    last_error      TEXT,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    sent_at         TIMESTAMP WITH TIME ZONE
+);
+
+-- Solo las pendientes: es lo único que recorre el worker, y las enviadas no engordan el índice
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_pending ON mail_outbox (next_attempt_at) WHERE status = 'pending';
+-- Purga de enviadas y fallidas viejas (job mail-outbox-purge)
+CREATE INDEX IF NOT EXISTS idx_mail_outbox_created ON mail_outbox (created_at) WHERE status <> 'pending';
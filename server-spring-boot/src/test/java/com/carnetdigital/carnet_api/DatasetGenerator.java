@@ -0,0 +1,325 @@
+package com.carnetdigital.carnet_api;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generador de datos sintéticos a escala para users y tokens, escritos con COPY FROM STDIN.
+ *
+ * Los usuarios se reparten en bloques de CHUNK; cada bloque se genera con su propio SplittableRandom
+ * derivado de (seed, bloque) y se escribe en su propia conexión y transacción, así que el resultado
+ * es idéntico con cualquier cantidad de productores (las fechas son relativas a options.now()). Los emails son &lt;prefijo&gt;&lt;n&gt;@&lt;dominio&gt; y
+ * todos comparten el mismo hash de contraseña (un BCrypt por usuario haría inviable el millón).
+ *
+ * Distribuciones (aproximadas a producción):
+ * - Nombres y apellidos con peso tipo Zipf sobre listas de nombres frecuentes.
+ * - Rol: 2% admin. Estado: 85% active, 10% inactive (active = false), 5% pending. 3% con borrado lógico.
+ * - Tokens por usuario: uniforme en [0, 2 * media]. Tipo: 40% access, 40% refresh, 10% reset,
+ *   10% verification. Creados en los últimos 90 días con la vigencia de su tipo; 30% usados.
+ *
+ * ./gradlew generateDataset -Pdataset.jdbcUrl=jdbc:postgresql://localhost:5436/carnet_dataset -Pdataset.dbUser=...
+ *                           [-Pdataset.users=1000000 -Pdataset.tokensPerUser=50 -Pdataset.seed=42 -Pdataset.producers=4]
+ * La URL y el usuario no tienen valor por defecto: el generador borra y escribe users, así que nunca apunta
+ * solo a la base de la aplicación.
+ */
+public class DatasetGenerator {
+
+    static final int CHUNK = 10_000;
+
+    private static final String COPY_USERS =
+        "COPY users (id, first_name, last_name, email, password, role, status, active, version, " +
+        "\"createdAt\", \"updatedAt\", \"deletedAt\") FROM STDIN WITH (FORMAT text)";
+    private static final String COPY_TOKENS =
+        "COPY tokens (id, token, used, user_fk, expires_at, token_type, \"createdAt\", \"updatedAt\") " +
+        "FROM STDIN WITH (FORMAT text)";
+
+    private static final String[] FIRST_NAMES = {
+        "María", "José", "Ana", "Luis", "Carlos", "Sofía", "Jorge", "Valentina", "Diego", "Camila",
+        "Juan", "Gabriela", "Andrés", "Daniela", "Miguel", "Fernanda", "David", "Paola", "Pedro", "Elena",
+        "Ricardo", "Lucía", "Fernando", "Isabel", "Santiago", "Mónica", "Mateo", "Patricia", "Xavier", "Karla"
+    };
+    private static final String[] LAST_NAMES = {
+        "García", "Rodríguez", "Pérez", "López", "Sánchez", "Torres", "Zambrano", "Vera", "Mendoza", "Castillo",
+        "Chávez", "Morales", "Ramírez", "Herrera", "Cedeño", "Jiménez", "Vásquez", "Romero", "Andrade", "Guerrero",
+        "Ortiz", "Salazar", "Molina", "Reyes", "Paredes", "Flores", "Villacís", "Cevallos", "Espinoza", "Ruiz"
+    };
+    private static final double[] NAME_WEIGHTS = zipfCumulative(FIRST_NAMES.length, 1.1);
+
+    private static final String[] TOKEN_TYPES = { "access", "refresh", "reset", "verification" };
+    private static final double[] TOKEN_TYPE_CUMULATIVE = { 0.40, 0.80, 0.90, 1.00 };
+    private static final Duration[] TOKEN_TTL = { Duration.ofHours(24), Duration.ofDays(7), Duration.ofHours(1), Duration.ofHours(24) };
+    private static final int[] TOKEN_LENGTH = { 180, 150, 43, 43 };
+    private static final char[] BASE64URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    public record Options(long users, int tokensPerUser, long seed, int producers,
+                          String emailPrefix, String emailDomain, String passwordHash, LocalDateTime now) {
+
+        public static Options of(long users, int tokensPerUser, String passwordHash) {
+            return new Options(users, tokensPerUser, 42L, Runtime.getRuntime().availableProcessors(),
+                "user", "ueb.edu.ec", passwordHash, LocalDateTime.now());
+        }
+
+        public Options withSeed(long seed) {
+            return new Options(users, tokensPerUser, seed, producers, emailPrefix, emailDomain, passwordHash, now);
+        }
+
+        public Options withProducers(int producers) {
+            return new Options(users, tokensPerUser, seed, producers, emailPrefix, emailDomain, passwordHash, now);
+        }
+
+        public Options withEmailPrefix(String emailPrefix) {
+            return new Options(users, tokensPerUser, seed, producers, emailPrefix, emailDomain, passwordHash, now);
+        }
+    }
+
+    public record Summary(long users, long tokens, Duration elapsed) {
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsed.toMillis(), 1) / 1000.0;
+            return String.format("%d usuarios y %d tokens en %.1f s (%.0f filas/s)",
+                users, tokens, seconds, (users + tokens) / seconds);
+        }
+    }
+
+    /**
+     * Borra los usuarios &lt;prefijo&gt;&lt;n&gt;@&lt;dominio&gt; (y sus tokens, por ON DELETE CASCADE).
+     * Solo coinciden emails con la forma exacta que genera appendUser: con el prefijo "user" no se toca
+     * username@dominio ni user.name@dominio.
+     */
+    public static void deleteGenerated(DataSource dataSource, Options options) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "DELETE FROM users WHERE email ~ ('^' || ? || '[0-9]+@' || ? || '$')")) {
+            statement.setString(1, regexLiteral(options.emailPrefix()));
+            statement.setString(2, regexLiteral(options.emailDomain()));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al borrar el dataset generado: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Genera y copia el dataset con options.producers() conexiones en paralelo; al final hace ANALYZE.
+     */
+    public static Summary generate(DataSource dataSource, Options options) {
+        long start = System.nanoTime();
+        long chunks = (options.users() + CHUNK - 1) / CHUNK;
+        List<Future<long[]>> results = new ArrayList<>();
+        long users = 0;
+        long tokens = 0;
+
+        try (ExecutorService producers = Executors.newFixedThreadPool(Math.max(1, options.producers()))) {
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                long chunkIndex = chunk;
+                results.add(producers.submit(() -> copyChunk(dataSource, options, chunkIndex)));
+            }
+            for (Future<long[]> result : results) {
+                long[] counts = result.get();
+                users += counts[0];
+                tokens += counts[1];
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error al generar el dataset: " + e.getMessage(), e);
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE users");
+            statement.execute("ANALYZE tokens");
+        } catch (SQLException e) {
+            throw new RuntimeException("Error al analizar las tablas: " + e.getMessage(), e);
+        }
+        return new Summary(users, tokens, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // Un bloque = una transacción: COPY de sus usuarios y luego de sus tokens (la FK exige ese orden)
+    private static long[] copyChunk(DataSource dataSource, Options options, long chunk) throws SQLException {
+        SplittableRandom random = new SplittableRandom(options.seed() * 0x9E3779B97F4A7C15L + chunk);
+        long first = chunk * CHUNK + 1;
+        long last = Math.min(options.users(), first + CHUNK - 1);
+        List<UUID> ids = new ArrayList<>(CHUNK);
+        List<LocalDateTime> createdAt = new ArrayList<>(CHUNK);
+        long tokens = 0;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+
+            CopyStream users = new CopyStream(connection, COPY_USERS);
+            for (long n = first; n <= last; n++) {
+                UUID id = uuid(random);
+                LocalDateTime created = options.now().minusMinutes(random.nextLong(3L * 365 * 24 * 60));
+                ids.add(id);
+                createdAt.add(created);
+                appendUser(users.row(), random, options, n, id, created);
+            }
+            users.end();
+
+            // Los tokens se generan mientras se copian: 10.000 usuarios x 50 tokens no caben holgados en memoria
+            CopyStream tokenRows = new CopyStream(connection, COPY_TOKENS);
+            for (int i = 0; i < ids.size(); i++) {
+                int count = options.tokensPerUser() == 0 ? 0 : random.nextInt(2 * options.tokensPerUser() + 1);
+                for (int t = 0; t < count; t++) {
+                    appendToken(tokenRows.row(), random, ids.get(i), createdAt.get(i), options.now());
+                }
+                tokens += count;
+            }
+            tokenRows.end();
+
+            connection.commit();
+        }
+        return new long[] { ids.size(), tokens };
+    }
+
+    // COPY FROM STDIN que se envía en tramos de ~1 MB
+    private static final class CopyStream {
+
+        private static final int FLUSH_BYTES = 1 << 20;
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 4096);
+
+        CopyStream(Connection connection, String sql) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+
+        StringBuilder row() throws SQLException {
+            if (buffer.length() >= FLUSH_BYTES) flush();
+            return buffer;
+        }
+
+        void end() throws SQLException {
+            try {
+                flush();
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    // Formato text de COPY: columnas separadas por tab, \N = NULL (ningún valor generado contiene tabs ni barras)
+    private static void appendUser(StringBuilder row, SplittableRandom random, Options options, long n, UUID id, LocalDateTime created) {
+        double statusDraw = random.nextDouble();
+        String status = statusDraw < 0.85 ? "active" : statusDraw < 0.95 ? "inactive" : "pending";
+        LocalDateTime updated = created.plusMinutes(random.nextLong(Math.max(1, Duration.between(created, options.now()).toMinutes())));
+        boolean deleted = random.nextDouble() < 0.03;
+
+        row.append(id).append('\t')
+            .append(FIRST_NAMES[pick(random, NAME_WEIGHTS)]).append('\t')
+            .append(LAST_NAMES[pick(random, NAME_WEIGHTS)]).append('\t')
+            .append(options.emailPrefix()).append(n).append('@').append(options.emailDomain()).append('\t')
+            .append(options.passwordHash()).append('\t')
+            .append(random.nextDouble() < 0.02 ? "admin" : "student").append('\t')
+            .append(status).append('\t')
+            .append(!status.equals("inactive")).append('\t')
+            .append(random.nextInt(4)).append('\t')
+            .append(created).append('\t')
+            .append(updated).append('\t')
+            .append(deleted ? updated.toString() : "\\N").append('\n');
+    }
+
+    private static void appendToken(StringBuilder row, SplittableRandom random, UUID userId, LocalDateTime userCreated, LocalDateTime now) {
+        double typeDraw = random.nextDouble();
+        int type = 0;
+        while (typeDraw >= TOKEN_TYPE_CUMULATIVE[type]) type++;
+
+        long maxAgeMinutes = Math.max(1, Math.min(Duration.ofDays(90).toMinutes(), Duration.between(userCreated, now).toMinutes()));
+        LocalDateTime created = now.minusMinutes(random.nextLong(maxAgeMinutes));
+
+        row.append(uuid(random)).append('\t');
+        for (int i = 0; i < TOKEN_LENGTH[type]; i++) {
+            row.append(BASE64URL[random.nextInt(BASE64URL.length)]);
+        }
+        row.append('\t')
+            .append(random.nextDouble() < 0.30).append('\t')
+            .append(userId).append('\t')
+            .append(created.plus(TOKEN_TTL[type])).append('\t')
+            .append(TOKEN_TYPES[type]).append('\t')
+            .append(created).append('\t')
+            .append(created).append('\n');
+    }
+
+    // Escapa todo lo que no sea letra o dígito para usarlo literal en una expresión regular de PostgreSQL
+    static String regexLiteral(String value) {
+        return value.replaceAll("[^A-Za-z0-9]", "\\\\$0");
+    }
+
+    // UUID v4 a partir del generador del bloque (reproducible, a diferencia de UUID.randomUUID)
+    private static UUID uuid(SplittableRandom random) {
+        long msb = (random.nextLong() & 0xFFFFFFFFFFFF0FFFL) | 0x0000000000004000L;
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    private static int pick(SplittableRandom random, double[] cumulative) {
+        double draw = random.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (draw < cumulative[i]) return i;
+        }
+        return cumulative.length - 1;
+    }
+
+    private static double[] zipfCumulative(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= total;
+        }
+        return cumulative;
+    }
+
+    public static void main(String[] args) {
+        String jdbcUrl = requiredProperty("dataset.jdbcUrl");
+        String password = System.getProperty("dataset.password", "Secreto123!");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(jdbcUrl,
+            requiredProperty("dataset.dbUser"), System.getProperty("dataset.dbPassword", ""));
+
+        Options options = Options.of(Long.getLong("dataset.users", 1_000_000), Integer.getInteger("dataset.tokensPerUser", 50),
+                new BCryptPasswordEncoder().encode(password))
+            .withSeed(Long.getLong("dataset.seed", 42))
+            .withProducers(Integer.getInteger("dataset.producers", Runtime.getRuntime().availableProcessors()))
+            .withEmailPrefix(System.getProperty("dataset.emailPrefix", "user"));
+
+        deleteGenerated(dataSource, options);
+        System.out.println("Dataset: " + generate(dataSource, options) + " (contraseña: " + password + ")");
+    }
+
+    private static String requiredProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Falta -P" + name + " (el generador no usa la base de la aplicación por defecto)");
+        }
+        return value;
+    }
+}
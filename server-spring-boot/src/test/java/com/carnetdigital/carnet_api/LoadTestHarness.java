@@ -0,0 +1,277 @@
+package com.carnetdigital.carnet_api;
+
+import com.carnetdigital.carnet_api.service.JwtService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Generador de carga local: levanta CarnetApiApplication contra PostgreSQL (embebido o loadTest.jdbcUrl),
+ * siembra datos sintéticos (DatasetGenerator) y ejecuta cada escenario por separado con N clientes en bucle cerrado.
+ * Por escenario registra latencias en un HdrHistogram y escribe en build/reports/load-test:
+ *  - &lt;commit&gt;.tsv  : requests, errores, req/s y percentiles (comparable entre commits)
+ *  - &lt;commit&gt;.hlog : histogramas completos (HistogramLogProcessor / HdrHistogram plotter)
+ * Con loadTest.baseline=&lt;tsv&gt; imprime además la variación de req/s y p99 contra esa corrida.
+ *
+ * ./gradlew loadTest [-PloadTest.scenarios=login,me -PloadTest.clients=100 -PloadTest.seconds=60]
+ */
+@Tag("load-test")
+class LoadTestHarness {
+
+    private static final List<String> SCENARIOS = List.of(
+        System.getProperty("loadTest.scenarios", "login,me,list,search,validate").split(","));
+    private static final int CLIENTS = Integer.getInteger("loadTest.clients", 50);
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("loadTest.warmupSeconds", 5));
+    private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("loadTest.seconds", 30));
+    private static final int USERS = Integer.getInteger("loadTest.users", 10_000);
+    private static final int TOKENS_PER_USER = Integer.getInteger("loadTest.tokensPerUser", 5);
+    private static final long SEED = Long.getLong("loadTest.seed", 42);
+    private static final String JDBC_URL = System.getProperty("loadTest.jdbcUrl", "");
+    private static final String DB_USER = System.getProperty("loadTest.dbUser", "postgres");
+    private static final String DB_PASSWORD = System.getProperty("loadTest.dbPassword", "");
+    private static final Path OUTPUT_DIR = Path.of(System.getProperty("loadTest.outputDir", "build/reports/load-test"));
+    private static final String COMMIT = System.getProperty("loadTest.commit", "local");
+    private static final String BASELINE = System.getProperty("loadTest.baseline", "");
+
+    private static final String PASSWORD = "Secreto123!";
+    private static final String[] SEARCH_TERMS = { "Mar", "Jos", "Ana", "Lui", "Car", "Sof", "Jor", "Val" };
+    private static final int SAMPLE = 500; // Usuarios para login/me y tokens para validate
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private record Scenario(String name, String endpoint, IntFunction<HttpRequest> request) {
+    }
+
+    private record Result(Scenario scenario, Histogram histogram, long errors) {
+
+        double throughput() {
+            return histogram.getTotalCount() / (double) MEASURE.toSeconds();
+        }
+
+        double percentileMs(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    @Test
+    void runScenarios() throws Exception {
+        EmbeddedPostgres postgres = JDBC_URL.isBlank() ? EmbeddedPostgres.builder().start() : null;
+        String url = postgres != null ? postgres.getJdbcUrl("postgres", "postgres") : JDBC_URL;
+        try (ConfigurableApplicationContext context = start(url)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            seed(context);
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            Map<String, Scenario> scenarios = scenarios(port, jdbcTemplate, context.getBean(JwtService.class));
+
+            List<Result> results = new ArrayList<>();
+            for (String name : SCENARIOS) {
+                Scenario scenario = scenarios.get(name.trim());
+                if (scenario == null) {
+                    throw new IllegalArgumentException("Escenario desconocido: " + name + " (" + scenarios.keySet() + ")");
+                }
+                load(scenario, WARMUP, null, null);
+                Histogram histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+                AtomicLong errors = new AtomicLong();
+                histogram.setStartTimeStamp(System.currentTimeMillis());
+                load(scenario, MEASURE, histogram, errors);
+                histogram.setEndTimeStamp(System.currentTimeMillis());
+                histogram.setTag(scenario.name());
+                results.add(new Result(scenario, histogram, errors.get()));
+            }
+            report(results);
+        } finally {
+            if (postgres != null) postgres.close();
+        }
+    }
+
+    private ConfigurableApplicationContext start(String url) {
+        // Como argumentos de línea de comandos para que tengan prioridad sobre application.properties
+        return new SpringApplicationBuilder(CarnetApiApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=" + url,
+            "--spring.datasource.username=" + DB_USER,
+            "--spring.datasource.password=" + DB_PASSWORD,
+            "--spring.flyway.enabled=true",
+            "--logging.level.root=WARN");
+    }
+
+    // lt1..ltN@ueb.edu.ec con DatasetGenerator (misma semilla = mismo dataset); solo si faltan usuarios
+    private void seed(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email LIKE 'lt%@ueb.edu.ec'", Integer.class);
+        if (existing != null && existing >= USERS) {
+            return;
+        }
+        DatasetGenerator.Options options = DatasetGenerator.Options
+            .of(USERS, TOKENS_PER_USER, context.getBean(PasswordEncoder.class).encode(PASSWORD))
+            .withSeed(SEED)
+            .withEmailPrefix("lt");
+        DataSource dataSource = context.getBean(DataSource.class);
+        DatasetGenerator.deleteGenerated(dataSource, options);
+        System.out.println("Dataset: " + DatasetGenerator.generate(dataSource, options));
+    }
+
+    private Map<String, Scenario> scenarios(int port, JdbcTemplate jdbcTemplate, JwtService jwtService) {
+        String base = "http://localhost:" + port;
+        // Muestra de usuarios que pueden iniciar sesión (activos y sin borrado lógico)
+        List<Map<String, Object>> sample = jdbcTemplate.queryForList(
+            "SELECT id, email, role, security_stamp FROM users WHERE email LIKE 'lt%@ueb.edu.ec' AND active AND \"deletedAt\" IS NULL " +
+            "ORDER BY email LIMIT ?", SAMPLE);
+        String[] emails = sample.stream().map(row -> (String) row.get("email")).toArray(String[]::new);
+        String[] accessTokens = sample.stream()
+            .map(row -> jwtService.generateAccessToken((String) row.get("email"), (UUID) row.get("id"), row.get("role").toString(),
+                (Integer) row.get("security_stamp")))
+            .toArray(String[]::new);
+        // Mezcla de tokens vigentes, usados y vencidos, como los genera DatasetGenerator
+        String[] validationTokens = jdbcTemplate.queryForList(
+            "SELECT t.token FROM tokens t JOIN users u ON u.id = t.user_fk WHERE u.email LIKE 'lt%@ueb.edu.ec' LIMIT ?",
+            String.class, SAMPLE).toArray(String[]::new);
+        int pages = Math.max(1, USERS / 20);
+
+        Map<String, Scenario> scenarios = new HashMap<>();
+        scenarios.put("login", new Scenario("login", "POST /api/v1/auth/login", i -> json(base + "/api/v1/auth/login",
+            "{\"email\":\"" + emails[i % emails.length] + "\",\"password\":\"" + PASSWORD + "\"}")));
+        scenarios.put("me", new Scenario("me", "GET /api/v1/auth/me", i -> HttpRequest.newBuilder(URI.create(base + "/api/v1/auth/me"))
+            .header("Authorization", "Bearer " + accessTokens[i % accessTokens.length])
+            .GET().build()));
+        scenarios.put("list", new Scenario("list", "GET /api/v1/users?page&size=20", i -> get(base
+            + "/api/v1/users?page=" + (i * 7919 % pages) + "&size=20")));
+        scenarios.put("search", new Scenario("search", "GET /api/v1/users/search?q", i -> get(base
+            + "/api/v1/users/search?q=" + URLEncoder.encode(SEARCH_TERMS[i % SEARCH_TERMS.length], StandardCharsets.UTF_8)
+            + "&page=0&size=20")));
+        scenarios.put("validate", new Scenario("validate", "POST /api/tokens/validate", i -> json(base + "/api/tokens/validate",
+            "{\"token\":\"" + validationTokens[i % validationTokens.length] + "\"}")));
+        return scenarios;
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+
+    private static HttpRequest json(String url, String body) {
+        return HttpRequest.newBuilder(URI.create(url))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    // CLIENTS hilos virtuales en bucle cerrado hasta que vence la duración; sin histograma = calentamiento
+    private void load(Scenario scenario, Duration duration, Histogram histogram, AtomicLong errors) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        // El cliente HTTP se declara primero para cerrarse después de que terminen todos los clientes
+        try (HttpClient http = HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_1_1)
+                 .executor(Executors.newVirtualThreadPerTaskExecutor())
+                 .build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                clients.submit(() -> {
+                    for (int i = client; System.nanoTime() < deadline; i += CLIENTS) {
+                        long start = System.nanoTime();
+                        try {
+                            int status = http.send(scenario.request().apply(i), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (histogram == null) continue;
+                            if (status < 400) {
+                                histogram.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (System.nanoTime() - start) / 1000));
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            if (errors != null) errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void report(List<Result> results) throws IOException {
+        Files.createDirectories(OUTPUT_DIR);
+        Path tsv = OUTPUT_DIR.resolve(COMMIT + ".tsv");
+        Path hlog = OUTPUT_DIR.resolve(COMMIT + ".hlog");
+
+        List<String> lines = new ArrayList<>();
+        lines.add("# commit=" + COMMIT + " date=" + Instant.now() + " clients=" + CLIENTS + " seconds=" + MEASURE.toSeconds()
+            + " users=" + USERS + " tokensPerUser=" + TOKENS_PER_USER + " seed=" + SEED + " cpus=" + Runtime.getRuntime().availableProcessors());
+        lines.add("scenario\tendpoint\trequests\terrors\treq_s\tp50_ms\tp90_ms\tp99_ms\tp999_ms\tmax_ms");
+        for (Result result : results) {
+            lines.add(String.format("%s\t%s\t%d\t%d\t%.1f\t%.2f\t%.2f\t%.2f\t%.2f\t%.2f",
+                result.scenario().name(), result.scenario().endpoint(), result.histogram().getTotalCount(), result.errors(),
+                result.throughput(), result.percentileMs(50), result.percentileMs(90), result.percentileMs(99),
+                result.percentileMs(99.9), result.histogram().getMaxValue() / 1000.0));
+        }
+        Files.write(tsv, lines);
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(hlog))) {
+            HistogramLogWriter writer = new HistogramLogWriter(out);
+            writer.outputLogFormatVersion();
+            writer.outputComment("commit=" + COMMIT);
+            writer.outputLegend();
+            for (Result result : results) {
+                writer.outputIntervalHistogram(result.histogram());
+            }
+        }
+
+        Map<String, String[]> baseline = readBaseline();
+        System.out.printf("%n%-9s %-32s %9s %7s %9s %8s %8s %8s %9s%n",
+            "escenario", "endpoint", "requests", "errores", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "vs. base");
+        for (Result result : results) {
+            String[] base = baseline.get(result.scenario().name());
+            String delta = base == null ? "" : String.format("%+.0f%%/%+.0f%%",
+                change(result.throughput(), Double.parseDouble(base[4])),
+                change(result.percentileMs(99), Double.parseDouble(base[7])));
+            System.out.printf("%-9s %-32s %9d %7d %9.1f %8.2f %8.2f %8.2f %9s%n",
+                result.scenario().name(), result.scenario().endpoint(), result.histogram().getTotalCount(), result.errors(),
+                result.throughput(), result.percentileMs(50), result.percentileMs(99), result.percentileMs(99.9), delta);
+        }
+        System.out.println("(vs. base = variación de req/s / variación de p99)");
+        System.out.println("Reporte: " + tsv.toAbsolutePath() + "\nHistogramas: " + hlog.toAbsolutePath());
+    }
+
+    private Map<String, String[]> readBaseline() throws IOException {
+        Map<String, String[]> rows = new HashMap<>();
+        if (BASELINE.isBlank()) return rows;
+        for (String line : Files.readAllLines(Path.of(BASELINE))) {
+            String[] columns = line.split("\t");
+            if (line.startsWith("#") || columns[0].equals("scenario")) continue;
+            rows.put(columns[0], columns);
+        }
+        return rows;
+    }
+
+    private static double change(double current, double previous) {
+        return previous == 0 ? 0 : (current - previous) * 100 / previous;
+    }
+}
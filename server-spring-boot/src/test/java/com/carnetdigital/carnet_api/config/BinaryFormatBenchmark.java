@@ -0,0 +1,218 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.CarnetApiApplication;
+import com.carnetdigital.carnet_api.dto.ApiResponse;
+import com.carnetdigital.carnet_api.dto.TokenValidationResponse;
+import com.carnetdigital.carnet_api.dto.UserDetailResponse;
+import com.carnetdigital.carnet_api.dto.UserLoginRequest;
+import com.carnetdigital.carnet_api.dto.UserResponse;
+import com.carnetdigital.carnet_api.entity.Token.TokenType;
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import com.sun.management.OperatingSystemMXBean;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * JSON vs. CBOR vs. Smile con los mismos DTOs.
+ *
+ * - Códec: bytes y tiempo de CPU del hilo (ThreadMXBean) por operación al serializar y leer cada respuesta
+ *   representativa, sin HTTP de por medio.
+ * - Cable: la aplicación real sobre PostgreSQL embebido, negociando con Accept (y Content-Type en el login);
+ *   bytes del cuerpo y CPU del proceso por petición (cliente y servidor comparten JVM).
+ * Imprime las tablas, no afirma nada salvo que cada formato se negocie de verdad.
+ *
+ * ./gradlew benchmarkTest --tests '*BinaryFormatBenchmark' [-Dbenchmark.iterations=20000 -Dbenchmark.requests=500]
+ */
+@Tag("benchmark")
+class BinaryFormatBenchmark {
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 20_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 500);
+    private static final int USERS = 200;
+
+    private static final Map<MediaType, ObjectMapper> FORMATS = new LinkedHashMap<>();
+
+    static {
+        FORMATS.put(MediaType.APPLICATION_JSON, JsonMapper.builder().findAndAddModules().build());
+        FORMATS.put(MediaType.APPLICATION_CBOR, CBORMapper.builder().findAndAddModules().build());
+        FORMATS.put(WebMvcConfig.APPLICATION_SMILE, SmileMapper.builder().findAndAddModules().build());
+    }
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void codec() {
+        Map<String, Object> payloads = new LinkedHashMap<>();
+        payloads.put("TokenValidationResponse", validation());
+        payloads.put("ApiResponse<UserDetailResponse>", new ApiResponse<>("success", 200, "User retrieved", detail(), null));
+        payloads.put("ApiResponse<List<UserResponse>> x20", list(20));
+        payloads.put("ApiResponse<List<UserResponse>> x100", list(100));
+
+        List<String> rows = new ArrayList<>();
+        payloads.forEach((name, payload) -> FORMATS.forEach((mediaType, mapper) -> {
+            byte[] bytes = mapper.writeValueAsBytes(payload);
+            // Calentamiento para que el JIT compile serializadores y parsers antes de medir
+            for (int i = 0; i < ITERATIONS / 4; i++) {
+                mapper.readTree(mapper.writeValueAsBytes(payload));
+            }
+
+            long start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                mapper.writeValueAsBytes(payload);
+            }
+            double writeMicros = (threads.getCurrentThreadCpuTime() - start) / 1_000.0 / ITERATIONS;
+
+            start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                mapper.readTree(bytes);
+            }
+            double readMicros = (threads.getCurrentThreadCpuTime() - start) / 1_000.0 / ITERATIONS;
+
+            rows.add(String.format("%-38s %-28s %8d %12.2f %12.2f", name, mediaType, bytes.length, writeMicros, readMicros));
+        }));
+
+        System.out.printf("%n%-38s %-28s %8s %12s %12s%n", "payload", "formato", "bytes", "cpu µs/w", "cpu µs/r");
+        rows.forEach(System.out::println);
+    }
+
+    @Test
+    void wire() throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext context = start(postgres);
+             HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            String hash = context.getBean(PasswordEncoder.class).encode(VirtualThreadPinningTests.PASSWORD);
+            VirtualThreadPinningTests.seedUsers(context.getBean(JdbcTemplate.class), hash, USERS);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+            for (Map.Entry<MediaType, ObjectMapper> format : FORMATS.entrySet()) {
+                MediaType mediaType = format.getKey();
+                byte[] login = format.getValue().writeValueAsBytes(
+                    new UserLoginRequest("vt1@ueb.edu.ec", VirtualThreadPinningTests.PASSWORD));
+
+                rows.add(measure(http, mediaType, "POST /api/v1/auth/login", () ->
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/login"))
+                        .header("Content-Type", mediaType.toString())
+                        .header("Accept", mediaType.toString())
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(login))
+                        .build(), REQUESTS / 10));
+                rows.add(measure(http, mediaType, "GET  /api/v1/users?size=20", () ->
+                    get(port, "/api/v1/users?page=0&size=20", mediaType), REQUESTS));
+                rows.add(measure(http, mediaType, "GET  /api/v1/users?size=100", () ->
+                    get(port, "/api/v1/users?page=0&size=100", mediaType), REQUESTS));
+            }
+        }
+
+        System.out.printf("%n%-28s %-30s %8s %12s%n", "formato", "endpoint", "bytes", "cpu ms/req");
+        rows.forEach(System.out::println);
+    }
+
+    // Content-Type debe coincidir con lo pedido: si no, el convertidor no se está negociando
+    private String measure(HttpClient http, MediaType mediaType, String endpoint,
+                           Supplier<HttpRequest> request, int requests) throws Exception {
+        HttpResponse<byte[]> sample = http.send(request.get(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, sample.statusCode(), endpoint + " " + mediaType);
+        assertEquals(mediaType, MediaType.parseMediaType(sample.headers().firstValue("Content-Type").orElseThrow()));
+
+        for (int i = 0; i < requests / 4; i++) {
+            http.send(request.get(), HttpResponse.BodyHandlers.discarding());
+        }
+        OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        long start = os.getProcessCpuTime();
+        for (int i = 0; i < requests; i++) {
+            http.send(request.get(), HttpResponse.BodyHandlers.discarding());
+        }
+        double cpuMillis = (os.getProcessCpuTime() - start) / 1_000_000.0 / requests;
+        return String.format("%-28s %-30s %8d %12.3f", mediaType, endpoint, sample.body().length, cpuMillis);
+    }
+
+    private HttpRequest get(int port, String path, MediaType mediaType) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Accept", mediaType.toString())
+            .GET()
+            .build();
+    }
+
+    private ConfigurableApplicationContext start(EmbeddedPostgres postgres) {
+        return new SpringApplicationBuilder(CarnetApiApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+            "--spring.datasource.username=postgres",
+            "--spring.datasource.password=",
+            "--spring.flyway.enabled=true",
+            "--warmup.enabled=false");
+    }
+
+    private TokenValidationResponse validation() {
+        return TokenValidationResponse.builder()
+            .valid(true)
+            .message("Token is valid")
+            .userId(UUID.randomUUID())
+            .userEmail("ana@ueb.edu.ec")
+            .tokenType(TokenType.access)
+            .expiresAt(LocalDateTime.of(2025, 1, 1, 10, 0))
+            .build();
+    }
+
+    private UserDetailResponse detail() {
+        return UserDetailResponse.builder()
+            .id(UUID.randomUUID())
+            .firstName("Ana")
+            .lastName("García")
+            .email("ana@ueb.edu.ec")
+            .role(UserRole.student)
+            .status(UserStatus.active)
+            .active(true)
+            .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0))
+            .updatedAt(LocalDateTime.of(2025, 2, 1, 10, 0))
+            .totalTokens(5)
+            .activeTokens(2)
+            .build();
+    }
+
+    private ApiResponse<List<UserResponse>> list(int size) {
+        List<UserResponse> users = IntStream.range(0, size)
+            .mapToObj(i -> UserResponse.builder()
+                .id(UUID.randomUUID())
+                .firstName("Ana " + i)
+                .lastName("García")
+                .email("ana" + i + "@ueb.edu.ec")
+                .role(UserRole.student)
+                .status(UserStatus.active)
+                .active(true)
+                .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0).plusDays(i))
+                .updatedAt(LocalDateTime.of(2025, 2, 1, 10, 0))
+                .build())
+            .toList();
+        return new ApiResponse<>("success", 200, "Users retrieved", users,
+            Map.of("paginated", false, "totalRecords", size));
+    }
+}
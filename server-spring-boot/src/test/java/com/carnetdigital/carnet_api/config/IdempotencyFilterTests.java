@@ -0,0 +1,258 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.service.JwtService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Idempotency-Key sobre POST /api/v1/auth/register con la aplicación real y PostgreSQL embebido:
+ * reintentos secuenciales y concurrentes crean un solo usuario y reciben la misma respuesta (con sus
+ * encabezados ETag, Location y Retry-After), y la misma clave enviada por otro usuario o por otro cliente
+ * anónimo no repite la respuesta ajena.
+ * Se ejecuta con ./gradlew idempotencyTest.
+ */
+@Tag("idempotency")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "api.idempotency.paths=/api/v1/auth/register," + IdempotencyFilterTests.HEADERS_PATH
+})
+@Import(IdempotencyFilterTests.CreatedWithHeadersController.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IdempotencyFilterTests {
+
+    static final String HEADERS_PATH = "/test/idempotency/created";
+
+    private static EmbeddedPostgres postgres;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdempotencyFilter idempotencyFilter;
+
+    @Autowired
+    private JwtService jwtService;
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        http.close();
+        postgres.close();
+    }
+
+    @Test
+    void retryReplaysFirstResponseWithoutRegisteringAgain() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = registration("retry@ueb.edu.ec");
+
+        HttpResponse<String> first = register(key, body);
+        HttpResponse<String> retry = register(key, body);
+
+        assertEquals(201, first.statusCode());
+        assertEquals(201, retry.statusCode());
+        assertEquals(first.body(), retry.body());
+        assertTrue(first.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).isEmpty());
+        assertEquals("true", retry.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).orElseThrow());
+        assertEquals(1, users("retry@ueb.edu.ec"));
+
+        // Sin la caché local (otro nodo o reinicio) la respuesta sale de idempotency_keys
+        ((Map<?, ?>) ReflectionTestUtils.getField(idempotencyFilter, "completed")).clear();
+        HttpResponse<String> fromTable = register(key, body);
+        assertEquals(201, fromTable.statusCode());
+        assertEquals(first.body(), fromTable.body());
+    }
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = registration("concurrent@ueb.edu.ec");
+
+        List<CompletableFuture<HttpResponse<String>>> requests = IntStream.range(0, 5)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return register(key, body);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }))
+            .toList();
+        List<HttpResponse<String>> responses = requests.stream().map(CompletableFuture::join).toList();
+
+        responses.forEach(response -> assertEquals(201, response.statusCode(), response.body()));
+        assertEquals(1, responses.stream().map(HttpResponse::body).distinct().count());
+        assertEquals(1, users("concurrent@ueb.edu.ec"));
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        String key = UUID.randomUUID().toString();
+        assertEquals(201, register(key, registration("first@ueb.edu.ec")).statusCode());
+
+        HttpResponse<String> reused = register(key, registration("second@ueb.edu.ec"));
+
+        assertEquals(422, reused.statusCode());
+        assertEquals(0, users("second@ueb.edu.ec"));
+    }
+
+    @Test
+    void requestInFlightOnAnotherNodeGetsConflict() throws Exception {
+        // El scope anónimo lleva la huella de este cliente: se toma de una petición previa
+        String previous = UUID.randomUUID().toString();
+        register(previous, registration("fingerprint@ueb.edu.ec"));
+        String scope = jdbcTemplate.queryForObject(
+            "SELECT scope FROM idempotency_keys WHERE idempotency_key = ?", String.class, previous);
+
+        String key = UUID.randomUUID().toString();
+        jdbcTemplate.update(
+            "INSERT INTO idempotency_keys (scope, idempotency_key, request_hash, created_at, expires_at) " +
+            "VALUES (?, ?, repeat('0', 64), now(), now() + interval '1 hour')", scope, key);
+
+        HttpResponse<String> response = register(key, registration("other-node@ueb.edu.ec"));
+
+        assertEquals(409, response.statusCode());
+        assertEquals(0, users("other-node@ueb.edu.ec"));
+    }
+
+    @Test
+    void sameKeyFromAnotherUserIsAnotherRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String ana = bearer(UUID.randomUUID());
+        String luis = bearer(UUID.randomUUID());
+
+        HttpResponse<String> first = register(key, registration("ana-key@ueb.edu.ec"), ana);
+        // Con la clave global por ruta este cuerpo distinto daría 422 y el mismo, la respuesta de Ana
+        HttpResponse<String> other = register(key, registration("luis-key@ueb.edu.ec"), luis);
+        HttpResponse<String> retry = register(key, registration("ana-key@ueb.edu.ec"), ana);
+
+        assertEquals(201, first.statusCode());
+        assertEquals(201, other.statusCode());
+        assertTrue(other.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).isEmpty());
+        assertEquals("true", retry.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).orElseThrow());
+        assertEquals(first.body(), retry.body());
+        assertEquals(1, users("ana-key@ueb.edu.ec"));
+        assertEquals(1, users("luis-key@ueb.edu.ec"));
+        assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT count(DISTINCT scope) FROM idempotency_keys WHERE idempotency_key = ?", Integer.class, key));
+    }
+
+    @Test
+    void sameKeyFromAnotherAnonymousClientIsAnotherRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+
+        HttpResponse<String> first = register(key, registration("anon-a@ueb.edu.ec"), null, "cliente-a");
+        HttpResponse<String> other = register(key, registration("anon-b@ueb.edu.ec"), null, "cliente-b");
+
+        assertEquals(201, first.statusCode());
+        assertEquals(201, other.statusCode());
+        assertTrue(other.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).isEmpty());
+        assertEquals(1, users("anon-b@ueb.edu.ec"));
+    }
+
+    @Test
+    void replayKeepsResponseHeaders() throws Exception {
+        String key = UUID.randomUUID().toString();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + HEADERS_PATH))
+            .header(IdempotencyFilter.HEADER, key)
+            .POST(HttpRequest.BodyPublishers.ofString("{}"))
+            .build();
+
+        HttpResponse<String> first = http.send(request, HttpResponse.BodyHandlers.ofString());
+        ((Map<?, ?>) ReflectionTestUtils.getField(idempotencyFilter, "completed")).clear();
+        HttpResponse<String> retry = http.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals("true", retry.headers().firstValue(IdempotencyFilter.REPLAYED_HEADER).orElseThrow());
+        for (String header : List.of("ETag", "Location", "Retry-After")) {
+            assertEquals(first.headers().firstValue(header).orElseThrow(), retry.headers().firstValue(header).orElse(null), header);
+        }
+        assertEquals(1, CreatedWithHeadersController.calls.get());
+    }
+
+    // Creación con encabezados propios: los endpoints reales todavía no devuelven Location ni Retry-After
+    @RestController
+    static class CreatedWithHeadersController {
+
+        static final AtomicInteger calls = new AtomicInteger();
+
+        @PostMapping(HEADERS_PATH)
+        ResponseEntity<String> create() {
+            int call = calls.incrementAndGet();
+            return ResponseEntity.created(URI.create(HEADERS_PATH + "/" + call))
+                .eTag("\"v" + call + "\"")
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(call))
+                .body("{\"call\":" + call + "}");
+        }
+    }
+
+    private HttpResponse<String> register(String key, String body) throws Exception {
+        return register(key, body, null);
+    }
+
+    private HttpResponse<String> register(String key, String body, String authorization) throws Exception {
+        return register(key, body, authorization, null);
+    }
+
+    private HttpResponse<String> register(String key, String body, String authorization, String userAgent) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/register"))
+            .header("Content-Type", "application/json")
+            .header(IdempotencyFilter.HEADER, key)
+            .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (authorization != null) request.header("Authorization", authorization);
+        if (userAgent != null) request.setHeader("User-Agent", userAgent);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String bearer(UUID userId) {
+        return "Bearer " + jwtService.generateAccessToken(userId + "@ueb.edu.ec", userId, "student", 0);
+    }
+
+    private String registration(String email) {
+        return "{\"firstName\":\"Ana\",\"lastName\":\"García\",\"email\":\"" + email + "\",\"password\":\"Secreto123!\"}";
+    }
+
+    private int users(String email) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE email = ?", Integer.class, email);
+    }
+}
@@ -0,0 +1,156 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.service.JwtService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Enrutamiento a réplicas contra dos PostgreSQL locales independientes. No hay replicación entre
+ * ellos: el mismo usuario existe en ambos con distinto nombre, así la respuesta indica qué base leyó.
+ * La ventana de lectura de las propias escrituras se asocia al userId del access token.
+ * Se ejecuta con ./gradlew replicaRoutingTest.
+ */
+@Tag("replica-routing")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "db.replicas.health-check-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicaRoutingTests {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final UUID OTHER_USER_ID = UUID.randomUUID();
+
+    private static EmbeddedPostgres primary;
+    private static EmbeddedPostgres replica;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReplicaPool replicaPool;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @DynamicPropertySource
+    static void datasources(DynamicPropertyRegistry registry) throws IOException {
+        primary = EmbeddedPostgres.builder().start();
+        replica = EmbeddedPostgres.builder().start();
+        Flyway.configure()
+            .dataSource(replica.getPostgresDatabase())
+            .locations("classpath:db/migration")
+            // Igual que spring.flyway.postgresql.transactional-lock=false: los CREATE INDEX CONCURRENTLY
+            // esperarían a la transacción abierta del lock
+            .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+            .load()
+            .migrate();
+
+        registry.add("spring.datasource.url", () -> primary.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("db.replicas.urls", () -> replica.getJdbcUrl("postgres", "postgres"));
+    }
+
+    @BeforeAll
+    void seed() {
+        insertUser(jdbcTemplate, "Primario");
+        insertUser(new JdbcTemplate(replica.getPostgresDatabase()), "Replica");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        primary.close();
+        replica.close();
+    }
+
+    private void insertUser(JdbcTemplate target, String firstName) {
+        target.update(
+            "INSERT INTO users (id, first_name, last_name, email, password, role, status, active, version, " +
+            "\"createdAt\", \"updatedAt\") " +
+            "VALUES (?, ?, 'García', 'replica@ueb.edu.ec', repeat('x', 60), 'student', 'active', true, 0, now(), now())",
+            USER_ID, firstName);
+    }
+
+    @Test
+    @Order(1)
+    void readOnlyTransactionsReadFromReplica() throws Exception {
+        mockMvc.perform(get("/api/v1/users/{id}", USER_ID).header(HttpHeaders.AUTHORIZATION, bearer(USER_ID, "student")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.firstName").value("Replica"));
+
+        // Sin usuario (o con un token inválido) no hay ventana que consultar: se lee del primario
+        mockMvc.perform(get("/api/v1/users/{id}", USER_ID))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.firstName").value("Primario"));
+        mockMvc.perform(get("/api/v1/users/{id}", USER_ID).header(HttpHeaders.AUTHORIZATION, "Bearer no-es-un-jwt"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.firstName").value("Primario"));
+    }
+
+    @Test
+    @Order(2)
+    void writerReadsItsOwnWriteFromPrimary() throws Exception {
+        mockMvc.perform(put("/api/v1/users/{id}", USER_ID)
+                .header(HttpHeaders.AUTHORIZATION, bearer(USER_ID, "student"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Editado\"}"))
+            .andExpect(status().isOk());
+
+        // Otro token del mismo usuario (p. ej. tras renovarlo) sigue dentro de la ventana
+        mockMvc.perform(get("/api/v1/users/{id}", USER_ID).header(HttpHeaders.AUTHORIZATION, bearer(USER_ID, "admin")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.firstName").value("Editado"));
+
+        // Otro usuario sigue leyendo de la réplica
+        mockMvc.perform(get("/api/v1/users/{id}", USER_ID).header(HttpHeaders.AUTHORIZATION, bearer(OTHER_USER_ID, "student")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.firstName").value("Replica"));
+    }
+
+    @Test
+    @Order(3)
+    void unhealthyReplicaFallsBackToPrimary() throws Exception {
+        replica.close();
+        replicaPool.checkHealth();
+
+        mockMvc.perform(get("/api/v1/users/{id}", USER_ID).header(HttpHeaders.AUTHORIZATION, bearer(OTHER_USER_ID, "student")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.firstName").value("Editado"));
+    }
+
+    private String bearer(UUID userId, String role) {
+        return "Bearer " + jwtService.generateAccessToken("replica@ueb.edu.ec", userId, role, 0);
+    }
+}
@@ -0,0 +1,79 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.dto.ApiResponse;
+import com.carnetdigital.carnet_api.helpers.RequestTimings;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Header Server-Timing: serialize mide desde que ServerTimingAdvice entrega el cuerpo hasta el primer byte
+ * escrito, y meta.timing (armado antes de serializar) no lo incluye.
+ */
+class ServerTimingFilterTests {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter();
+    private final ServerTimingAdvice advice = new ServerTimingAdvice();
+
+    @Test
+    void serializeCoversTheTimeUntilTheBodyIsWritten() throws Exception {
+        ApiResponse<String> body = new ApiResponse<>("success", 200, "ok", "dato", null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        FilterChain chain = (request, servletResponse) -> {
+            RequestTimings.add(RequestTimings.Phase.DB, 2_000_000);
+            advice.beforeBodyWrite(body, null, null, null, null, null);
+            busyWait(3_000_000); // serialización
+            servletResponse.getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+        };
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/users"), response, chain);
+
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertNotNull(header);
+        assertEquals(2.0, duration(header, "db"));
+        assertTrue(duration(header, "serialize") >= 3.0, header);
+
+        Map<?, ?> timing = (Map<?, ?>) ((Map<?, ?>) body.getMeta()).get("timing");
+        assertEquals(2.0, timing.get("db"));
+        assertFalse(timing.containsKey("serialize"));
+        assertNull(RequestTimings.current());
+    }
+
+    @Test
+    void responsesWithoutBodyStillGetTheHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/v1/users/1"), response,
+            (request, servletResponse) -> ((HttpServletResponse) servletResponse).setStatus(304));
+
+        String header = response.getHeader(ServerTimingFilter.HEADER);
+        assertNotNull(header);
+        assertEquals(0.0, duration(header, "serialize"));
+    }
+
+    private static double duration(String header, String metric) {
+        Matcher matcher = Pattern.compile("(?:^|, )" + Pattern.quote(metric) + ";dur=([0-9.]+)").matcher(header);
+        assertTrue(matcher.find(), header);
+        return Double.parseDouble(matcher.group(1));
+    }
+
+    private static void busyWait(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
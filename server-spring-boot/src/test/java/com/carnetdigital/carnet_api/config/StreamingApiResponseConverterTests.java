@@ -0,0 +1,109 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.dto.ApiResponse;
+import com.carnetdigital.carnet_api.dto.PagedResponse;
+import com.carnetdigital.carnet_api.dto.StreamingApiResponse;
+import com.carnetdigital.carnet_api.dto.UserResponse;
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * El JSON escrito en streaming debe ser idéntico al de ApiResponse con la lista o PagedResponse materializados.
+ * Con CBOR negociado, el documento debe ser el mismo que escribe el CBORMapper para el ApiResponse equivalente.
+ */
+class StreamingApiResponseConverterTests {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().findAndAddModules().build();
+    private final StreamingApiResponseConverter converter = new StreamingApiResponseConverter(jsonMapper);
+
+    private final List<UserResponse> users = IntStream.range(0, 3)
+        .mapToObj(i -> UserResponse.builder()
+            .id(UUID.randomUUID())
+            .firstName("Ana " + i)
+            .lastName("García")
+            .email("ana" + i + "@ueb.edu.ec")
+            .role(UserRole.student)
+            .status(UserStatus.active)
+            .active(true)
+            .createdAt(LocalDateTime.of(2025, 1, 1, 10, 0).plusDays(i))
+            .updatedAt(LocalDateTime.of(2025, 2, 1, 10, 0))
+            .build())
+        .toList();
+
+    @Test
+    void listMatchesMaterializedApiResponse() throws Exception {
+        StreamingApiResponse<UserResponse> streaming = new StreamingApiResponse<>("ok", UserResponse.class,
+            this::emit, null, count -> Map.of("paginated", false, "totalRecords", count));
+
+        ApiResponse<List<UserResponse>> expected = new ApiResponse<>("success", 200, "ok", users,
+            Map.of("paginated", false, "totalRecords", users.size()));
+
+        assertEquals(jsonMapper.readTree(jsonMapper.writeValueAsString(expected)), jsonMapper.readTree(write(streaming)));
+    }
+
+    @Test
+    void pageMatchesMaterializedPagedResponse() throws Exception {
+        StreamingApiResponse<UserResponse> streaming = new StreamingApiResponse<>("ok", UserResponse.class,
+            this::emit, new StreamingApiResponse.Page(1, 3, 7), count -> Map.of("paginated", true));
+
+        PagedResponse<UserResponse> page = new PagedResponse<>(users, 1, 3, 7, 3, false, false, false);
+        ApiResponse<PagedResponse<UserResponse>> expected = new ApiResponse<>("success", 200, "ok", page,
+            Map.of("paginated", true));
+
+        assertEquals(jsonMapper.readTree(jsonMapper.writeValueAsString(expected)), jsonMapper.readTree(write(streaming)));
+    }
+
+    @Test
+    void cborMatchesMaterializedApiResponse() throws Exception {
+        CBORMapper cborMapper = CBORMapper.builder().findAndAddModules().build();
+        StreamingApiResponseConverter binary = new StreamingApiResponseConverter(
+            Map.of(MediaType.APPLICATION_JSON, jsonMapper, MediaType.APPLICATION_CBOR, cborMapper));
+        StreamingApiResponse<UserResponse> streaming = new StreamingApiResponse<>("ok", UserResponse.class,
+            this::emit, null, count -> Map.of("totalRecords", count));
+
+        ApiResponse<List<UserResponse>> expected = new ApiResponse<>("success", 200, "ok", users,
+            Map.of("totalRecords", users.size()));
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        binary.write(streaming, MediaType.APPLICATION_CBOR, output);
+
+        assertEquals(MediaType.APPLICATION_CBOR, output.getHeaders().getContentType());
+        assertEquals(cborMapper.readTree(cborMapper.writeValueAsBytes(expected)), cborMapper.readTree(output.getBodyAsBytes()));
+    }
+
+    @Test
+    void failureBeforeFirstItemWritesNothing() {
+        StreamingApiResponse<UserResponse> streaming = new StreamingApiResponse<>("ok", UserResponse.class,
+            sink -> { throw new RuntimeException("sortBy inválido"); }, null, count -> Map.of());
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+        assertThrows(RuntimeException.class, () -> converter.write(streaming, null, output));
+        assertEquals("", output.getBodyAsString());
+    }
+
+    private long emit(Consumer<UserResponse> sink) {
+        users.forEach(sink);
+        return users.size();
+    }
+
+    private String write(StreamingApiResponse<UserResponse> response) throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(response, null, output);
+        return output.getBodyAsString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.carnetdigital.carnet_api.config;
+
+import com.carnetdigital.carnet_api.CarnetApiApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Throughput de login y listado paginado con Tomcat sobre pool de plataforma vs. hilos virtuales.
+ * Misma base (PostgreSQL embebido), mismo pool de Hikari; solo cambia spring.threads.virtual.enabled.
+ * Cada cliente es un hilo virtual en bucle cerrado. Imprime la tabla, no afirma nada: los números
+ * dependen de la máquina (cliente y servidor comparten CPU).
+ *
+ * ./gradlew benchmarkTest [-Dbenchmark.clients=400 -Dbenchmark.seconds=10]
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final Duration WARMUP = Duration.ofSeconds(3);
+    private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("benchmark.seconds", 10));
+    private static final int USERS = 500;
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            boolean seeded = false;
+            for (boolean virtualThreads : new boolean[] { false, true }) {
+                try (ConfigurableApplicationContext context = start(postgres, virtualThreads)) {
+                    if (!seeded) {
+                        String hash = context.getBean(PasswordEncoder.class).encode(VirtualThreadPinningTests.PASSWORD);
+                        VirtualThreadPinningTests.seedUsers(context.getBean(JdbcTemplate.class), hash, USERS);
+                        seeded = true;
+                    }
+                    int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                    String mode = virtualThreads ? "virtual" : "platform";
+
+                    rows.add(run(mode, "POST /api/v1/auth/login",
+                        i -> VirtualThreadPinningTests.loginRequest(port, 1 + i % USERS)));
+                    rows.add(run(mode, "GET  /api/v1/users?page=0&size=20",
+                        i -> VirtualThreadPinningTests.listRequest(port)));
+                }
+            }
+        }
+
+        System.out.printf("%n%-9s %-34s %10s %9s %9s %8s%n", "modo", "endpoint", "req/s", "p50 ms", "p99 ms", "errores");
+        rows.forEach(System.out::println);
+    }
+
+    private ConfigurableApplicationContext start(EmbeddedPostgres postgres, boolean virtualThreads) {
+        // Como argumentos de línea de comandos para que tengan prioridad sobre application.properties
+        return new SpringApplicationBuilder(CarnetApiApplication.class).run(
+            "--server.port=0",
+            "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+            "--spring.datasource.username=postgres",
+            "--spring.datasource.password=",
+            "--spring.flyway.enabled=true",
+            "--spring.threads.virtual.enabled=" + virtualThreads);
+    }
+
+    private String run(String mode, String endpoint, IntFunction<HttpRequest> requests) throws Exception {
+        load(requests, WARMUP, null, null);
+
+        AtomicLong errors = new AtomicLong();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        load(requests, MEASURE, latencies, errors);
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        double throughput = sorted.length / (double) MEASURE.toSeconds();
+        return String.format("%-9s %-34s %10.1f %9.1f %9.1f %8d", mode, endpoint, throughput,
+            percentile(sorted, 0.50), percentile(sorted, 0.99), errors.get());
+    }
+
+    // CLIENTS hilos virtuales enviando peticiones en bucle cerrado hasta que vence la duración
+    private void load(IntFunction<HttpRequest> requests, Duration duration, List<Long> latencies, AtomicLong errors)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        // El cliente HTTP se declara primero para cerrarse después de que terminen todos los clientes
+        try (HttpClient http = HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_1_1)
+                 .executor(Executors.newVirtualThreadPerTaskExecutor())
+                 .build();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int client = c;
+                clients.submit(() -> {
+                    for (int i = client; System.nanoTime() < deadline; i += CLIENTS) {
+                        long start = System.nanoTime();
+                        try {
+                            int status = http.send(requests.apply(i), HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (latencies == null) continue;
+                            if (status == 200) {
+                                latencies.add(System.nanoTime() - start);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            if (errors != null) errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.carnetdigital.carnet_api.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pinning de hilos virtuales: con el perfil vthreads (Tomcat sobre hilos virtuales) se lanzan
+ * logins y listados concurrentes mientras JFR escucha jdk.VirtualThreadPinned. Un hilo virtual
+ * bloqueado dentro de un synchronized (o en código nativo) retiene su carrier; la prueba falla
+ * con la pila de cada evento que supere el umbral por defecto de JFR (20 ms).
+ * Se ejecuta con ./gradlew virtualThreadTest.
+ */
+@Tag("virtual-threads")
+@ActiveProfiles("vthreads")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VirtualThreadPinningTests {
+
+    static final int USERS = 100;
+    static final String PASSWORD = "Secreto123!";
+
+    private static final int CONCURRENCY = 100;
+    private static final int REQUESTS = 600;
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(20);
+
+    private static EmbeddedPostgres postgres;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @BeforeAll
+    void seed() {
+        seedUsers(jdbcTemplate, passwordEncoder.encode(PASSWORD), USERS);
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    // Usuarios vt1..vtN@ueb.edu.ec, todos con la misma contraseña (un solo hash BCrypt)
+    static void seedUsers(JdbcTemplate jdbcTemplate, String passwordHash, int users) {
+        jdbcTemplate.update(
+            "INSERT INTO users (id, first_name, last_name, email, password, role, status, active, version, " +
+            "\"createdAt\", \"updatedAt\") " +
+            "SELECT gen_random_uuid(), 'Ana', 'García', 'vt' || i || '@ueb.edu.ec', ?, " +
+            "'student', 'active', true, 0, now() - i * interval '1 minute', now() " +
+            "FROM generate_series(1, " + users + ") AS i", passwordHash);
+    }
+
+    static HttpRequest loginRequest(int port, int user) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/login"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"email\":\"vt" + user + "@ueb.edu.ec\",\"password\":\"" + PASSWORD + "\"}"))
+            .build();
+    }
+
+    static HttpRequest listRequest(int port) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/users?page=0&size=20"))
+            .GET()
+            .build();
+    }
+
+    @Test
+    void loginAndListingDoNotPinCarrierThreads() throws Exception {
+        List<String> pinned = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> statuses = Collections.synchronizedList(new ArrayList<>());
+
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(PINNED_THRESHOLD).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(describe(event)));
+            recording.startAsync();
+
+            try (ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+                 HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+                List<Future<?>> requests = new ArrayList<>();
+                for (int i = 0; i < REQUESTS; i++) {
+                    HttpRequest request = i % 2 == 0 ? loginRequest(port, 1 + i % USERS) : listRequest(port);
+                    requests.add(clients.submit(() ->
+                        statuses.add(http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode())));
+                }
+                for (Future<?> request : requests) {
+                    request.get();
+                }
+            }
+
+            recording.stop();
+        }
+
+        assertEquals(REQUESTS, statuses.stream().filter(status -> status == 200).count(),
+            "Respuestas distintas de 200: " + statuses.stream().filter(status -> status != 200).toList());
+        assertTrue(pinned.isEmpty(), pinned.size() + " eventos VirtualThreadPinned:\n" + String.join("\n\n", pinned));
+    }
+
+    private String describe(RecordedEvent event) {
+        String stack = event.getStackTrace() == null ? "  (sin pila)" : event.getStackTrace().getFrames().stream()
+            .limit(15)
+            .map(this::frame)
+            .collect(Collectors.joining("\n"));
+        return event.getDuration().toMillis() + " ms en " + event.getThread().getJavaName() + "\n" + stack;
+    }
+
+    private String frame(RecordedFrame frame) {
+        return "  at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,30 @@
+package com.carnetdigital.carnet_api.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * auth.login{outcome} y auth.logout.invalid_token se registran al construir el controlador, igual que
+ * los timers de JwtService: las peticiones solo incrementan contadores ya creados.
+ */
+class AuthControllerMetricsTests {
+
+    @Test
+    void countersAreRegisteredOnConstruction() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        new AuthController(null, null, null, null, null, meterRegistry, null, null, null);
+
+        Set<String> outcomes = meterRegistry.find("auth.login").counters().stream()
+            .map(counter -> counter.getId().getTag("outcome"))
+            .collect(Collectors.toSet());
+        assertEquals(Set.of("success", "unknown_user", "bad_credentials", "inactive"), outcomes);
+        assertNotNull(meterRegistry.find("auth.logout.invalid_token").counter());
+    }
+}
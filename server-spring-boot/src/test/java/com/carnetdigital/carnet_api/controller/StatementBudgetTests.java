@@ -0,0 +1,131 @@
+package com.carnetdigital.carnet_api.controller;
+
+import com.carnetdigital.carnet_api.helpers.SqlStatementStats;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL por endpoint: cada petición se ejecuta dentro de un ámbito de
+ * SqlStatementStats (el mismo que alimenta sql.statements en producción) y falla si emite más
+ * sentencias de las permitidas. Detecta cargas perezosas por fila (N+1) en mappers y servicios.
+ * Se ejecuta con ./gradlew statementBudgetTest (ver build.gradle).
+ */
+@Tag("statement-budget")
+@SpringBootTest(properties = "spring.flyway.enabled=true")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatementBudgetTests {
+
+    private static final int USERS = 5;
+    private static final int TOKENS_PER_USER = 3;
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID userId;
+    private UUID tokenId;
+    private String token;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.execute(
+            "INSERT INTO users (id, first_name, last_name, email, password, role, status, active, version, " +
+            "\"createdAt\", \"updatedAt\") " +
+            "SELECT gen_random_uuid(), 'Ana', 'García', 'budget' || i || '@ueb.edu.ec', repeat('x', 60), " +
+            "'student', 'active', true, 0, now() - i * interval '1 minute', now() " +
+            "FROM generate_series(1, " + USERS + ") AS i");
+        jdbcTemplate.execute(
+            "INSERT INTO tokens (id, token, used, user_fk, expires_at, token_type, \"createdAt\", \"updatedAt\") " +
+            "SELECT gen_random_uuid(), md5(u.id::text || g), false, u.id, now() + interval '1 day', " +
+            "'access', now(), now() " +
+            "FROM users u CROSS JOIN generate_series(1, " + TOKENS_PER_USER + ") AS g");
+
+        userId = jdbcTemplate.queryForObject("SELECT id FROM users ORDER BY email LIMIT 1", UUID.class);
+        tokenId = jdbcTemplate.queryForObject("SELECT id FROM tokens WHERE user_fk = ? LIMIT 1", UUID.class, userId);
+        token = jdbcTemplate.queryForObject("SELECT token FROM tokens WHERE id = ?", String.class, tokenId);
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void getUserById() throws Exception {
+        assertMaxStatements(3, get("/api/v1/users/{id}", userId));
+    }
+
+    @Test
+    void listUsersPaged() throws Exception {
+        assertMaxStatements(2, get("/api/v1/users").param("page", "0").param("size", "20"));
+    }
+
+    @Test
+    void listUsersUnpaged() throws Exception {
+        assertMaxStatements(1, get("/api/v1/users"));
+    }
+
+    @Test
+    void getTokenById() throws Exception {
+        assertMaxStatements(2, get("/api/tokens/{id}", tokenId));
+    }
+
+    @Test
+    void getUserTokens() throws Exception {
+        assertMaxStatements(1, get("/api/tokens/user/{userId}", userId));
+    }
+
+    @Test
+    void getActiveTokens() throws Exception {
+        assertMaxStatements(1, get("/api/tokens/active"));
+    }
+
+    @Test
+    void validateToken() throws Exception {
+        assertMaxStatements(2, post("/api/tokens/validate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"token\":\"" + token + "\"}"));
+    }
+
+    private void assertMaxStatements(int max, RequestBuilder request) throws Exception {
+        try (SqlStatementStats.Scope scope = SqlStatementStats.open("test")) {
+            mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+            assertTrue(scope.getStatements() <= max,
+                "Se esperaban como máximo " + max + " sentencias y se emitieron " + scope.getStatements());
+        }
+    }
+}
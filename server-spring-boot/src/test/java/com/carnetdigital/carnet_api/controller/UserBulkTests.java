@@ -0,0 +1,125 @@
+package com.carnetdigital.carnet_api.controller;
+
+import com.carnetdigital.carnet_api.service.UserService;
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Operaciones masivas sobre PostgreSQL embebido: un lote que falla no revierte ni detiene a los demás y
+ * la respuesta informa aplicados, omitidos y fallidos; el límite de ids por solicitud se valida.
+ * Se ejecuta con ./gradlew userApiTest.
+ */
+@Tag("users-api")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserBulkTests {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void aFailingChunkIsReportedAndTheOthersAreApplied() throws Exception {
+        List<UUID> users = IntStream.range(0, 5).mapToObj(i -> insertUser("bulk" + i + "@ueb.edu.ec")).toList();
+        UUID unknown = UUID.randomUUID();
+        // Lotes de 2: [0, 1] [2, 3] [4, desconocido]; el UPDATE del usuario 2 falla en la base
+        jdbcTemplate.execute(
+            "CREATE FUNCTION reject_bulk() RETURNS trigger AS $$ BEGIN " +
+            "IF NEW.email = 'bulk2@ueb.edu.ec' THEN RAISE EXCEPTION 'lote rechazado'; END IF; " +
+            "RETURN NEW; END $$ LANGUAGE plpgsql");
+        jdbcTemplate.execute("CREATE TRIGGER reject_bulk BEFORE UPDATE ON users " +
+            "FOR EACH ROW EXECUTE FUNCTION reject_bulk()");
+        ReflectionTestUtils.setField(userService, "bulkChunkSize", 2);
+        String body;
+        try {
+            body = bulkDeactivate(Stream.concat(users.stream(), Stream.of(unknown)).toList())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        } finally {
+            ReflectionTestUtils.setField(userService, "bulkChunkSize", 500);
+            jdbcTemplate.execute("DROP TRIGGER reject_bulk ON users");
+            jdbcTemplate.execute("DROP FUNCTION reject_bulk()");
+        }
+
+        assertEquals(3, (int) JsonPath.read(body, "$.data.chunks"));
+        assertEquals(3, (int) JsonPath.read(body, "$.data.affectedUsers"));
+        assertEquals(1, (int) JsonPath.read(body, "$.data.skippedUsers"));
+        assertEquals(1, (int) JsonPath.read(body, "$.data.failedChunks"));
+        assertEquals(2, (int) JsonPath.read(body, "$.data.failedUsers"));
+        assertTrue(JsonPath.<String>read(body, "$.data.error").contains("lote rechazado"));
+        assertTrue(JsonPath.<String>read(body, "$.message").contains("parcialmente"));
+        assertEquals(List.of("bulk0@ueb.edu.ec", "bulk1@ueb.edu.ec", "bulk4@ueb.edu.ec"), jdbcTemplate.queryForList(
+            "SELECT email FROM users WHERE email LIKE 'bulk%' AND active = false ORDER BY email", String.class));
+    }
+
+    @Test
+    void moreIdsThanTheLimitAreRejected() throws Exception {
+        List<UUID> ids = Stream.generate(UUID::randomUUID).limit(50_001).toList();
+        bulkDeactivate(ids).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions bulkDeactivate(List<UUID> ids) throws Exception {
+        String json = ids.stream().map(id -> "\"" + id + "\"").collect(Collectors.joining(",", "{\"ids\":[", "]}"));
+        return mockMvc.perform(post("/api/v1/users/bulk/deactivate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json));
+    }
+
+    private UUID insertUser(String email) {
+        return UUID.fromString(jdbcTemplate.queryForObject(
+            "INSERT INTO users (id, email, password, role, status, active, \"createdAt\", \"updatedAt\") " +
+            "VALUES (gen_random_uuid(), ?, repeat('x', 60), 'student', 'active', true, now(), now()) RETURNING id::text",
+            String.class, email));
+    }
+}
@@ -0,0 +1,122 @@
+package com.carnetdigital.carnet_api.controller;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Peticiones condicionales sobre PostgreSQL embebido: If-None-Match responde 304 y If-Match
+ * (comparación fuerte) responde 412 con un ETag viejo o débil.
+ * Se ejecuta con ./gradlew userApiTest.
+ */
+@Tag("users-api")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserETagTests {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void matchingIfNoneMatchReturnsNotModified() throws Exception {
+        UUID id = insertUser("etag-get@ueb.edu.ec");
+        String eTag = currentETag(id);
+        assertFalse(eTag.startsWith("W/"));
+
+        mockMvc.perform(get("/api/v1/users/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        // If-None-Match usa comparación débil: la forma W/ del mismo ETag también coincide
+        mockMvc.perform(get("/api/v1/users/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "W/" + eTag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void ifMatchRejectsStaleAndWeakETags() throws Exception {
+        UUID id = insertUser("etag-put@ueb.edu.ec");
+        String eTag = currentETag(id);
+
+        String newETag = mockMvc.perform(put("/api/v1/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Primera\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // El ETag de la respuesta sale de la versión recién guardada y es el que devuelve un GET
+        assertNotEquals(eTag, newETag);
+        assertEquals(currentETag(id), newETag);
+
+        mockMvc.perform(put("/api/v1/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Segunda\"}"))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/v1/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "W/" + newETag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Segunda\"}"))
+            .andExpect(status().isPreconditionFailed());
+
+        assertEquals("Primera", jdbcTemplate.queryForObject(
+            "SELECT first_name FROM users WHERE id = ?", String.class, id));
+    }
+
+    private UUID insertUser(String email) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+            "INSERT INTO users (id, email, password, role, status, active, \"createdAt\", \"updatedAt\") " +
+            "VALUES (?, ?, repeat('x', 60), 'student', 'active', true, now(), now())", id, email);
+        return id;
+    }
+
+    private String currentETag(UUID id) throws Exception {
+        return mockMvc.perform(get("/api/v1/users/{id}", id))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
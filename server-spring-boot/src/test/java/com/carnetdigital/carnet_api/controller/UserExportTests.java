@@ -0,0 +1,124 @@
+package com.carnetdigital.carnet_api.controller;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exportación CSV sobre PostgreSQL embebido: la respuesta se escribe en streaming (StreamingResponseBody,
+ * fuera del hilo del controlador) con el Content-Type y el nombre de archivo correctos, y respeta filtros y gzip.
+ * Se ejecuta con ./gradlew userApiTest.
+ */
+@Tag("users-api")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserExportTests {
+
+    private static final String HEADER =
+        "id,first_name,last_name,email,role,status,active,createdAt,updatedAt,deletedAt";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @BeforeAll
+    void seed() {
+        for (String[] user : new String[][] {
+                {"admin@ueb.edu.ec", "admin", "NULL"},
+                {"alumno1@ueb.edu.ec", "student", "NULL"},
+                {"alumno2@ueb.edu.ec", "student", "NULL"},
+                {"borrado@ueb.edu.ec", "student", "now()"}}) {
+            jdbcTemplate.update(
+                "INSERT INTO users (id, first_name, email, password, role, status, active, \"createdAt\", \"updatedAt\", \"deletedAt\") " +
+                "VALUES (gen_random_uuid(), 'Ana, \"la\" primera', ?, repeat('x', 60), ?::enum_users_role, 'active', true, " +
+                "clock_timestamp(), now(), " + user[2] + ")",
+                user[0], user[1]);
+        }
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void csvIsStreamedWithHeaderAndFilters() throws Exception {
+        MockHttpServletResponse response = export("/api/v1/users/export?role=student");
+
+        assertEquals("text/csv", response.getContentType());
+        assertEquals("attachment; filename=\"users.csv\"", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        List<String> lines = response.getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(HEADER, lines.get(0));
+        // Excluye al admin y al eliminado; los valores con comas y comillas van escapados en CSV
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).contains("\"Ana, \"\"la\"\" primera\",,alumno1@ueb.edu.ec,student"), lines.get(1));
+        assertTrue(lines.get(2).contains("alumno2@ueb.edu.ec"), lines.get(2));
+    }
+
+    @Test
+    void gzipExportDecompressesToTheSameCsv() throws Exception {
+        MockHttpServletResponse response = export("/api/v1/users/export?deleted=only&gzip=true");
+
+        assertEquals("application/gzip", response.getContentType());
+        assertEquals("attachment; filename=\"users.csv.gz\"", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            List<String> lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertEquals(HEADER, lines.get(0));
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).contains("borrado@ueb.edu.ec"));
+        }
+    }
+
+    // StreamingResponseBody: la petición pasa a modo asíncrono y el cuerpo se escribe después del controlador
+    private MockHttpServletResponse export(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,101 @@
+package com.carnetdigital.carnet_api.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Campos dispersos (?fields=) sobre PostgreSQL embebido: solo se escriben los campos pedidos y se
+ * rechazan nombres desconocidos, anidados o que UserResponse no expone (password, securityStamp, tokens...).
+ * Se ejecuta con ./gradlew userApiTest.
+ */
+@Tag("users-api")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserFieldsTests {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void onlyRequestedFieldsAreWrittenInRequestedOrder() throws Exception {
+        jdbcTemplate.update(
+            "INSERT INTO users (id, first_name, email, password, role, status, active, \"createdAt\", \"updatedAt\") " +
+            "VALUES (gen_random_uuid(), 'Ana', 'campos@ueb.edu.ec', repeat('x', 60), 'admin', 'active', true, now(), now())");
+
+        // Espacios y repetidos se ignoran; el orden de la respuesta es el pedido
+        String body = mockMvc.perform(get("/api/v1/users/role/admin")
+                .param("fields", " email , role,email")
+                .param("page", "0")
+                .param("size", "10"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        List<Map<String, Object>> content = JsonPath.read(body, "$.data.content");
+        assertEquals(1, content.size());
+        assertEquals(List.of("email", "role"), List.copyOf(content.get(0).keySet()));
+        assertEquals("campos@ueb.edu.ec", content.get(0).get("email"));
+        assertEquals("admin", content.get(0).get("role"));
+        assertEquals(1, (int) JsonPath.read(body, "$.data.totalElements"));
+        assertEquals(" email , role,email", JsonPath.read(body, "$.meta.fields"));
+    }
+
+    @Test
+    void unknownNestedOrHiddenFieldsAreRejected() throws Exception {
+        for (String fields : List.of("nickname", "id,nickname", "role.name", "tokens", "tokens.id",
+                "password", "securityStamp", "version", "deletedAt", "ID")) {
+            String body = mockMvc.perform(get("/api/v1/users").param("fields", fields))
+                .andExpect(status().isBadRequest())
+                .andReturn().getResponse().getContentAsString();
+            String message = JsonPath.read(body, "$.message");
+            assertTrue(message.startsWith("Campo no permitido: "), fields + " -> " + message);
+        }
+
+        String body = mockMvc.perform(get("/api/v1/users").param("fields", " , "))
+            .andExpect(status().isBadRequest())
+            .andReturn().getResponse().getContentAsString();
+        assertEquals("Debe indicar al menos un campo en fields", JsonPath.read(body, "$.message"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.carnetdigital.carnet_api.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importación masiva sobre PostgreSQL embebido: emails repetidos sin distinguir mayúsculas (en el archivo
+ * y contra la base) y una fila que falla en el COPY no arrastra al resto del lote.
+ * Se ejecuta con ./gradlew userApiTest.
+ */
+@Tag("users-api")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "mail.outbox.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserImportTests {
+
+    private static final String HEADER = "firstName,lastName,email,password\n";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void emailsAreDeduplicatedIgnoringCase() throws Exception {
+        jdbcTemplate.update(
+            "INSERT INTO users (id, email, password, role, status, active, \"createdAt\", \"updatedAt\") " +
+            "VALUES (gen_random_uuid(), 'Existente@ueb.edu.ec', repeat('x', 60), 'student', 'active', true, now(), now())");
+
+        String report = importCsv(HEADER +
+            "Ana,García,existente@UEB.edu.ec,Secreto123!\n" +
+            "Luis,Pérez,nuevo@ueb.edu.ec,Secreto123!\n" +
+            "Luis,Pérez,NUEVO@ueb.edu.ec,Secreto123!\n");
+
+        assertEquals(1, (int) JsonPath.read(report, "$.data.imported"));
+        // Los duplicados del archivo se rechazan al leer; los registrados, al procesar el lote
+        assertEquals(List.of("Email duplicado en el archivo", "Email en uso"),
+            JsonPath.read(report, "$.data.errors[*].message"));
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM users WHERE lower(email) = 'nuevo@ueb.edu.ec'", Integer.class));
+    }
+
+    @Test
+    void aRowRejectedByTheDatabaseDoesNotRejectTheChunk() throws Exception {
+        // Simula una fila que pasa la validación y la consulta previa pero falla al insertar
+        // (p. ej. el mismo email registrado por otra petición entre la consulta y el COPY)
+        jdbcTemplate.execute(
+            "CREATE FUNCTION reject_import() RETURNS trigger AS $$ BEGIN " +
+            "IF NEW.email = 'rechazado@ueb.edu.ec' THEN RAISE EXCEPTION 'fila rechazada'; END IF; " +
+            "RETURN NEW; END $$ LANGUAGE plpgsql");
+        jdbcTemplate.execute("CREATE TRIGGER reject_import BEFORE INSERT ON users " +
+            "FOR EACH ROW EXECUTE FUNCTION reject_import()");
+        try {
+            String report = importCsv(HEADER +
+                "Ana,García,lote1@ueb.edu.ec,Secreto123!\n" +
+                "Ana,García,rechazado@ueb.edu.ec,Secreto123!\n" +
+                "Ana,García,lote2@ueb.edu.ec,Secreto123!\n");
+
+            assertEquals(2, (int) JsonPath.read(report, "$.data.imported"));
+            List<Map<String, Object>> errors = JsonPath.read(report, "$.data.errors");
+            assertEquals(1, errors.size());
+            assertEquals(3, errors.get(0).get("line"));
+            assertTrue(((String) errors.get(0).get("message")).contains("fila rechazada"));
+        } finally {
+            jdbcTemplate.execute("DROP TRIGGER reject_import ON users");
+            jdbcTemplate.execute("DROP FUNCTION reject_import()");
+        }
+        assertEquals(2, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM users WHERE email IN ('lote1@ueb.edu.ec', 'lote2@ueb.edu.ec')", Integer.class));
+    }
+
+    private String importCsv(String csv) throws Exception {
+        return mockMvc.perform(post("/api/v1/users/import")
+                .contentType("text/csv")
+                .content(csv))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+}
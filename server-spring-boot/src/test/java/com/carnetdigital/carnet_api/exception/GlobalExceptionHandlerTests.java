@@ -0,0 +1,66 @@
+package com.carnetdigital.carnet_api.exception;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Cada excepción de dominio responde con su status, sin stack trace, y queda contada por tipo; los errores de
+ * base de datos responden 500 sin el SQL.
+ */
+class GlobalExceptionHandlerTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(meterRegistry);
+
+    @Test
+    void domainExceptionsMapToTheirStatus() {
+        assertEquals(404, handler.handleDomainException(new NotFoundException("Usuario no encontrado")).getStatusCode().value());
+        assertEquals(409, handler.handleDomainException(new ConflictException("Email en uso")).getStatusCode().value());
+        assertEquals(401, handler.handleDomainException(new UnauthorizedException("Credenciales no válidas")).getStatusCode().value());
+        assertEquals(412, handler.handleDomainException(new PreconditionFailedException("Modificado")).getStatusCode().value());
+
+        ResponseEntity<ErrorResponse> badRequest = handler.handleDomainException(new BadRequestException("Campo no permitido"));
+        assertEquals(400, badRequest.getStatusCode().value());
+        assertEquals("Campo no permitido", badRequest.getBody().getMessage());
+    }
+
+    @Test
+    void databaseErrorsDoNotEchoSql() {
+        SQLException sql = new SQLException("ERROR: duplicate key value violates unique constraint \"users_email_key\"", "23505");
+        ResponseEntity<ErrorResponse> copy = handler.handleDataAccess(
+            new UncategorizedSQLException("Importar usuarios con COPY", "COPY users FROM STDIN", sql));
+        ResponseEntity<ErrorResponse> jdbc = handler.handleDataAccess(sql);
+
+        for (ResponseEntity<ErrorResponse> response : List.of(copy, jdbc)) {
+            assertEquals(500, response.getStatusCode().value());
+            assertFalse(response.getBody().getMessage().contains("COPY"));
+            assertFalse(response.getBody().getMessage().contains("users_email_key"));
+        }
+        assertEquals(1, meterRegistry.counter("api.errors", "type", "UncategorizedSQLException", "status", "500").count());
+    }
+
+    @Test
+    void domainExceptionsSkipStackTrace() {
+        assertEquals(0, new UnauthorizedException("Credenciales no válidas").getStackTrace().length);
+        assertEquals(0, new NotFoundException("Usuario no encontrado").getStackTrace().length);
+        assertEquals(0, new BadRequestException("Campo no permitido").getStackTrace().length);
+    }
+
+    @Test
+    void errorsAreCountedByType() {
+        handler.handleDomainException(new UnauthorizedException("Credenciales no válidas"));
+        handler.handleDomainException(new UnauthorizedException("Credenciales no válidas"));
+        handler.handleRuntimeException(new RuntimeException("Campo no permitido"));
+
+        assertEquals(2, meterRegistry.counter("api.errors", "type", "UnauthorizedException", "status", "401").count());
+        assertEquals(1, meterRegistry.counter("api.errors", "type", "RuntimeException", "status", "400").count());
+    }
+}
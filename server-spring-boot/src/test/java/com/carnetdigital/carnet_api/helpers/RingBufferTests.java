@@ -0,0 +1,77 @@
+package com.carnetdigital.carnet_api.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTests {
+
+    @Test
+    void keepsFifoOrderAndRejectsWhenFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drainTo(drained, 2));
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        buffer.drainTo(drained, 10);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), drained);
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void concurrentProducersNeitherLoseNorDuplicateElements() {
+        int producers = 4;
+        int perProducer = 50_000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(256);
+        AtomicInteger finished = new AtomicInteger();
+
+        List<CompletableFuture<Void>> writers = IntStream.range(0, producers)
+            .mapToObj(p -> CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    // Buffer lleno: reintentar hasta que el consumidor haga lugar
+                    while (!buffer.offer(p * perProducer + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                finished.incrementAndGet();
+            }))
+            .toList();
+
+        BitSet seen = new BitSet(producers * perProducer);
+        int consumed = 0;
+        while (finished.get() < producers || !buffer.isEmpty()) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertFalse(seen.get(value), "Elemento duplicado: " + value);
+            seen.set(value);
+            consumed++;
+        }
+        writers.forEach(CompletableFuture::join);
+
+        assertEquals(producers * perProducer, consumed);
+        assertEquals(producers * perProducer, seen.cardinality());
+    }
+}
@@ -0,0 +1,403 @@
+package com.carnetdigital.carnet_api.repository;
+
+import com.carnetdigital.carnet_api.entity.Token.TokenType;
+import com.carnetdigital.carnet_api.entity.User.UserRole;
+import com.carnetdigital.carnet_api.entity.User.UserStatus;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.Param;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regresión de planes de ejecución de UserRepository y TokenRepository.
+ * Levanta PostgreSQL embebido, aplica las migraciones de Flyway, siembra volúmenes realistas
+ * y ejecuta cada método declarado en los repositorios capturando el SQL que genera Hibernate.
+ * Cada sentencia se analiza con EXPLAIN (GENERIC_PLAN, FORMAT JSON) y falla si:
+ * - hay un Seq Scan selectivo sobre users/tokens (devuelve menos del 10% de la tabla y por tanto
+ *   debería resolverse con un índice), salvo métodos permitidos explícitamente,
+ * - el costo estimado supera el presupuesto,
+ * - la forma del plan difiere de la línea base en src/test/resources/query-plans.
+ * El plan genérico usa la selectividad promedio de cada columna; los métodos que filtran por rol se analizan
+ * además con role=admin (~2% de las filas) y plan personalizado, que es donde falta un índice se nota.
+ * Se ejecuta con ./gradlew queryPlanTest (ver build.gradle).
+ */
+@Tag("query-plan")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.carnetdigital.carnet_api.repository.RecordingStatementInspector",
+    // Las revisiones de JobScheduler y MailOutboxWorker en segundo plano se mezclarían con las sentencias capturadas
+    "jobs.enabled=false",
+    "mail.outbox.enabled=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanRegressionTests {
+
+    private static final int USERS = 100_000;
+    private static final int TOKENS_PER_USER = 5;
+
+    private static final String BASELINE_FILE = "repository-plans.tsv";
+    private static final double DEFAULT_COST_BUDGET = 5_000;
+
+    // Sufijo de la línea base de los planes personalizados con el rol poco frecuente
+    private static final String ADMIN_SUFFIX = " [role=admin]";
+
+    // Un Seq Scan que devuelve menos de esta fracción de la tabla indica un índice faltante
+    private static final double SEQ_SCAN_MAX_SELECTIVITY = 0.10;
+
+    // Métodos que recorren la tabla por diseño aunque el filtro sea selectivo
+    private static final Map<String, String> SEQ_SCAN_ALLOWED = Map.ofEntries(
+        Map.entry("UserRepository.searchByName(String)", "LIKE con comodín inicial"),
+        Map.entry("UserRepository.searchByName(String,Pageable)", "LIKE con comodín inicial"),
+        Map.entry("UserRepository.searchByNameIncludingDeleted(String)", "LIKE con comodín inicial"),
+        Map.entry("UserRepository.searchByNameIncludingDeleted(String,Pageable)", "LIKE con comodín inicial"),
+        // @SQLRestriction añade "deletedAt" IS NULL, el predicado queda contradictorio y el planificador
+        // estima 1 fila sin poder descartar la tabla
+        Map.entry("UserRepository.countDeletedUsers()", "predicado contradictorio con @SQLRestriction"),
+        Map.entry("UserRepository.findDeletedUsers()", "predicado contradictorio con @SQLRestriction")
+    );
+
+    // Presupuestos de costo por método cuando el predeterminado no aplica (listados sin paginar)
+    private static final Map<String, Double> COST_BUDGETS = Map.ofEntries(
+        Map.entry("UserRepository.searchByName(String)", 8_000.0),
+        Map.entry("UserRepository.searchByName(String,Pageable)", 8_000.0),
+        Map.entry("UserRepository.searchByNameIncludingDeleted(String)", 8_000.0),
+        Map.entry("UserRepository.searchByNameIncludingDeleted(String,Pageable)", 8_000.0),
+        Map.entry("TokenRepository.findActiveTokens(LocalDateTime)", 20_000.0),
+        Map.entry("TokenRepository.findExpiredTokens(LocalDateTime)", 20_000.0),
+        Map.entry("TokenRepository.deleteExpiredTokens(LocalDateTime)", 20_000.0),
+        Map.entry("TokenRepository.findByTokenType(TokenType)", 20_000.0)
+    );
+
+    private static EmbeddedPostgres postgres;
+
+    // Conexión aparte en modo de consulta simple: EXPLAIN con $1..$n no debe pasar por el protocolo extendido
+    private static JdbcTemplate explainTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TokenRepository tokenRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Map<String, String> baseline = new TreeMap<>();
+    private final Map<String, String> current = new ConcurrentSkipListMap<>();
+    private final Map<String, Double> tableRows = new TreeMap<>();
+    private final boolean updateBaseline = Boolean.getBoolean("queryPlans.update");
+
+    private UUID sampleUserId;
+    private String sampleEmail;
+    private UUID sampleTokenId;
+    private String sampleToken;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        String url = postgres.getJdbcUrl("postgres", "postgres");
+        registry.add("spring.datasource.url", () -> url);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+
+        explainTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            url + (url.contains("?") ? "&" : "?") + "preferQueryMode=simple", "postgres", ""));
+    }
+
+    @BeforeAll
+    void seed() throws IOException {
+        jdbcTemplate.execute(
+            "INSERT INTO users (id, first_name, last_name, email, password, role, status, active, version, " +
+            "\"createdAt\", \"updatedAt\", \"deletedAt\") " +
+            "SELECT gen_random_uuid(), " +
+            "(ARRAY['Ana','Luis','María','José','Carla','Pedro','Lucía','Jorge','Sofía','Diego'])[1 + i % 10], " +
+            "(ARRAY['García','Pérez','López','Torres','Flores','Vera','Mora','Ruiz'])[1 + i % 8], " +
+            "'user' || i || '@ueb.edu.ec', repeat('x', 60), " +
+            "(CASE WHEN i % 50 = 0 THEN 'admin' ELSE 'student' END)::enum_users_role, " +
+            "(ARRAY['active','active','active','inactive','pending'])[1 + i % 5]::enum_users_status, " +
+            "i % 7 <> 0, 0, now() - i * interval '5 minutes', now(), " +
+            "CASE WHEN i % 20 = 0 THEN now() END " +
+            "FROM generate_series(1, " + USERS + ") AS i");
+
+        jdbcTemplate.execute(
+            "INSERT INTO tokens (id, token, used, user_fk, expires_at, token_type, \"createdAt\", \"updatedAt\") " +
+            "SELECT gen_random_uuid(), md5(random()::text) || md5(random()::text), random() < 0.7, u.id, " +
+            "now() + (random() * 14 - 7) * interval '1 day', " +
+            "(ARRAY['access','refresh','reset','verification'])[1 + g % 4]::enum_tokens_token_type, now(), now() " +
+            "FROM users u CROSS JOIN generate_series(1, " + TOKENS_PER_USER + ") AS g");
+
+        // VACUUM además marca el mapa de visibilidad; con solo ANALYZE el plan de los conteos dependía
+        // de si el autovacuum alcanzaba a pasar (Index Only Scan o Bitmap Heap Scan)
+        jdbcTemplate.execute("VACUUM ANALYZE users");
+        jdbcTemplate.execute("VACUUM ANALYZE tokens");
+        jdbcTemplate.query("SELECT relname, reltuples FROM pg_class WHERE relname IN ('users', 'tokens')",
+            row -> { tableRows.put(row.getString("relname"), row.getDouble("reltuples")); });
+
+        Map<String, Object> user = jdbcTemplate.queryForMap(
+            "SELECT id, email FROM users WHERE \"deletedAt\" IS NULL ORDER BY email LIMIT 1");
+        sampleUserId = (UUID) user.get("id");
+        sampleEmail = (String) user.get("email");
+
+        Map<String, Object> token = jdbcTemplate.queryForMap(
+            "SELECT id, token FROM tokens WHERE user_fk = ? LIMIT 1", sampleUserId);
+        sampleTokenId = (UUID) token.get("id");
+        sampleToken = (String) token.get("token");
+
+        Path file = baselineDir().resolve(BASELINE_FILE);
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file)) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] parts = line.split("\t", 2);
+                baseline.put(parts[0], parts[1]);
+            }
+        }
+    }
+
+    @AfterAll
+    void writeBaseline() throws IOException {
+        try {
+            if (updateBaseline) {
+                List<String> lines = new ArrayList<>();
+                lines.add("# Forma de los planes por método de repositorio. Regenerar con ./gradlew queryPlanTest -PupdatePlanBaselines");
+                current.forEach((key, shape) -> lines.add(key + "\t" + shape));
+                Files.createDirectories(baselineDir());
+                Files.write(baselineDir().resolve(BASELINE_FILE), lines);
+            }
+        } finally {
+            postgres.close();
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryQueryPlans() {
+        return Stream.of(
+                Map.entry(UserRepository.class, (Object) userRepository),
+                Map.entry(TokenRepository.class, (Object) tokenRepository))
+            .flatMap(repository -> Arrays.stream(repository.getKey().getDeclaredMethods())
+                .filter(method -> !method.isSynthetic() && !method.isDefault())
+                .sorted(Comparator.comparing(this::key))
+                .map(method -> DynamicTest.dynamicTest(key(method),
+                    () -> checkPlan(key(method), capture(repository.getValue(), method, UserRole.student), this::explain))));
+    }
+
+    // Roles sesgados: con el valor concreto un filtro por admin sin índice termina en Seq Scan + Sort
+    @TestFactory
+    Stream<DynamicTest> adminRoleQueryPlans() {
+        return Arrays.stream(UserRepository.class.getDeclaredMethods())
+            .filter(method -> !method.isSynthetic() && !method.isDefault())
+            .filter(method -> Arrays.asList(method.getParameterTypes()).contains(UserRole.class))
+            .sorted(Comparator.comparing(this::key))
+            .map(method -> DynamicTest.dynamicTest(key(method) + ADMIN_SUFFIX,
+                () -> checkPlan(key(method) + ADMIN_SUFFIX, capture(userRepository, method, UserRole.admin), this::explainCustom)));
+    }
+
+    private void checkPlan(String key, List<String> statements, Function<String, JsonNode> explainer) {
+        String method = key.replace(ADMIN_SUFFIX, "");
+        assertFalse(statements.isEmpty(), key + " no generó SQL");
+
+        List<String> shapes = new ArrayList<>();
+        for (String sql : statements) {
+            JsonNode plan = explainer.apply(sql);
+            shapes.add(shape(plan));
+
+            if (!SEQ_SCAN_ALLOWED.containsKey(method)) {
+                List<String> seqScans = new ArrayList<>();
+                collectSelectiveSeqScans(plan, seqScans);
+                assertTrue(seqScans.isEmpty(), key + " hace Seq Scan sobre " + seqScans + "\n" + sql);
+            }
+
+            double cost = plan.get("Total Cost").asDouble();
+            double budget = COST_BUDGETS.getOrDefault(method, DEFAULT_COST_BUDGET);
+            assertTrue(cost <= budget, key + " costo " + cost + " supera el presupuesto " + budget + "\n" + sql);
+        }
+
+        String shape = String.join(" | ", shapes);
+        current.put(key, shape);
+
+        if (!updateBaseline) {
+            String expected = baseline.get(key);
+            assertNotNull(expected, key + " no tiene línea base; regenerar con -PupdatePlanBaselines");
+            assertEquals(expected, shape, key + " cambió de plan");
+        }
+    }
+
+    // Invoca el método con argumentos de muestra dentro de una transacción que siempre se revierte
+    private List<String> capture(Object repository, Method method, UserRole role) {
+        List<String> statements = new ArrayList<>();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            RecordingStatementInspector.start();
+            try {
+                method.invoke(repository, Arrays.stream(method.getParameters())
+                    .map(parameter -> parameter.getType() == UserRole.class ? role : sampleArgument(parameter)).toArray());
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(key(method) + " falló", e.getCause());
+            } finally {
+                statements.addAll(RecordingStatementInspector.stop());
+            }
+        });
+        return statements;
+    }
+
+    private Object sampleArgument(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        Param param = parameter.getAnnotation(Param.class);
+        String name = (param != null ? param.value() : parameter.getName()).toLowerCase();
+
+        if (type == UUID.class) return name.contains("token") ? sampleTokenId : sampleUserId;
+        if (type == String.class) {
+            if (name.contains("email")) return sampleEmail;
+            if (name.contains("token")) return sampleToken;
+            return "mar";
+        }
+        if (type == LocalDateTime.class) return LocalDateTime.now();
+        if (type == UserStatus.class) return UserStatus.active;
+        if (type == TokenType.class) return TokenType.refresh;
+        if (Collection.class.isAssignableFrom(type)) return List.of(sampleEmail, "nadie@ueb.edu.ec");
+        if (type.getSimpleName().equals("Pageable")) return PageRequest.of(0, 20, Sort.by("createdAt").descending());
+        throw new IllegalArgumentException("Sin argumento de muestra para " + type + " " + name);
+    }
+
+    private JsonNode explain(String sql) {
+        String json = explainTemplate.queryForObject("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + toPositional(sql), String.class);
+        return jsonMapper.readTree(json).get(0).get("Plan");
+    }
+
+    // Plan personalizado: PREPARE y EXPLAIN EXECUTE con valores concretos según el tipo de cada $n
+    private JsonNode explainCustom(String sql) {
+        return explainTemplate.execute((ConnectionCallback<JsonNode>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET plan_cache_mode = force_custom_plan");
+                statement.execute("PREPARE plan_check AS " + toPositional(sql));
+                List<String> values = new ArrayList<>();
+                try (ResultSet types = statement.executeQuery(
+                        "SELECT unnest(parameter_types)::text FROM pg_prepared_statements WHERE name = 'plan_check'")) {
+                    while (types.next()) values.add(customValue(types.getString(1)));
+                }
+                try (ResultSet plan = statement.executeQuery(
+                        "EXPLAIN (FORMAT JSON) EXECUTE plan_check" + (values.isEmpty() ? "" : "(" + String.join(", ", values) + ")"))) {
+                    plan.next();
+                    return jsonMapper.readTree(plan.getString(1)).get(0).get("Plan");
+                }
+            }
+        });
+    }
+
+    private String customValue(String type) {
+        return switch (type) {
+            case "enum_users_role" -> "'admin'";
+            case "enum_users_status" -> "'active'";
+            case "smallint", "integer", "bigint" -> "20";
+            case "uuid" -> "'" + sampleUserId + "'";
+            case "timestamp without time zone", "timestamp with time zone" -> "now()";
+            case "character varying", "text" -> "'mar'";
+            case "boolean" -> "true";
+            default -> throw new IllegalArgumentException("Sin valor de muestra para el tipo " + type);
+        };
+    }
+
+    // Los ? de JDBC pasan a $1..$n para que EXPLAIN (GENERIC_PLAN) planifique sin valores concretos
+    private String toPositional(String sql) {
+        StringBuilder out = new StringBuilder(sql.length() + 16);
+        int index = 0;
+        boolean inString = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') inString = !inString;
+            if (c == '?' && !inString) {
+                out.append('$').append(++index);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private String shape(JsonNode node) {
+        StringBuilder shape = new StringBuilder(node.get("Node Type").asString());
+        if (node.has("Relation Name")) shape.append(" on ").append(node.get("Relation Name").asString());
+        if (node.has("Index Name")) shape.append(" using ").append(node.get("Index Name").asString());
+
+        JsonNode children = node.get("Plans");
+        if (children != null && !children.isEmpty()) {
+            List<String> childShapes = new ArrayList<>();
+            children.forEach(child -> childShapes.add(shape(child)));
+            shape.append(" (").append(String.join(", ", childShapes)).append(")");
+        }
+        return shape.toString();
+    }
+
+    private void collectSelectiveSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.get("Node Type").asString())) {
+            String relation = node.get("Relation Name").asString();
+            Double relationRows = tableRows.get(relation);
+            if (relationRows != null && node.get("Plan Rows").asDouble() < relationRows * SEQ_SCAN_MAX_SELECTIVITY) {
+                seqScans.add(relation);
+            }
+        }
+        JsonNode children = node.get("Plans");
+        if (children != null) {
+            children.forEach(child -> collectSelectiveSeqScans(child, seqScans));
+        }
+    }
+
+    private String key(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(" +
+            Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName).collect(Collectors.joining(",")) + ")";
+    }
+
+    private Path baselineDir() {
+        return Path.of(System.getProperty("queryPlans.baselineDir", "src/test/resources/query-plans"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.carnetdigital.carnet_api.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registra el SQL que Hibernate prepara mientras la grabación está activa.
+ * Se configura con hibernate.session_factory.statement_inspector en las pruebas que lo necesitan.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    public static void start() {
+        statements.clear();
+        recording = true;
+    }
+
+    public static List<String> stop() {
+        recording = false;
+        return new ArrayList<>(statements);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (recording) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,167 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.helpers.SqlStatementStats;
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Actividad de usuarios con escritura diferida sobre PostgreSQL embebido: /login y /me no escriben en users,
+ * el flush aplica todo con un UPDATE por lote y una edición posterior del usuario no pisa la actividad.
+ * Se ejecuta con ./gradlew activityTest.
+ */
+@Tag("activity")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "activity.flush-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ActivityTrackerTests {
+
+    private static final String PASSWORD = "Secreto123!";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ActivityTracker activityTracker;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void activityIsCoalescedAndWrittenOnFlush() throws Exception {
+        UUID userId = register("activity@ueb.edu.ec");
+        Map<String, Object> before = row(userId);
+
+        String accessToken = null;
+        for (int i = 0; i < 3; i++) {
+            accessToken = JsonPath.read(login("activity@ueb.edu.ec"), "$.data.accessToken");
+        }
+        mockMvc.perform(get("/api/v1/auth/me").header("Authorization", "Bearer " + accessToken))
+            .andExpect(status().isOk());
+        // Nada escrito todavía: los logins solo tocaron el mapa en memoria
+        assertNull(row(userId).get("last_login_at"));
+
+        activityTracker.flush();
+
+        Map<String, Object> after = row(userId);
+        assertEquals(3L, after.get("login_count"));
+        assertNotNull(after.get("last_login_at"));
+        assertTrue(((Timestamp) after.get("last_seen_at")).compareTo((Timestamp) after.get("last_login_at")) >= 0);
+        // La actividad no es una edición: ni version ni "updatedAt" cambian (el ETag sigue igual)
+        assertEquals(before.get("version"), after.get("version"));
+        assertEquals(before.get("updatedAt"), after.get("updatedAt"));
+
+        mockMvc.perform(get("/api/v1/users/{id}", userId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.loginCount").value(3));
+    }
+
+    @Test
+    void entityUpdatesDoNotOverwriteActivity() throws Exception {
+        UUID userId = register("edited@ueb.edu.ec");
+        login("edited@ueb.edu.ec");
+        activityTracker.flush();
+
+        mockMvc.perform(put("/api/v1/users/{id}", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Beatriz\"}"))
+            .andExpect(status().isOk());
+
+        Map<String, Object> row = row(userId);
+        assertEquals("Beatriz", row.get("first_name"));
+        assertEquals(1L, row.get("login_count"));
+        assertNotNull(row.get("last_login_at"));
+    }
+
+    @Test
+    void oneUpdateStatementPerBatch() throws Exception {
+        List<UUID> users = IntStream.range(0, 5)
+            .mapToObj(i -> UUID.fromString(jdbcTemplate.queryForObject(
+                "INSERT INTO users (id, email, password, role, status, active, \"createdAt\", \"updatedAt\") " +
+                "VALUES (gen_random_uuid(), ?, repeat('x', 60), 'student', 'active', true, now(), now()) RETURNING id::text",
+                String.class, "batch" + i + "@ueb.edu.ec")))
+            .toList();
+        users.forEach(activityTracker::recordLogin);
+        users.forEach(activityTracker::recordSeen);
+
+        ReflectionTestUtils.setField(activityTracker, "batchSize", 2);
+        try (SqlStatementStats.Scope scope = SqlStatementStats.open("test")) {
+            assertEquals(5, activityTracker.flush());
+            assertEquals(3, scope.getStatements());
+        } finally {
+            ReflectionTestUtils.setField(activityTracker, "batchSize", 1000);
+        }
+        assertEquals(5, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM users WHERE email LIKE 'batch%' AND login_count = 1", Integer.class));
+    }
+
+    private Map<String, Object> row(UUID userId) {
+        return jdbcTemplate.queryForMap("SELECT * FROM users WHERE id = ?", userId);
+    }
+
+    private UUID register(String email) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Ana\",\"lastName\":\"García\",\"email\":\"" + email
+                    + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return UUID.fromString(JsonPath.read(body, "$.data.id"));
+    }
+
+    private String login(String email) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,192 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.repository.AuditEventRepository;
+import com.carnetdigital.carnet_api.service.AuditService.OverflowPolicy;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bitácora de auditoría sobre PostgreSQL embebido: los eventos de login, refresh y borrado físico llegan
+ * a audit_events por el hilo audit-writer, stop() vacía el buffer, las políticas de desborde se cumplen y
+ * una fila rechazada por la base no arrastra al resto de su lote.
+ * Se ejecuta con ./gradlew auditTest.
+ */
+@Tag("audit")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "audit.flush-interval=50ms"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AuditServiceTests {
+
+    private static final String PASSWORD = "Secreto123!";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AuditEventRepository auditEventRepository;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void authenticationAndHardDeleteAreAudited() throws Exception {
+        UUID userId = register("audited@ueb.edu.ec");
+        login("audited@ueb.edu.ec", "incorrecta").andExpect(status().isUnauthorized());
+        String body = login("audited@ueb.edu.ec", PASSWORD).andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + JsonPath.read(body, "$.data.refreshToken") + "\"}"))
+            .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/users/{id}/hard", userId)).andExpect(status().is2xxSuccessful());
+
+        List<String> expected = List.of("login_failure", "login_success", "token_refresh", "user_hard_delete");
+        assertEquals(expected, awaitEvents(userId, expected.size()));
+    }
+
+    @Test
+    void stopFlushesPendingEvents() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        // flush-interval largo: sin stop() los eventos seguirían en el buffer
+        AuditService service = service(meters, 1024, OverflowPolicy.drop_newest, Duration.ofHours(1));
+        service.start();
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            service.record(AuditEvent.Type.token_refresh, userId, "flush@ueb.edu.ec", "evento " + i);
+        }
+
+        service.stop();
+
+        assertEquals(10, countEvents(userId));
+        assertEquals(10.0, meters.counter("audit.events", "outcome", "written").count());
+    }
+
+    @Test
+    void overflowPoliciesDropOrWriteInline() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        UUID dropped = UUID.randomUUID();
+        // Sin start(): nadie consume y el buffer (2 lugares) se llena
+        AuditService dropNewest = service(meters, 2, OverflowPolicy.drop_newest, Duration.ofMillis(50));
+        for (int i = 0; i < 5; i++) {
+            dropNewest.record(AuditEvent.Type.login_success, dropped, null, null);
+        }
+        assertEquals(3.0, meters.counter("audit.events", "outcome", "dropped").count());
+
+        SimpleMeterRegistry inlineMeters = new SimpleMeterRegistry();
+        UUID inline = UUID.randomUUID();
+        AuditService callerRuns = service(inlineMeters, 2, OverflowPolicy.caller_runs, Duration.ofMillis(50));
+        for (int i = 0; i < 5; i++) {
+            callerRuns.record(AuditEvent.Type.login_success, inline, null, null);
+        }
+        assertEquals(3, countEvents(inline));
+        assertEquals(3.0, inlineMeters.counter("audit.events", "outcome", "caller_runs").count());
+    }
+
+    @Test
+    void aRejectedRowDoesNotDropTheBatch() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        AuditService service = service(meters, 1024, OverflowPolicy.drop_newest, Duration.ofHours(1));
+        UUID userId = UUID.randomUUID();
+        // Correo de un login fallido tal como lo envió el cliente (antes no cabía en VARCHAR(100))
+        String longEmail = "x".repeat(300) + "@ueb.edu.ec";
+        jdbcTemplate.execute("ALTER TABLE audit_events ADD CONSTRAINT reject_audit " +
+            "CHECK (detail IS DISTINCT FROM 'rechazado') NOT VALID");
+        try {
+            service.start();
+            service.record(AuditEvent.Type.login_failure, userId, "valido@ueb.edu.ec", "antes");
+            service.record(AuditEvent.Type.login_failure, userId, longEmail, "unknown_user");
+            service.record(AuditEvent.Type.login_failure, userId, "valido@ueb.edu.ec", "rechazado");
+            service.record(AuditEvent.Type.login_failure, userId, "valido@ueb.edu.ec", "despues");
+            // Los cuatro salen en un solo lote al vaciar el buffer
+            service.stop();
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE audit_events DROP CONSTRAINT reject_audit");
+        }
+
+        assertEquals(List.of("antes", "unknown_user", "despues"), jdbcTemplate.queryForList(
+            "SELECT detail FROM audit_events WHERE user_id = ? ORDER BY id", String.class, userId));
+        assertEquals(longEmail, jdbcTemplate.queryForObject(
+            "SELECT email FROM audit_events WHERE user_id = ? AND detail = 'unknown_user'", String.class, userId));
+        assertEquals(3.0, meters.counter("audit.events", "outcome", "written").count());
+        assertEquals(1.0, meters.counter("audit.events", "outcome", "failed").count());
+    }
+
+    private AuditService service(MeterRegistry meters, int capacity, OverflowPolicy policy, Duration flushInterval) {
+        return new AuditService(auditEventRepository, meters, true, capacity, 500, flushInterval, policy,
+            Duration.ofSeconds(10));
+    }
+
+    private List<String> awaitEvents(UUID userId, int expected) throws InterruptedException {
+        List<String> events = List.of();
+        for (int attempt = 0; attempt < 50 && events.size() < expected; attempt++) {
+            Thread.sleep(100);
+            events = jdbcTemplate.queryForList(
+                "SELECT event_type FROM audit_events WHERE user_id = ? ORDER BY occurred_at, id", String.class, userId);
+        }
+        return events;
+    }
+
+    private int countEvents(UUID userId) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM audit_events WHERE user_id = ?", Integer.class, userId);
+    }
+
+    private UUID register(String email) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Ana\",\"lastName\":\"García\",\"email\":\"" + email
+                    + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return UUID.fromString(JsonPath.read(body, "$.data.id"));
+    }
+
+    private ResultActions login(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"));
+    }
+}
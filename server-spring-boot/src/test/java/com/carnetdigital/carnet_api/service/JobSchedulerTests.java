@@ -0,0 +1,199 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.repository.ScheduledJobRepository;
+import com.carnetdigital.carnet_api.service.JobScheduler.Outcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Varios "nodos" (instancias de JobScheduler con su propio node-id) contra el mismo PostgreSQL embebido:
+ * cada disparo corre una sola vez, la caída del nodo que ejecuta pasa el job a otro y el endpoint de
+ * administración lo dispara a pedido. Se ejecuta con ./gradlew clusterJobTest.
+ */
+@Tag("cluster-jobs")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JobSchedulerTests {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ScheduledJobRepository scheduledJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void eachDueFireRunsOnExactlyOneNode() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        ClusterJob job = new ClusterJob("single-run", "0 0 2 * * *", () -> {
+            runs.incrementAndGet();
+            sleep(300);
+            return 7;
+        });
+        List<JobScheduler> nodes = List.of(node(job, "node-a"), node(job, "node-b"), node(job, "node-c"));
+
+        // La primera revisión solo registra el job; después se fuerza el vencimiento
+        assertEquals(Outcome.not_due, nodes.get(0).runIfDue(job));
+        makeDue(job);
+
+        List<CompletableFuture<Outcome>> polls = nodes.stream()
+            .map(node -> CompletableFuture.supplyAsync(() -> node.runIfDue(job)))
+            .toList();
+        List<Outcome> outcomes = polls.stream().map(CompletableFuture::join).toList();
+
+        assertEquals(1, runs.get());
+        assertEquals(1, outcomes.stream().filter(outcome -> outcome == Outcome.success).count());
+        Map<String, Object> row = row(job);
+        assertEquals(1L, row.get("run_count"));
+        assertEquals(7L, row.get("last_rows"));
+        assertEquals("success", row.get("last_status"));
+
+        // Ya adelantado al siguiente disparo: nadie más lo corre
+        assertEquals(Outcome.not_due, nodes.get(1).runIfDue(job));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void anotherNodeTakesOverWhenTheRunningNodeDies() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ClusterJob job = new ClusterJob("failover", "0 0 2 * * *", () -> {
+            if (runs.incrementAndGet() == 1) {
+                // El primer nodo queda colgado dentro del job con el lock tomado
+                started.countDown();
+                await(release);
+            }
+            return 1;
+        });
+        JobScheduler leader = node(job, "node-a");
+        JobScheduler standby = node(job, "node-b");
+
+        leader.runIfDue(job);
+        makeDue(job);
+        CompletableFuture<Outcome> hung = CompletableFuture.supplyAsync(() -> leader.runIfDue(job));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertEquals(Outcome.locked, standby.runIfDue(job));
+
+        // PostgreSQL cierra la sesión del nodo caído: revierte su transacción y libera el lock
+        jdbcTemplate.queryForList(
+            "SELECT pg_terminate_backend(pid) FROM pg_locks WHERE locktype = 'advisory' AND granted");
+
+        Outcome outcome = Outcome.locked;
+        for (int attempt = 0; attempt < 50 && outcome != Outcome.success; attempt++) {
+            sleep(100);
+            outcome = standby.runIfDue(job);
+        }
+        assertEquals(Outcome.success, outcome);
+
+        // El nodo que perdió la conexión falla al terminar, pero no pisa la corrida de node-b
+        release.countDown();
+        assertEquals(Outcome.failed, hung.get(10, TimeUnit.SECONDS));
+        Map<String, Object> row = row(job);
+        assertEquals("success", row.get("last_status"));
+        assertEquals("node-b", row.get("last_node"));
+        assertEquals(1L, row.get("run_count"));
+    }
+
+    @Test
+    void adminEndpointRunsJobOnDemand() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/jobs/{name}/run", "token-cleanup"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.name").value("token-cleanup"))
+            .andExpect(jsonPath("$.data.lastStatus").value("success"))
+            .andExpect(jsonPath("$.data.lastRows").value(0))
+            .andExpect(jsonPath("$.meta.outcome").value("success"));
+
+        mockMvc.perform(get("/api/v1/admin/jobs"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[?(@.name == 'token-cleanup')].runCount").value(1));
+
+        mockMvc.perform(post("/api/v1/admin/jobs/{name}/run", "no-existe"))
+            .andExpect(status().isNotFound());
+    }
+
+    private JobScheduler node(ClusterJob job, String nodeId) {
+        JobScheduler node = new JobScheduler(List.of(job), scheduledJobRepository, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(node, "nodeId", nodeId);
+        return node;
+    }
+
+    private void makeDue(ClusterJob job) {
+        jdbcTemplate.update("UPDATE scheduled_jobs SET next_run_at = now() - interval '1 minute' WHERE name = ?", job.name());
+    }
+
+    private Map<String, Object> row(ClusterJob job) {
+        return jdbcTemplate.queryForMap("SELECT * FROM scheduled_jobs WHERE name = ?", job.name());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.carnetdigital.carnet_api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * auth.jwt{operation, outcome}: los timers se registran al construir el servicio y cada firma o
+ * verificación suma en el que corresponde, sin crear medidores nuevos.
+ */
+class JwtServiceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtService jwtService = new JwtService(meterRegistry);
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(jwtService, "SECRET_KEY", "clave-de-prueba-suficientemente-larga-para-hs256");
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 60_000L);
+    }
+
+    @Test
+    void timersAreRegisteredOnceAndReused() {
+        assertEquals(4, meterRegistry.find("auth.jwt").timers().size());
+        int meters = meterRegistry.getMeters().size();
+
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            String token = jwtService.generateAccessToken("ana@ueb.edu.ec", userId, "student", 0);
+            assertEquals(userId, jwtService.extractUserId(jwtService.parse(token)));
+        }
+
+        assertEquals(meters, meterRegistry.getMeters().size());
+        assertEquals(3, timerCount("sign", "success"));
+        assertEquals(3, timerCount("verify", "success"));
+    }
+
+    @Test
+    void rejectedTokensAreTimedAsFailures() {
+        String token = jwtService.generateRefreshToken("ana@ueb.edu.ec", UUID.randomUUID(), 0);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(RuntimeException.class, () -> jwtService.parse(tampered));
+        assertThrows(RuntimeException.class, () -> jwtService.parse("no-es-un-jwt"));
+
+        assertEquals(2, timerCount("verify", "failure"));
+        assertEquals(0, timerCount("verify", "success"));
+    }
+
+    private long timerCount(String operation, String outcome) {
+        return meterRegistry.get("auth.jwt").tag("operation", operation).tag("outcome", outcome).timer().count();
+    }
+}
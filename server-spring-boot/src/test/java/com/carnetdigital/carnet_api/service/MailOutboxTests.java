@@ -0,0 +1,356 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Restablecer contraseña y verificar correo sobre PostgreSQL embebido, con un servidor SMTP de prueba local:
+ * las peticiones solo escriben en mail_outbox, MailOutboxWorker entrega los lotes y reintenta con espera
+ * exponencial cuando el SMTP rechaza la conexión. El token del enlace nunca queda en el cuerpo guardado y
+ * sale de la fila al enviarla. Se ejecuta con ./gradlew mailOutboxTest.
+ */
+@Tag("mail-outbox")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "mail.outbox.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MailOutboxTests {
+
+    private static final String PASSWORD = "Secreto123!";
+    private static final Pattern TOKEN = Pattern.compile("token=([0-9a-f]{64})");
+
+    private static EmbeddedPostgres postgres;
+    private static SmtpStub smtp;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MailOutboxWorker mailOutboxWorker;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        smtp = new SmtpStub();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", smtp::port);
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        smtp.close();
+        postgres.close();
+    }
+
+    @Test
+    void passwordResetIsMailedThroughTheOutboxAndRevokesTokens() throws Exception {
+        register("reset@ueb.edu.ec");
+        String refreshToken = JsonPath.read(login("reset@ueb.edu.ec", PASSWORD)
+            .andExpect(status().isOk()).andReturn().getResponse().getContentAsString(), "$.data.refreshToken");
+
+        int connections = smtp.connections.get();
+        forgot("reset@ueb.edu.ec").andExpect(status().isOk());
+        // La petición no tocó el SMTP: el correo quedó en el outbox
+        assertEquals(connections, smtp.connections.get());
+        assertEquals("pending", outbox("reset@ueb.edu.ec", "Restablecer tu contraseña").get("status"));
+
+        mailOutboxWorker.drain();
+        assertEquals("sent", outbox("reset@ueb.edu.ec", "Restablecer tu contraseña").get("status"));
+        String token = tokenFrom(lastMail("reset@ueb.edu.ec", "Restablecer tu contraseña"));
+        // En la base solo queda el hash del token, y la fila enviada no lo conserva
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM tokens WHERE token = ?", Integer.class, token));
+        assertNoRowKeeps(token);
+
+        reset(token, "NuevoSecreto456!").andExpect(status().isOk());
+        reset(token, "OtroSecreto789!").andExpect(status().isUnauthorized());
+
+        login("reset@ueb.edu.ec", PASSWORD).andExpect(status().isUnauthorized());
+        login("reset@ueb.edu.ec", "NuevoSecreto456!").andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void unknownEmailsAndRepeatedRequestsDoNotSendMail() throws Exception {
+        forgot("nadie@ueb.edu.ec").andExpect(status().isOk());
+        assertEquals(0, countOutbox("nadie@ueb.edu.ec"));
+
+        register("repeated@ueb.edu.ec");
+        forgot("repeated@ueb.edu.ec").andExpect(status().isOk());
+        forgot("repeated@ueb.edu.ec").andExpect(status().isOk());
+        // Verificación del registro + un solo correo de restablecimiento (auth.account-mail.min-interval)
+        assertEquals(2, countOutbox("repeated@ueb.edu.ec"));
+    }
+
+    @Test
+    void registrationMailsVerificationAndConfirmActivates() throws Exception {
+        UUID userId = register("verify@ueb.edu.ec");
+        assertEquals("pending", userStatus(userId));
+
+        mailOutboxWorker.drain();
+        String token = tokenFrom(lastMail("verify@ueb.edu.ec", "Verifica tu correo"));
+        assertNoRowKeeps(token);
+
+        confirm(token).andExpect(status().isOk());
+        assertEquals("active", userStatus(userId));
+        confirm(token).andExpect(status().isUnauthorized());
+        assertEquals(1, countOutbox("verify@ueb.edu.ec"));
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithBackoff() throws Exception {
+        mailOutboxWorker.drain();
+        smtp.rejecting = true;
+        try {
+            register("retry@ueb.edu.ec");
+            assertEquals(0, mailOutboxWorker.drain());
+
+            Map<String, Object> row = outbox("retry@ueb.edu.ec", "Verifica tu correo");
+            assertEquals("pending", row.get("status"));
+            assertEquals(1, row.get("attempts"));
+            assertNotNull(row.get("last_error"));
+            // Pendiente: el token espera en link_token, el cuerpo solo tiene el marcador
+            assertNotNull(row.get("link_token"));
+            assertFalse(((String) row.get("body")).contains((String) row.get("link_token")));
+            assertTrue(jdbcTemplate.queryForObject(
+                "SELECT next_attempt_at > now() + interval '20 seconds' FROM mail_outbox WHERE id = ?",
+                Boolean.class, row.get("id")));
+
+            // Intentos agotados: queda como failed
+            register("failed@ueb.edu.ec");
+            ReflectionTestUtils.setField(mailOutboxWorker, "maxAttempts", 1);
+            try {
+                mailOutboxWorker.drain();
+            } finally {
+                ReflectionTestUtils.setField(mailOutboxWorker, "maxAttempts", 8);
+            }
+            Map<String, Object> failed = outbox("failed@ueb.edu.ec", "Verifica tu correo");
+            assertEquals("failed", failed.get("status"));
+            assertNull(failed.get("link_token"));
+        } finally {
+            smtp.rejecting = false;
+        }
+
+        // Antes de next_attempt_at no se reintenta; al vencer, sale
+        assertEquals(0, mailOutboxWorker.drain());
+        jdbcTemplate.update("UPDATE mail_outbox SET next_attempt_at = now() WHERE recipient = 'retry@ueb.edu.ec'");
+        assertEquals(1, mailOutboxWorker.drain());
+        Map<String, Object> row = outbox("retry@ueb.edu.ec", "Verifica tu correo");
+        assertEquals("sent", row.get("status"));
+        assertEquals(2, row.get("attempts"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM mail_outbox WHERE status <> 'pending' AND link_token IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(Duration.ofSeconds(30), mailOutboxWorker.backoffFor(1));
+        assertEquals(Duration.ofSeconds(60), mailOutboxWorker.backoffFor(2));
+        assertEquals(Duration.ofMinutes(8), mailOutboxWorker.backoffFor(5));
+        assertEquals(Duration.ofHours(1), mailOutboxWorker.backoffFor(40));
+    }
+
+    private Map<String, Object> outbox(String recipient, String subject) {
+        return jdbcTemplate.queryForMap(
+            "SELECT * FROM mail_outbox WHERE recipient = ? AND subject = ? ORDER BY id DESC LIMIT 1", recipient, subject);
+    }
+
+    private void assertNoRowKeeps(String token) {
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM mail_outbox WHERE body LIKE ? OR link_token = ?", Integer.class, "%" + token + "%", token));
+    }
+
+    private int countOutbox(String recipient) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM mail_outbox WHERE recipient = ?", Integer.class, recipient);
+    }
+
+    private String userStatus(UUID userId) {
+        return jdbcTemplate.queryForObject("SELECT status::text FROM users WHERE id = ?", String.class, userId);
+    }
+
+    // Cuerpo decodificado del último correo entregado al stub para ese destinatario y asunto
+    private String lastMail(String recipient, String subject) throws Exception {
+        Session session = Session.getInstance(new Properties());
+        for (int i = smtp.messages.size() - 1; i >= 0; i--) {
+            MimeMessage message = new MimeMessage(session,
+                new ByteArrayInputStream(smtp.messages.get(i).getBytes(StandardCharsets.ISO_8859_1)));
+            if (subject.equals(message.getSubject()) && recipient.equals(message.getAllRecipients()[0].toString())) {
+                return (String) message.getContent();
+            }
+        }
+        throw new AssertionError("No llegó el correo '" + subject + "' a " + recipient);
+    }
+
+    private static String tokenFrom(String body) {
+        Matcher matcher = TOKEN.matcher(body);
+        assertTrue(matcher.find(), body);
+        return matcher.group(1);
+    }
+
+    private UUID register(String email) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Ana\",\"lastName\":\"García\",\"email\":\"" + email
+                    + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return UUID.fromString(JsonPath.read(body, "$.data.id"));
+    }
+
+    private ResultActions login(String email, String password) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"));
+    }
+
+    private ResultActions forgot(String email) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/password/forgot")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"" + email + "\"}"));
+    }
+
+    private ResultActions reset(String token, String password) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/password/reset")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"token\":\"" + token + "\",\"newPassword\":\"" + password
+                + "\",\"confirmPassword\":\"" + password + "\"}"));
+    }
+
+    private ResultActions confirm(String token) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/verification/confirm")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"token\":\"" + token + "\"}"));
+    }
+
+    /**
+     * Servidor SMTP mínimo para las pruebas: acepta todo y guarda el DATA de cada mensaje.
+     * Con rejecting responde 421 al saludo, como un servidor caído o saturado.
+     */
+    static final class SmtpStub implements AutoCloseable {
+
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final AtomicInteger connections = new AtomicInteger();
+        volatile boolean rejecting;
+
+        private final ServerSocket server;
+
+        SmtpStub() throws IOException {
+            server = new ServerSocket(0);
+            Thread.ofPlatform().daemon().name("smtp-stub").start(this::acceptLoop);
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread.ofPlatform().daemon().start(() -> session(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void session(Socket socket) {
+            connections.incrementAndGet();
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1)) {
+                if (rejecting) {
+                    reply(out, "421 servicio no disponible");
+                    return;
+                }
+                reply(out, "220 smtp-stub");
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.length() > 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                    switch (command) {
+                        case "DATA" -> {
+                            reply(out, "354 fin con <CRLF>.<CRLF>");
+                            StringBuilder data = new StringBuilder();
+                            while ((line = in.readLine()) != null && !line.equals(".")) {
+                                data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+                            }
+                            messages.add(data.toString());
+                            reply(out, "250 en cola");
+                        }
+                        case "QUIT" -> {
+                            reply(out, "221 adios");
+                            return;
+                        }
+                        default -> reply(out, "250 OK"); // EHLO, MAIL, RCPT, RSET, NOOP
+                    }
+                }
+            } catch (IOException ignored) {
+                // El cliente cortó la conexión
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.carnetdigital.carnet_api.service;
+
+import com.carnetdigital.carnet_api.helpers.SqlStatementStats;
+import com.jayway.jsonpath.JsonPath;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sello de seguridad en los JWT con la aplicación real sobre PostgreSQL embebido: refresh sin sentencias SQL
+ * una vez cargado el sello, revocación inmediata al cambiar la contraseña o desactivar al usuario, y un cambio
+ * hecho por otro nodo (solo llega el aviso de LISTEN security_stamp) revoca sin esperar al ttl, y la caché
+ * no pasa de auth.security-stamp.max-entries.
+ * Se ejecuta con ./gradlew securityStampTest.
+ */
+@Tag("security-stamp")
+@SpringBootTest(properties = {
+    "spring.flyway.enabled=true",
+    "jobs.enabled=false",
+    "auth.security-stamp.ttl=10m",
+    "auth.security-stamp.max-entries=50"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SecurityStampTests {
+
+    private static final String PASSWORD = "Secreto123!";
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private SecurityStampListener securityStampListener;
+
+    @Autowired
+    private SecurityStampService securityStampService;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @AfterAll
+    void stop() throws IOException {
+        postgres.close();
+    }
+
+    @Test
+    void refreshRunsWithoutDatabaseReads() throws Exception {
+        // Al empezar a escuchar se descarta la caché: esperar para que no caiga entre los dos refresh
+        awaitUntil(securityStampListener::isListening);
+        String login = login(register("refresh@ueb.edu.ec"));
+        String refreshToken = JsonPath.read(login, "$.data.refreshToken");
+
+        // La primera validación carga el sello; las siguientes salen de la caché
+        refresh(refreshToken).andExpect(status().isOk());
+        try (SqlStatementStats.Scope scope = SqlStatementStats.open("test")) {
+            refresh(refreshToken)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.user.email").value("refresh@ueb.edu.ec"))
+                .andExpect(jsonPath("$.data.user.firstName").value("Ana"));
+            assertEquals(0, scope.getStatements());
+        }
+    }
+
+    @Test
+    void passwordChangeRevokesIssuedTokens() throws Exception {
+        UUID userId = register("password@ueb.edu.ec");
+        String login = login(userId);
+        String accessToken = JsonPath.read(login, "$.data.accessToken");
+        String refreshToken = JsonPath.read(login, "$.data.refreshToken");
+        refresh(refreshToken).andExpect(status().isOk());
+        me(accessToken).andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/v1/users/{id}/password", userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"currentPassword\":\"" + PASSWORD + "\",\"newPassword\":\"Otro12345!\","
+                    + "\"confirmPassword\":\"Otro12345!\"}"))
+            .andExpect(status().is2xxSuccessful());
+
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+        me(accessToken).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void deactivationRevokesIssuedTokens() throws Exception {
+        UUID userId = register("deactivate@ueb.edu.ec");
+        String refreshToken = JsonPath.read(login(userId), "$.data.refreshToken");
+        refresh(refreshToken).andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/v1/users/{id}/deactivate", userId)).andExpect(status().is2xxSuccessful());
+
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void newerStampFromAnotherNodeReloadsTheCache() throws Exception {
+        UUID userId = register("other-node@ueb.edu.ec");
+        refresh(JsonPath.read(login(userId), "$.data.refreshToken")).andExpect(status().isOk());
+
+        // Otro nodo cambió la contraseña y emitió tokens con el sello nuevo
+        jdbcTemplate.update("UPDATE users SET security_stamp = security_stamp + 1 WHERE id = ?", userId);
+        String newer = jwtService.generateRefreshToken("other-node@ueb.edu.ec", userId, 1);
+
+        refresh(newer).andExpect(status().isOk());
+    }
+
+    @Test
+    void changeOnAnotherNodeRevokesWithoutWaitingForTheTtl() throws Exception {
+        awaitUntil(securityStampListener::isListening);
+        UUID userId = register("notify@ueb.edu.ec");
+        String refreshToken = JsonPath.read(login(userId), "$.data.refreshToken");
+        refresh(refreshToken).andExpect(status().isOk());
+
+        // Otro nodo cambió la contraseña: este nodo no pasó por bump(), solo recibe el aviso de la base
+        jdbcTemplate.update("UPDATE users SET security_stamp = security_stamp + 1 WHERE id = ?", userId);
+
+        awaitUntil(() -> refresh(refreshToken).andReturn().getResponse().getStatus() == 401);
+    }
+
+    @Test
+    void cacheStaysBoundedByMaxEntries() throws Exception {
+        // Al empezar a escuchar se descarta la caché: que no la vacíe a mitad de la prueba
+        awaitUntil(securityStampListener::isListening);
+        // Cada id desconocido deja una entrada (sin usuario) hasta que la caché llega al tope
+        for (int i = 0; i < 200; i++) {
+            securityStampService.currentUser(UUID.randomUUID(), 0);
+            assertTrue(securityStampService.size() <= 50, "La caché pasó de max-entries: " + securityStampService.size());
+        }
+        assertEquals(50, securityStampService.size());
+    }
+
+    private void awaitUntil(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.call()) {
+            assertTrue(System.nanoTime() < deadline, "La condición no se cumplió en 5s");
+            Thread.sleep(50);
+        }
+    }
+
+    private UUID register(String email) throws Exception {
+        String body = mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Ana\",\"lastName\":\"García\",\"email\":\"" + email
+                    + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        return UUID.fromString(JsonPath.read(body, "$.data.id"));
+    }
+
+    private String login(UUID userId) throws Exception {
+        String email = jdbcTemplate.queryForObject("SELECT email FROM users WHERE id = ?", String.class, userId);
+        return mockMvc.perform(post("/api/v1/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+    }
+
+    private ResultActions me(String accessToken) throws Exception {
+        return mockMvc.perform(get("/api/v1/auth/me").header("Authorization", "Bearer " + accessToken));
+    }
+}
@@ -0,0 +1,73 @@
+#!/bin/bash
+# Tiempo de arranque y RSS por modo: jvm, aot, cds, aot+cds y native (si existe el binario).
+# Requisitos: ./gradlew bootJar cdsArchive  (y opcionalmente ./gradlew nativeCompile con GraalVM)
+# Uso: ./startup-report.sh [modo...]
+
+set -u
+
+if [ -f .env ]; then
+    set -a
+    source .env
+    set +a
+fi
+
+JAR=$(ls build/libs/*-SNAPSHOT.jar 2>/dev/null | grep -v plain | head -1)
+CDS_DIR=build/cds
+NATIVE=build/native/nativeCompile/carnet-api
+PORT=${SERVER_PORT:-8080}
+TIMEOUT=${STARTUP_TIMEOUT:-120}
+
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+    MODES=(jvm aot cds aot+cds)
+    [ -x "$NATIVE" ] && MODES+=(native)
+fi
+
+command_for() {
+    local cds_jar="$CDS_DIR/$(basename "$JAR")"
+    case "$1" in
+        jvm)     echo "java -jar $JAR" ;;
+        aot)     echo "java -Dspring.aot.enabled=true -jar $JAR" ;;
+        cds)     echo "java -XX:SharedArchiveFile=$CDS_DIR/application.jsa -Xlog:cds=off -jar $cds_jar" ;;
+        aot+cds) echo "java -XX:SharedArchiveFile=$CDS_DIR/application.jsa -Xlog:cds=off -Dspring.aot.enabled=true -jar $cds_jar" ;;
+        native)  echo "$NATIVE" ;;
+        *)       return 1 ;;
+    esac
+}
+
+measure() {
+    local mode=$1 cmd log pid started="" rss="-" elapsed=0
+    cmd=$(command_for "$mode") || { printf "%-8s %s\n" "$mode" "modo desconocido"; return; }
+    log=$(mktemp)
+
+    $cmd --server.port="$PORT" > "$log" 2>&1 &
+    pid=$!
+
+    while [ $elapsed -lt $((TIMEOUT * 10)) ] && kill -0 $pid 2>/dev/null; do
+        started=$(grep -o 'process running for [0-9.]*' "$log" | grep -o '[0-9.]*$')
+        [ -n "$started" ] && break
+        sleep 0.1
+        elapsed=$((elapsed + 1))
+    done
+
+    if [ -n "$started" ]; then
+        rss=$(awk '/VmRSS/ {printf "%.0f", $2 / 1024}' /proc/$pid/status)
+        printf "%-8s %12s %10s\n" "$mode" "${started}s" "${rss} MB"
+    else
+        printf "%-8s %s (ver %s)\n" "$mode" "no arrancó" "$log"
+    fi
+
+    kill $pid 2>/dev/null
+    wait $pid 2>/dev/null
+    [ -n "$started" ] && rm -f "$log"
+}
+
+if [ -z "$JAR" ]; then
+    echo "No se encontró el bootJar; ejecutar ./gradlew bootJar cdsArchive" >&2
+    exit 1
+fi
+
+printf "%-8s %12s %10s\n" "MODO" "ARRANQUE" "RSS"
+for mode in "${MODES[@]}"; do
+    measure "$mode"
+done